@@ -0,0 +1,110 @@
+#!/usr/bin/env bash
+# Time to first successful request, before (plain java -jar) and after (Spring AOT + AppCDS).
+#
+#   scripts/startup-time.sh [runs]           docker images from Dockerfile and Dockerfile.fast-startup
+#   scripts/startup-time.sh --local [runs]   same two setups with the local JDK, no docker needed
+#
+# Each run starts the app, polls GET /performance with the API key every 50ms until it answers 200,
+# reports the elapsed time and stops the app. Environment: PORT (default 18477), API_KEY, MVN.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+MODE=docker
+if [[ "${1:-}" == "--local" ]]; then
+    MODE=local
+    shift
+fi
+RUNS=${1:-5}
+PORT=${PORT:-18477}
+API_KEY=${API_KEY:-akhilsharma}
+URL="http://localhost:${PORT}/blackrock/challenge/v1/performance"
+JAR=selfinvestment-0.0.1.jar
+MVN=${MVN:-$(command -v mvn || echo "sh ./mvnw")}
+WORK=target/startup-time
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+wait_until_ready() {
+    local deadline=$(( $(now_ms) + 120000 ))
+    until [[ "$(curl -s -o /dev/null -w '%{http_code}' -H "X-API-KEY: ${API_KEY}" "$URL")" == "200" ]]; do
+        if (( $(now_ms) > deadline )); then
+            echo "no successful request within 120s" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+}
+
+build_local() {
+    local java="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+    $MVN -q -DskipTests clean package
+    mkdir -p "$WORK"
+    cp "target/$JAR" "$WORK/plain.jar"
+    # process-aot starts the application, keep its log out of the report
+    $MVN -q -P fast-startup -DskipTests package >"$WORK/build.log" 2>&1 || { cat "$WORK/build.log"; exit 1; }
+    "$java" -Djarmode=tools -jar "target/$JAR" extract --destination "$WORK/fast"
+    "$java" -XX:ArchiveClassesAtExit="$WORK/fast/app.jsa" -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh -jar "$WORK/fast/$JAR" >"$WORK/training.log" 2>&1
+}
+
+build_docker() {
+    docker build -q -t selfinvestment-api:plain -f Dockerfile . >/dev/null
+    docker build -q -t selfinvestment-api:fast-startup -f Dockerfile.fast-startup . >/dev/null
+}
+
+# start <setup>: launch the app in the background
+start() {
+    local java="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+    case "$MODE:$1" in
+        local:before)
+            "$java" -jar "$WORK/plain.jar" --server.port="$PORT" >"$WORK/before.log" 2>&1 &
+            PID=$! ;;
+        local:after)
+            "$java" -XX:SharedArchiveFile="$WORK/fast/app.jsa" -Dspring.aot.enabled=true \
+                -jar "$WORK/fast/$JAR" --server.port="$PORT" >"$WORK/after.log" 2>&1 &
+            PID=$! ;;
+        docker:before)
+            PID=$(docker run -d --rm -p "$PORT:5477" selfinvestment-api:plain) ;;
+        docker:after)
+            PID=$(docker run -d --rm -p "$PORT:5477" selfinvestment-api:fast-startup) ;;
+    esac
+}
+
+stop() {
+    if [[ "$MODE" == local ]]; then
+        kill "$PID"
+        wait "$PID" 2>/dev/null || true
+    else
+        docker stop "$PID" >/dev/null
+    fi
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+echo "Building ($MODE)..."
+"build_$MODE"
+
+declare -A RESULT
+for setup in before after; do
+    times=()
+    for (( run = 1; run <= RUNS; run++ )); do
+        begin=$(now_ms)
+        start "$setup"
+        wait_until_ready
+        times+=( $(( $(now_ms) - begin )) )
+        stop
+        echo "$setup run $run: ${times[-1]} ms"
+    done
+    RESULT[$setup]=$(printf '%s\n' "${times[@]}" | median)
+done
+
+echo
+echo "time to first successful request (median of $RUNS)"
+echo "  before (java -jar):       ${RESULT[before]} ms"
+echo "  after  (Spring AOT + CDS): ${RESULT[after]} ms"
+awk -v b="${RESULT[before]}" -v a="${RESULT[after]}" 'BEGIN { printf "  speedup:                  %.2fx\n", b / a }'
@@ -0,0 +1,97 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Throughput regression gate run by the benchmark profile after JMH.
+ * Compares every score of the JMH JSON result to the committed baseline and fails the build when
+ * one drops by more than the threshold. Benchmarks missing from the baseline are reported, not failed.
+ *
+ * Arguments: jmh-result.json baseline.json threshold update-baseline
+ * With update-baseline=true the baseline is rewritten from the result instead.
+ * Baselines are machine specific: regenerate them on the hardware that runs the gate.
+ */
+public final class BaselineGate {
+
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    private BaselineGate() {
+    }
+
+    public static void main(String[] args) {
+        File result = new File(args[0]);
+        File baseline = new File(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean update = Boolean.parseBoolean(args[3]);
+
+        Map<String, Double> current = scores(MAPPER.readTree(result));
+        if (update || !baseline.exists()) {
+            writeBaseline(baseline, MAPPER.readTree(result));
+            System.out.printf("Baseline %s written with %d scores%n", baseline, current.size());
+            return;
+        }
+
+        Map<String, Double> expected = scores(MAPPER.readTree(baseline));
+        List<String> regressions = new ArrayList<>();
+        System.out.printf("%-90s %14s %14s %8s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double base = expected.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-90s %14s %14.3f %8s%n", entry.getKey(), "-", entry.getValue(), "new");
+                continue;
+            }
+            double change = entry.getValue() / base - 1;
+            System.out.printf("%-90s %14.3f %14.3f %+7.1f%%%n", entry.getKey(), base, entry.getValue(), change * 100);
+            if (change < -threshold) {
+                regressions.add(entry.getKey());
+            }
+        }
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException(String.format("Throughput dropped more than %.0f%% below the baseline for: %s",
+                    threshold * 100, regressions));
+        }
+    }
+
+    /**
+     * Scores by "benchmark(param=value,...)"; reads both JMH results and baselines, which share the layout.
+     */
+    static Map<String, Double> scores(JsonNode runs) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (JsonNode run : runs) {
+            scores.put(key(run), run.path("primaryMetric").path("score").asDouble());
+        }
+        return scores;
+    }
+
+    private static String key(JsonNode run) {
+        Map<String, String> params = new TreeMap<>();
+        run.path("params").properties().forEach(param -> params.put(param.getKey(), param.getValue().asString()));
+        return run.path("benchmark").asString() + (params.isEmpty() ? "" : params.toString());
+    }
+
+    /** Keep only what the gate reads, so the committed file stays small and diffable. */
+    private static void writeBaseline(File baseline, JsonNode runs) {
+        ArrayNode compact = MAPPER.createArrayNode();
+        for (JsonNode run : runs) {
+            ObjectNode entry = compact.addObject();
+            entry.put("benchmark", run.path("benchmark").asString());
+            if (run.has("params")) {
+                entry.set("params", run.get("params"));
+            }
+            ObjectNode metric = entry.putObject("primaryMetric");
+            metric.put("score", run.path("primaryMetric").path("score").asDouble());
+            metric.put("scoreUnit", run.path("primaryMetric").path("scoreUnit").asString());
+        }
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(baseline, compact);
+    }
+}
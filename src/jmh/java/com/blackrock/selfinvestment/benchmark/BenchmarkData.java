@@ -0,0 +1,123 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterValidatorDTO;
+import com.blackrock.selfinvestment.models.transactionResponseDTO;
+import com.blackrock.selfinvestment.models.transactionValidatorDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+/**
+ * Seeded synthetic requests for the benchmarks. The same seed and sizes always give the same
+ * request, so scores of different runs (and the committed baseline) measure the same work.
+ *
+ * Transactions spread over one year with about 10% exact duplicates and a few invalid amounts;
+ * q, p and k windows are between a day and three months long and overlap freely.
+ */
+public final class BenchmarkData {
+
+    public static final long SEED = 20240229L;
+    public static final double WAGE = 50_000;
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+    private static final int YEAR_SECONDS = 365 * 24 * 3600;
+
+    private BenchmarkData() {
+    }
+
+    public static ReturnsRequestDTO returnsRequest(int n, int k, int q, int p) {
+        Random random = new Random(SEED);
+        return new ReturnsRequestDTO(29, WAGE, 5.5, qMoments(random, q), pMoments(random, p), kGroups(random, k),
+                transactions(random, n));
+    }
+
+    public static transactionFilterDTO filterRequest(int n, int k, int q, int p) {
+        Random random = new Random(SEED);
+        return new transactionFilterDTO(qMoments(random, q), pMoments(random, p), kGroups(random, k), WAGE,
+                transactions(random, n));
+    }
+
+    public static transactionValidatorDTO validatorRequest(int n) {
+        List<transactionResponseDTO> rows = new ArrayList<>(n);
+        for (transactionsDTO transaction : transactions(new Random(SEED), n)) {
+            double amount = transaction.getAmount();
+            double ceiling = Math.ceil(amount / 100) * 100;
+            rows.add(new transactionResponseDTO(transaction.getDate(), amount, ceiling, ceiling - amount));
+        }
+        return new transactionValidatorDTO(rows, WAGE);
+    }
+
+    public static transactionFilterValidatorDTO filterValidatorRequest(int n) {
+        Random random = new Random(SEED);
+        List<transactionFilterResponseDTO> rows = new ArrayList<>(n);
+        for (transactionsDTO transaction : transactions(random, n)) {
+            double amount = transaction.getAmount();
+            double ceiling = Math.ceil(amount / 100) * 100;
+            rows.add(new transactionFilterResponseDTO(transaction.getDate(), amount, ceiling, ceiling - amount,
+                    random.nextBoolean()));
+        }
+        return new transactionFilterValidatorDTO(rows, WAGE);
+    }
+
+    public static LocalDateTime[] dates(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime[] dates = new LocalDateTime[count];
+        for (int i = 0; i < count; i++) {
+            dates[i] = randomDate(random);
+        }
+        return dates;
+    }
+
+    static List<transactionsDTO> transactions(Random random, int n) {
+        List<transactionsDTO> transactions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && random.nextInt(10) == 0) {
+                transactions.add(transactions.get(random.nextInt(i)));
+                continue;
+            }
+            double amount = random.nextInt(20) == 0 ? -random.nextInt(500) : random.nextInt(60_000);
+            transactions.add(new transactionsDTO(randomDate(random), amount));
+        }
+        return transactions;
+    }
+
+    static List<qMomentsDTO> qMoments(Random random, int count) {
+        List<qMomentsDTO> q = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = randomDate(random);
+            q.add(new qMomentsDTO(random.nextInt(10) * 10, start, start.plusDays(1 + random.nextInt(90))));
+        }
+        return q;
+    }
+
+    static List<pMomentsDTO> pMoments(Random random, int count) {
+        List<pMomentsDTO> p = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = randomDate(random);
+            p.add(new pMomentsDTO(random.nextInt(100), start, start.plusDays(1 + random.nextInt(90))));
+        }
+        return p;
+    }
+
+    static List<kGroupsDTO> kGroups(Random random, int count) {
+        List<kGroupsDTO> k = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime start = randomDate(random);
+            k.add(new kGroupsDTO(start, start.plusDays(1 + random.nextInt(90))));
+        }
+        return k;
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        return ORIGIN.plusSeconds(random.nextInt(YEAR_SECONDS));
+    }
+}
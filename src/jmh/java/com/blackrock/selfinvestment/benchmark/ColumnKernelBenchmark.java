@@ -0,0 +1,66 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.engine.ColumnKernel;
+
+/**
+ * Scalar against SIMD {@link ColumnKernel}: round-up and validity selection over one column of
+ * n amounts, a tenth of them outside [0, wage]. Throughput is columns per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ColumnKernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    String kernel;
+
+    @Param({"1024", "100000"})
+    int n;
+
+    private ColumnKernel columnKernel;
+    private double[] amount;
+    private double[] ceiling;
+    private double[] remanent;
+    private int[] rows;
+
+    @Setup
+    public void setUp() {
+        columnKernel = "vector".equals(kernel) ? ColumnKernel.vector() : ColumnKernel.scalar();
+        if (columnKernel == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+        Random random = new Random(BenchmarkData.SEED);
+        amount = new double[n];
+        for (int i = 0; i < n; i++) {
+            amount[i] = random.nextInt(10) == 0 ? -random.nextInt(1000) : random.nextInt(5_000_000) / 100.0;
+        }
+        ceiling = new double[n];
+        remanent = new double[n];
+        rows = new int[n];
+    }
+
+    @Benchmark
+    public double[] roundUp() {
+        columnKernel.roundUp(amount, ceiling, remanent, 0, n);
+        return remanent;
+    }
+
+    @Benchmark
+    public int selectValid() {
+        return columnKernel.selectValid(amount, 0, n, BenchmarkData.WAGE, rows);
+    }
+}
@@ -0,0 +1,49 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.helper.Helper;
+
+/**
+ * Helper.isBetweenInclusive over random (target, start, end) triples; one operation is one check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HelperBenchmark {
+
+    private static final int TRIPLES = 1024;
+
+    private LocalDateTime[] targets;
+    private LocalDateTime[] starts;
+    private LocalDateTime[] ends;
+
+    @Setup
+    public void setUp() {
+        targets = BenchmarkData.dates(TRIPLES, BenchmarkData.SEED);
+        starts = BenchmarkData.dates(TRIPLES, BenchmarkData.SEED + 1);
+        ends = BenchmarkData.dates(TRIPLES, BenchmarkData.SEED + 2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIPLES)
+    public int isBetweenInclusive() {
+        int inside = 0;
+        for (int i = 0; i < TRIPLES; i++) {
+            if (Helper.isBetweenInclusive(targets[i], starts[i], ends[i])) {
+                inside++;
+            }
+        }
+        return inside;
+    }
+}
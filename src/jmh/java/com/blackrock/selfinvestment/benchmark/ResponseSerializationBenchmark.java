@@ -0,0 +1,51 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.codec.ResponseSerializers;
+import com.blackrock.selfinvestment.models.transactionResponseDTO;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writing the rows of a :parse response, n transactions, through bean serialization ("bean") or
+ * through {@link ResponseSerializers} ("dedicated").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ResponseSerializationBenchmark {
+
+    @Param({"bean", "dedicated"})
+    String path;
+
+    @Param({"1000", "100000"})
+    int n;
+
+    private JsonMapper mapper;
+    private List<transactionResponseDTO> rows;
+
+    @Setup
+    public void setUp() {
+        mapper = path.equals("dedicated")
+                ? JsonMapper.builder().addModule(ResponseSerializers.module()).build()
+                : JsonMapper.builder().build();
+        rows = BenchmarkData.validatorRequest(n).getTransactions();
+    }
+
+    @Benchmark
+    public void write() {
+        mapper.writeValue(OutputStream.nullOutputStream(), rows);
+    }
+}
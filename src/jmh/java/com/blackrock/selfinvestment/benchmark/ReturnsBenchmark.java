@@ -0,0 +1,60 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
+import com.blackrock.selfinvestment.service.ReturnsService;
+
+/**
+ * returns:nps and returns:index from a bound request to the response DTO.
+ * The timeline cache is warm after the first call, as it is for a client repeating its rule set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReturnsBenchmark {
+
+    @Param({"1000", "100000"})
+    int n;
+
+    @Param({"12", "1000"})
+    int k;
+
+    @Param({"8", "256"})
+    int q;
+
+    @Param({"8", "256"})
+    int p;
+
+    private ReturnsService service;
+    private ReturnsRequestDTO request;
+
+    @Setup
+    public void setUp() {
+        service = new ReturnsService(new MomentTimelineCache(16), ParallelBatchExecutor.sequential());
+        request = BenchmarkData.returnsRequest(n, k, q, p);
+    }
+
+    @Benchmark
+    public ReturnsResponseDTO calculateNPS() {
+        return service.calculateNPS(request);
+    }
+
+    @Benchmark
+    public ReturnsResponseIndexDTO calculateIndexReturns() {
+        return service.calculateIndexReturns(request);
+    }
+}
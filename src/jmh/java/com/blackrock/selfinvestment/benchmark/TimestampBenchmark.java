@@ -0,0 +1,50 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.codec.TimestampDeserializer;
+import com.blackrock.selfinvestment.models.transactionValidatorDTO;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Binding a :validator body of n transactions, with the dates decoded by the @JsonFormat
+ * formatter alone ("formatter") or by {@link TimestampDeserializer} ("timestamps").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimestampBenchmark {
+
+    @Param({"formatter", "timestamps"})
+    String path;
+
+    @Param({"1000", "100000"})
+    int n;
+
+    private JsonMapper mapper;
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        JsonMapper formatter = JsonMapper.builder().build();
+        mapper = path.equals("timestamps")
+                ? JsonMapper.builder().addModule(TimestampDeserializer.module()).build()
+                : formatter;
+        body = formatter.writeValueAsBytes(BenchmarkData.validatorRequest(n));
+    }
+
+    @Benchmark
+    public transactionValidatorDTO bind() {
+        return mapper.readValue(body, transactionValidatorDTO.class);
+    }
+}
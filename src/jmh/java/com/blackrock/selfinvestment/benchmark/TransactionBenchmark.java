@@ -0,0 +1,90 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
+import com.blackrock.selfinvestment.models.transactionFilterValidatorDTO;
+import com.blackrock.selfinvestment.models.transactionValidatorDTO;
+import com.blackrock.selfinvestment.service.TransactionService;
+
+/**
+ * The transaction service entry points on bound requests. The validators only depend on n,
+ * so they live in their own state and are not repeated for every q/p/k combination.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TransactionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class FilterState {
+        @Param({"1000", "100000"})
+        int n;
+
+        @Param({"12", "1000"})
+        int k;
+
+        @Param({"8", "256"})
+        int q;
+
+        @Param({"8", "256"})
+        int p;
+
+        TransactionService service;
+        transactionFilterDTO request;
+
+        @Setup
+        public void setUp() {
+            service = newService();
+            request = BenchmarkData.filterRequest(n, k, q, p);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ValidatorState {
+        @Param({"1000", "100000"})
+        int n;
+
+        TransactionService service;
+        transactionValidatorDTO validatorRequest;
+        transactionFilterValidatorDTO filterValidatorRequest;
+
+        @Setup
+        public void setUp() {
+            service = newService();
+            validatorRequest = BenchmarkData.validatorRequest(n);
+            filterValidatorRequest = BenchmarkData.filterValidatorRequest(n);
+        }
+    }
+
+    @Benchmark
+    public transactionFilterResultDTO filterAndValidate(FilterState state) {
+        return state.service.filterAndValidate(state.request);
+    }
+
+    @Benchmark
+    public Map<String, Object> validateTransactions(ValidatorState state) {
+        return state.service.validateTransactions(state.validatorRequest);
+    }
+
+    @Benchmark
+    public Map<String, Object> validateFilteredTransactions(ValidatorState state) {
+        return state.service.validateTransactions(state.filterValidatorRequest);
+    }
+
+    private static TransactionService newService() {
+        return new TransactionService(new MomentTimelineCache(16), ParallelBatchExecutor.sequential());
+    }
+}
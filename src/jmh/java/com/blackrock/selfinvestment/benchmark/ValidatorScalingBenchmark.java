@@ -0,0 +1,46 @@
+package com.blackrock.selfinvestment.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.models.transactionValidatorDTO;
+import com.blackrock.selfinvestment.service.TransactionService;
+
+/**
+ * Scaling check for transactions:validator over n doubling from 12,500 to 400,000 rows.
+ * Score times n is rows per second, which stays roughly flat while duplicate detection is linear
+ * (it used to halve with every step); the largest sizes lose some to cache misses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ValidatorScalingBenchmark {
+
+    @Param({"12500", "25000", "50000", "100000", "200000", "400000"})
+    int n;
+
+    private TransactionService service;
+    private transactionValidatorDTO request;
+
+    @Setup
+    public void setUp() {
+        service = new TransactionService(new MomentTimelineCache(16), ParallelBatchExecutor.sequential());
+        request = BenchmarkData.validatorRequest(n);
+    }
+
+    @Benchmark
+    public Map<String, Object> validateTransactions() {
+        return service.validateTransactions(request);
+    }
+}
@@ -6,47 +6,156 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.blackrock.selfinvestment.bulkhead.LoadShedder;
+import com.blackrock.selfinvestment.bulkhead.RequestCompletion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Admission at the edge of the API, cheapest check first:
+ * <ol>
+ * <li>the X-API-KEY header must be one of the configured keys (401);</li>
+ * <li>the key's token bucket must have a token (429, Retry-After until the next token);</li>
+ * <li>the {@link LoadShedder} must admit the request (503, Retry-After), before it can queue in a
+ * bulkhead. /performance and the actuator endpoints skip it, so an overloaded server can still be
+ * observed.</li>
+ * </ol>
+ * Rejections are counted in {@code app.security.rejections}, tagged with the client name and the
+ * reason (unauthorized, rate-limited or overloaded).
+ */
 @Component
+@EnableConfigurationProperties(ApiKeyProperties.class)
 public class ApiKeyFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(ApiKeyFilter.class);
 
-    @Value("${app.security.api-key:}")
-    private String configuredApiKey;
+    static final String DEFAULT_CLIENT = "default";
+    private static final String PERFORMANCE_PATH = "/blackrock/challenge/v1/performance";
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    /** Clients by API key. */
+    private final Map<String, Client> clients = new HashMap<>();
+    private final LoadShedder loadShedder;
+    private final Counter unauthorized;
+    /** Shed requests while no API key is configured. */
+    private final Counter anonymousOverloaded;
+
+    public ApiKeyFilter(ApiKeyProperties properties, LoadShedder loadShedder, MeterRegistry registry) {
+        this.loadShedder = loadShedder;
+        if (properties.getApiKey() != null && !properties.getApiKey().isBlank()) {
+            clients.put(properties.getApiKey(), new Client(DEFAULT_CLIENT, new ApiKeyProperties.Client(), registry));
+        }
+        properties.getApiKeys().forEach((name, client) -> {
+            if (client.getKey() != null && !client.getKey().isBlank()) {
+                clients.put(client.getKey(), new Client(name, client, registry));
+            }
+        });
+        this.unauthorized = rejections(registry, "unknown", "unauthorized");
+        this.anonymousOverloaded = rejections(registry, "anonymous", "overloaded");
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        if (configuredApiKey == null || configuredApiKey.isBlank()) {
-            // No API key configured — skip API-key check
-            filterChain.doFilter(request, response);
-            return;
+        // No API key configured — skip API-key check
+        Client client = null;
+        if (!clients.isEmpty()) {
+            client = clients.get(request.getHeader("X-API-KEY"));
+            if (client == null) {
+                logger.warn("Rejected request due to missing/invalid API key from {}", request.getRemoteAddr());
+                unauthorized.increment();
+                reject(response, HttpStatus.UNAUTHORIZED, 0, "Missing or invalid API key");
+                return;
+            }
+            long waitNanos = client.bucket == null ? 0 : client.bucket.tryAcquire(System.nanoTime());
+            if (waitNanos > 0) {
+                client.rateLimited.increment();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "API key quota exceeded, retry later");
+                return;
+            }
         }
 
-        String header = request.getHeader("X-API-KEY");
-        if (configuredApiKey.equals(header)) {
-            // successful authentication: set a simple Authentication so downstream sees an authenticated principal
-            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                    "api-key", null, List.of(new SimpleGrantedAuthority("ROLE_API")));
-            SecurityContextHolder.getContext().setAuthentication(auth);
-            filterChain.doFilter(request, response);
+        boolean shed = !isMonitoring(request);
+        if (shed && !loadShedder.tryAcquire()) {
+            (client != null ? client.overloaded : anonymousOverloaded).increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, loadShedder.retryAfter().toNanos(),
+                    "Server overloaded, retry later");
             return;
         }
+        long start = System.nanoTime();
+        try {
+            if (client != null) {
+                // successful authentication: set a simple Authentication so downstream sees an authenticated principal
+                UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        client.name, null, List.of(new SimpleGrantedAuthority("ROLE_API")));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+            filterChain.doFilter(request, response);
+        } finally {
+            if (shed) {
+                RequestCompletion.whenComplete(request, () -> loadShedder.release(start));
+            }
+        }
+    }
+
+    /** Whether the request reads the server's health or metrics rather than doing work. */
+    private static boolean isMonitoring(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals(PERFORMANCE_PATH) || path.equals(ACTUATOR_PATH) || path.startsWith(ACTUATOR_PATH + "/");
+    }
 
-        logger.warn("Rejected request due to missing/invalid API key from {}", request.getRemoteAddr());
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    /**
+     * @param retryAfterNanos delay sent as Retry-After, rounded up to whole seconds; 0 for none.
+     */
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos,
+            String message) throws IOException {
+        response.setStatus(status.value());
+        if (retryAfterNanos > 0) {
+            long seconds = (retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+            response.setHeader("Retry-After", Long.toString(seconds));
+        }
         response.setContentType("text/plain;charset=UTF-8");
-        response.getWriter().write("Missing or invalid API key");
+        response.getWriter().write(message);
+    }
+
+    private static Counter rejections(MeterRegistry registry, String client, String reason) {
+        return Counter.builder("app.security.rejections")
+                .description("Requests refused at admission")
+                .tag("client", client)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static final class Client {
+        private final String name;
+        /** Null when the client has no quota. */
+        private final TokenBucket bucket;
+        private final Counter rateLimited;
+        private final Counter overloaded;
+
+        Client(String name, ApiKeyProperties.Client quota, MeterRegistry registry) {
+            this.name = name;
+            double rate = quota.getRequestsPerSecond();
+            int burst = quota.getBurst() > 0 ? quota.getBurst() : (int) Math.max(1, Math.ceil(rate));
+            this.bucket = rate > 0 ? new TokenBucket(rate, burst, System.nanoTime()) : null;
+            this.rateLimited = rejections(registry, name, "rate-limited");
+            this.overloaded = rejections(registry, name, "overloaded");
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.blackrock.selfinvestment.authorization;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * API keys, bound from {@code app.security.*}. The single {@code api-key} is the client "default"
+ * without a quota; each {@code api-keys.<client>} entry adds a key with its own quota. The client
+ * name, never the key, tags the rejection metrics. Without any key the API is open.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.security")
+public class ApiKeyProperties {
+
+    private String apiKey;
+
+    private Map<String, Client> apiKeys = new LinkedHashMap<>();
+
+    @Data
+    public static class Client {
+        /** Value of the X-API-KEY header. */
+        private String key;
+        /** Sustained requests per second; 0 for no quota. */
+        private double requestsPerSecond;
+        /** Requests allowed at once above the sustained rate; 0 for one second's worth. */
+        private int burst;
+    }
+}
@@ -0,0 +1,42 @@
+package com.blackrock.selfinvestment.authorization;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket of {@code burst} tokens refilled at {@code rate} tokens per second, without locks.
+ * The bucket is kept in its GCRA form: a single AtomicLong holds the theoretical arrival time of the
+ * next request, each token pushes it one emission interval further, and a request conforms while
+ * that time stays within burst intervals of now. Taking a token is one CAS.
+ */
+final class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong arrival;
+
+    TokenBucket(double rate, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, Math.round(NANOS_PER_SECOND / rate));
+        this.toleranceNanos = intervalNanos * Math.max(burst, 1);
+        this.arrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Take a token.
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available.
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, nowNanos) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos) {
+                return ahead - toleranceNanos;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
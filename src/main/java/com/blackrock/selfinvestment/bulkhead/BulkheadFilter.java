@@ -0,0 +1,127 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semaphore bulkhead per endpoint. A request waits up to the endpoint's queue timeout for a slot
+ * and is answered with 503 and Retry-After when none frees up, so a burst of heavy requests cannot
+ * take every request thread and starve the light endpoints.
+ *
+ * Waiting is cheap when requests run on virtual threads ({@code spring.threads.virtual.enabled}).
+ * Streamed responses keep their slot until the async request completes.
+ */
+@Component
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkheadFilter.class);
+
+    private static final String BASE_PATH = "/blackrock/challenge/v1/";
+    private static final String ID = "id";
+    private static final int UUID_LENGTH = 36;
+
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+
+    public BulkheadFilter(BulkheadProperties properties) {
+        properties.getEndpoints().forEach((name, limit) -> bulkheads.put(name, new Bulkhead(limit)));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Bulkhead bulkhead = bulkheads.get(endpointName(request.getRequestURI()));
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!bulkhead.acquire()) {
+            logger.warn("Rejected request to {}: bulkhead full", request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getWriter().write("Too many concurrent requests, retry later");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestCompletion.whenComplete(request, bulkhead.semaphore::release);
+        }
+    }
+
+    /**
+     * Bulkhead name of a request path, or null for paths outside the API: the path after the base
+     * with '/' and ':' replaced by '-', and a job or ledger id replaced by "id", so that
+     * {@code ledgers/<uuid>/returns:nps} is {@code ledgers-id-returns-nps}.
+     */
+    static String endpointName(String path) {
+        int base = path.indexOf(BASE_PATH);
+        if (base < 0) {
+            return null;
+        }
+        StringBuilder name = new StringBuilder(path.length() - base - BASE_PATH.length());
+        for (String segment : path.substring(base + BASE_PATH.length()).split("/")) {
+            if (isId(segment)) {
+                segment = ID + segment.substring(UUID_LENGTH);
+            }
+            if (name.length() > 0) {
+                name.append('-');
+            }
+            name.append(segment.replace(':', '-'));
+        }
+        return name.length() > 0 && name.charAt(0) == '-' ? name.substring(1) : name.toString();
+    }
+
+    /**
+     * Whether a path segment starts with a UUID, as job and ledger ids do ({@code <uuid>:cancel} included).
+     */
+    private static boolean isId(String segment) {
+        if (segment.length() < UUID_LENGTH || (segment.length() > UUID_LENGTH && segment.charAt(UUID_LENGTH) != ':')) {
+            return false;
+        }
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            char c = segment.charAt(i);
+            boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+            if (dash ? c != '-' : Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Bulkhead {
+        private final Semaphore semaphore;
+        private final long timeoutNanos;
+
+        Bulkhead(BulkheadProperties.Limit limit) {
+            this.semaphore = new Semaphore(Math.max(limit.getMaxConcurrent(), 1), true);
+            this.timeoutNanos = limit.getQueueTimeout().toNanos();
+        }
+
+        boolean acquire() {
+            try {
+                return semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Per-endpoint concurrency limits, bound from {@code app.bulkhead.endpoints.<name>.*}.
+ * The name is the endpoint path after {@code /blackrock/challenge/v1/} with '/' and ':' replaced
+ * by '-', job and ledger ids replaced by "id" and no leading '-', e.g. {@code returns-nps},
+ * {@code filter}, {@code jobs-filter} or {@code ledgers-id-transactions}.
+ * Endpoints without an entry are not limited.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Limit {
+        /** Requests of the endpoint allowed to run at the same time. */
+        private int maxConcurrent = 16;
+        /** How long a request may wait for a free slot before it is rejected with 503. */
+        private Duration queueTimeout = Duration.ofSeconds(1);
+    }
+}
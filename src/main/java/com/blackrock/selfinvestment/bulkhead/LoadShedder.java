@@ -0,0 +1,109 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Global admission limit on the requests in flight, shed with 503 before they queue anywhere.
+ *
+ * The limit adapts to queueing delay the way CoDel detects it: when even the fastest request
+ * completed in an interval took longer than the target latency, requests are standing in a queue,
+ * and the limit is cut by a quarter (down to the minimum). Intervals under the target raise it again
+ * by an eighth (up to the maximum). Everything is kept in atomics, so admission takes no lock.
+ *
+ * Published gauges: {@code app.load-shedding.in-flight} and {@code app.load-shedding.limit}.
+ */
+@Component
+public class LoadShedder {
+
+    private final int maxInFlight;
+    private final int minInFlight;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong intervalStart;
+    /** Lowest latency seen in the current interval. */
+    private final AtomicLong intervalMin = new AtomicLong(Long.MAX_VALUE);
+
+    public LoadShedder(@Value("${app.load-shedding.max-in-flight:256}") int maxInFlight,
+            @Value("${app.load-shedding.min-in-flight:8}") int minInFlight,
+            @Value("${app.load-shedding.target-latency:500ms}") Duration targetLatency,
+            @Value("${app.load-shedding.interval:1s}") Duration interval,
+            @Value("${app.load-shedding.retry-after:1s}") Duration retryAfter, MeterRegistry registry) {
+        this.maxInFlight = maxInFlight;
+        this.minInFlight = Math.max(1, Math.min(minInFlight, maxInFlight));
+        this.targetNanos = targetLatency.toNanos();
+        this.intervalNanos = interval.toNanos();
+        this.retryAfter = retryAfter;
+        this.limit = new AtomicInteger(maxInFlight);
+        this.intervalStart = new AtomicLong(System.nanoTime());
+        Gauge.builder("app.load-shedding.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests admitted and not yet completed")
+                .register(registry);
+        Gauge.builder("app.load-shedding.limit", limit, AtomicInteger::get)
+                .description("Current adaptive limit on the requests in flight")
+                .register(registry);
+    }
+
+    /**
+     * Admit a request unless the in-flight limit is reached; an admitted request must be released.
+     * Always admits when max-in-flight is 0.
+     */
+    public boolean tryAcquire() {
+        if (maxInFlight <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Release an admitted request and account its latency.
+     * @param startNanos System.nanoTime() when the request was admitted.
+     */
+    public void release(long startNanos) {
+        inFlight.decrementAndGet();
+        if (maxInFlight <= 0 || targetNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        intervalMin.accumulateAndGet(now - startNanos, Math::min);
+        long start = intervalStart.get();
+        // One releasing thread closes the interval and adapts the limit
+        if (now - start >= intervalNanos && intervalStart.compareAndSet(start, now)) {
+            boolean queueing = intervalMin.getAndSet(Long.MAX_VALUE) > targetNanos;
+            limit.updateAndGet(value -> queueing ? Math.max(minInFlight, value - value / 4)
+                    : Math.min(maxInFlight, value + Math.max(1, value / 8)));
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    /** Delay suggested to shed clients through Retry-After. */
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,56 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs an action once a request is complete: right away after the filter chain returns, or, for a
+ * request that went async (streamed responses), when the async request completes, times out or fails.
+ */
+public final class RequestCompletion {
+
+    private RequestCompletion() {
+    }
+
+    /**
+     * Call after the filter chain has returned, also when it threw; the action runs exactly once.
+     */
+    public static void whenComplete(HttpServletRequest request, Runnable action) {
+        if (request.isAsyncStarted()) {
+            AtomicBoolean done = new AtomicBoolean();
+            request.getAsyncContext().addListener(new OnComplete(() -> {
+                if (done.compareAndSet(false, true)) {
+                    action.run();
+                }
+            }));
+        } else {
+            action.run();
+        }
+    }
+
+    private record OnComplete(Runnable action) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            action.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            action.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            action.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // a new async cycle drops its listeners; stay registered until the request completes
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
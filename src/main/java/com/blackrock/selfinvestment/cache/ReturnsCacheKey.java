@@ -0,0 +1,177 @@
+package com.blackrock.selfinvestment.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+/**
+ * Content address of a returns calculation: SHA-256 of the scheme and a canonical binary encoding
+ * of the request's fields. Two bodies that deserialize to the same request share a key whatever
+ * their field order, whitespace or number formatting, and since the result depends on nothing
+ * else the key doubles as the response's entity tag. The tag is weak: the JSON, CBOR and Smile
+ * responses to one request are equivalent but not byte-identical.
+ */
+public final class ReturnsCacheKey {
+
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final byte[] digest;
+    private final int hash;
+
+    private ReturnsCacheKey(byte[] digest) {
+        this.digest = digest;
+        this.hash = Arrays.hashCode(digest);
+    }
+
+    /**
+     * @param scheme name of the calculation, e.g. "nps" or "index".
+     * @param request ReturnsRequestDTO as received.
+     */
+    public static ReturnsCacheKey of(String scheme, ReturnsRequestDTO request) {
+        Encoder encoder = new Encoder();
+        encoder.bytes(scheme.getBytes(StandardCharsets.UTF_8));
+        encoder.putLong(request.getAge());
+        encoder.putDouble(request.getWage());
+        encoder.putDouble(request.getInflation());
+
+        List<qMomentsDTO> q = request.getQ();
+        encoder.putLong(q == null ? -1 : q.size());
+        if (q != null) {
+            for (qMomentsDTO moment : q) {
+                encoder.putDouble(moment.getFixed());
+                encoder.putDate(moment.getStart());
+                encoder.putDate(moment.getEnd());
+            }
+        }
+        List<pMomentsDTO> p = request.getP();
+        encoder.putLong(p == null ? -1 : p.size());
+        if (p != null) {
+            for (pMomentsDTO moment : p) {
+                encoder.putDouble(moment.getExtra());
+                encoder.putDate(moment.getStart());
+                encoder.putDate(moment.getEnd());
+            }
+        }
+        List<kGroupsDTO> k = request.getK();
+        encoder.putLong(k == null ? -1 : k.size());
+        if (k != null) {
+            for (kGroupsDTO group : k) {
+                encoder.putDate(group.getStart());
+                encoder.putDate(group.getEnd());
+            }
+        }
+        List<transactionsDTO> transactions = request.getTransactions();
+        encoder.putLong(transactions == null ? -1 : transactions.size());
+        if (transactions != null) {
+            for (transactionsDTO transaction : transactions) {
+                encoder.putDate(transaction.getDate());
+                encoder.putDouble(transaction.getAmount());
+            }
+        }
+        return new ReturnsCacheKey(encoder.digest());
+    }
+
+    /**
+     * Weak entity tag of the response, as sent in the ETag header.
+     */
+    public String etag() {
+        return "W/" + opaqueTag();
+    }
+
+    /**
+     * Whether an If-None-Match header value names this key's entity tag.
+     * Weak tags compare by their opaque part, as If-None-Match uses the weak comparison.
+     * @param ifNoneMatch header value, may be null.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String etag = opaqueTag();
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Quoted part of the entity tag. */
+    private String opaqueTag() {
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ReturnsCacheKey key && hash == key.hash && Arrays.equals(digest, key.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Feeds fixed-width fields to the digest through a small buffer, so large requests are hashed
+     * without an intermediate copy of the encoding.
+     */
+    private static final class Encoder {
+        private final MessageDigest sha256;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+        Encoder() {
+            try {
+                sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        void bytes(byte[] value) {
+            putLong(value.length);
+            flush();
+            sha256.update(value);
+        }
+
+        void putDouble(double value) {
+            putLong(Double.doubleToLongBits(value));
+        }
+
+        void putDate(LocalDateTime date) {
+            putLong(date == null ? NULL : Helper.toEpochSecond(date));
+        }
+
+        void putLong(long value) {
+            if (buffer.remaining() < Long.BYTES) {
+                flush();
+            }
+            buffer.putLong(value);
+        }
+
+        byte[] digest() {
+            flush();
+            return sha256.digest();
+        }
+
+        private void flush() {
+            sha256.update(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.blackrock.selfinvestment.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded cache of computed returns responses keyed by {@link ReturnsCacheKey}.
+ *
+ * Entries are weighed by an estimate of their retained heap size and the least recently used ones
+ * are evicted once the total exceeds the configured maximum; entries older than the TTL are dropped
+ * when next read. Cached responses are shared between requests and must not be modified.
+ *
+ * Published meters: {@code app.returns.cache.gets} (tags scheme, result=hit|miss),
+ * {@code app.returns.cache.evictions} (tag cause=size|expired), {@code app.returns.cache.not-modified},
+ * and the {@code app.returns.cache.size} and {@code app.returns.cache.weight} gauges.
+ */
+@Component
+public class ReturnsResultCache {
+
+    /** Estimated bytes of a response object with its list, and of a key with its map entry. */
+    private static final long RESPONSE_BYTES = 96;
+    private static final long ENTRY_BYTES = 160;
+    /** Estimated bytes of one saving entry: the DTO and its two LocalDateTime graphs. */
+    private static final long SAVING_BYTES = 200;
+
+    private final Map<ReturnsCacheKey, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private long weight;
+
+    private final MeterRegistry registry;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+    private final Counter notModified;
+
+    @Autowired
+    public ReturnsResultCache(@Value("${app.returns-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${app.returns-cache.ttl:10m}") Duration ttl, MeterRegistry registry) {
+        this(maxSize, ttl, registry, System::nanoTime);
+    }
+
+    ReturnsResultCache(DataSize maxSize, Duration ttl, MeterRegistry registry, LongSupplier clock) {
+        this.maxWeight = maxSize.toBytes();
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.registry = registry;
+        this.sizeEvictions = evictions(registry, "size");
+        this.expiredEvictions = evictions(registry, "expired");
+        this.notModified = Counter.builder("app.returns.cache.not-modified")
+                .description("Returns requests answered 304 Not Modified from their entity tag")
+                .register(registry);
+        Gauge.builder("app.returns.cache.size", this, ReturnsResultCache::size)
+                .description("Returns responses held in the cache")
+                .register(registry);
+        Gauge.builder("app.returns.cache.weight", this, ReturnsResultCache::weight)
+                .description("Estimated heap retained by cached returns responses")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public ReturnsResponseDTO nps(ReturnsCacheKey key, Supplier<ReturnsResponseDTO> calculation) {
+        return get("nps", key, calculation, response -> weigh(response.getSavingByDates()));
+    }
+
+    public ReturnsResponseIndexDTO index(ReturnsCacheKey key, Supplier<ReturnsResponseIndexDTO> calculation) {
+        return get("index", key, calculation, response -> weigh(response.getSavingByDates()));
+    }
+
+    /**
+     * Count a request answered from its entity tag alone.
+     */
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Estimated bytes retained by the cached responses.
+     */
+    public long weight() {
+        synchronized (cache) {
+            return weight;
+        }
+    }
+
+    private <T> T get(String scheme, ReturnsCacheKey key, Supplier<T> calculation, ToLongFunction<T> weigher) {
+        long now = clock.getAsLong();
+        synchronized (cache) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (now - entry.created() < ttlNanos) {
+                    gets(scheme, "hit").increment();
+                    @SuppressWarnings("unchecked")
+                    T value = (T) entry.value();
+                    return value;
+                }
+                remove(key, entry);
+                expiredEvictions.increment();
+            }
+        }
+        gets(scheme, "miss").increment();
+
+        // Compute outside the lock; a concurrent miss on the same key just computes twice
+        T value = calculation.get();
+        long entryWeight = weigher.applyAsLong(value);
+        if (entryWeight > maxWeight) {
+            return value;
+        }
+        synchronized (cache) {
+            Entry previous = cache.put(key, new Entry(value, entryWeight, clock.getAsLong()));
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+            weight += entryWeight;
+            Iterator<Map.Entry<ReturnsCacheKey, Entry>> eldest = cache.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                weight -= evicted.weight();
+                sizeEvictions.increment();
+            }
+        }
+        return value;
+    }
+
+    private void remove(ReturnsCacheKey key, Entry entry) {
+        cache.remove(key);
+        weight -= entry.weight();
+    }
+
+    private Counter gets(String scheme, String result) {
+        return Counter.builder("app.returns.cache.gets")
+                .description("Returns cache lookups")
+                .tags("scheme", scheme, "result", result)
+                .register(registry);
+    }
+
+    private static Counter evictions(MeterRegistry registry, String cause) {
+        return Counter.builder("app.returns.cache.evictions")
+                .description("Returns responses dropped from the cache")
+                .tag("cause", cause)
+                .register(registry);
+    }
+
+    private static long weigh(List<?> savings) {
+        return ENTRY_BYTES + RESPONSE_BYTES + (savings == null ? 0 : savings.size() * SAVING_BYTES);
+    }
+
+    private record Entry(Object value, long weight, long created) {
+    }
+}
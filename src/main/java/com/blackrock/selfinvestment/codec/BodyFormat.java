@@ -0,0 +1,49 @@
+package com.blackrock.selfinvestment.codec;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Wire formats of request and response bodies, chosen by Content-Type and Accept. The binary
+ * formats carry the same fields as JSON; they skip text number parsing and are smaller on the
+ * wire, for service-to-service callers.
+ */
+public enum BodyFormat {
+
+    JSON(MediaType.APPLICATION_JSON_VALUE),
+    CBOR(MediaType.APPLICATION_CBOR_VALUE),
+    SMILE(BodyFormat.SMILE_VALUE);
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+
+    BodyFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @param contentType Content-Type header, may be null.
+     * @return the format of the body; JSON when the header is missing or not a binary format.
+     */
+    public static BodyFormat of(String contentType) {
+        if (contentType == null) {
+            return JSON;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (BodyFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(type)) {
+                    return format;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // fall through to JSON, as before binary formats were accepted
+        }
+        return JSON;
+    }
+}
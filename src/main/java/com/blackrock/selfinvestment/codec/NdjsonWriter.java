@@ -0,0 +1,111 @@
+package com.blackrock.selfinvestment.codec;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.blackrock.selfinvestment.engine.BatchPartition;
+import com.blackrock.selfinvestment.engine.RowPipeline;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes newline-delimited JSON (application/x-ndjson), one object per line, straight to the response.
+ * Only the generator's buffer is held, and the first line is flushed immediately so clients see
+ * results while the rest of the request is still being read.
+ */
+public final class NdjsonWriter implements AutoCloseable {
+
+    private final JsonGenerator generator;
+    private boolean flushed;
+
+    public NdjsonWriter(JsonMapper mapper, OutputStream out) {
+        this.generator = mapper.writer().withRootValueSeparator("").createGenerator(out);
+    }
+
+    /**
+     * Stream the lines written by the handler. The status line is sent before the body has been read,
+     * so a malformed body ends the stream with an {"error": ...} line instead of a 400.
+     */
+    public static ResponseEntity<StreamingResponseBody> response(JsonMapper mapper, Consumer<NdjsonWriter> handler) {
+        StreamingResponseBody stream = outputStream -> {
+            try (NdjsonWriter out = new NdjsonWriter(mapper, outputStream)) {
+                try {
+                    handler.accept(out);
+                } catch (ResponseStatusException e) {
+                    out.error(e.getReason());
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(stream);
+    }
+
+    /**
+     * Write a value as a line of its own.
+     */
+    public void write(Object value) {
+        generator.writePOJO(value);
+        endLine();
+    }
+
+    /**
+     * Write a value wrapped in a single-property object, e.g. {"valid": {...}}.
+     */
+    public void write(String name, Object value) {
+        generator.writeStartObject();
+        generator.writePOJOProperty(name, value);
+        generator.writeEndObject();
+        endLine();
+    }
+
+    /**
+     * Write a trailing {"error": message} line; used once the status line has already been sent.
+     */
+    public void error(String message) {
+        generator.writeStartObject();
+        generator.writeStringProperty("error", message);
+        generator.writeEndObject();
+        endLine();
+    }
+
+    /**
+     * Wrap a pipeline so that every row it adds to the partition is written as a
+     * {"valid": ...} or {"invalid": ...} line as soon as the row has been accepted.
+     * @param pipeline RowPipeline filling the partition.
+     * @param partition BatchPartition filled by the pipeline.
+     * @param validRow builds the DTO of the n-th valid row.
+     * @return RowPipeline that accepts and writes.
+     */
+    public RowPipeline writing(RowPipeline pipeline, BatchPartition partition, IntFunction<?> validRow) {
+        return row -> {
+            int valid = partition.validCount();
+            int invalid = partition.invalidCount();
+            pipeline.accept(row);
+            for (; valid < partition.validCount(); valid++) {
+                write("valid", validRow.apply(valid));
+            }
+            for (; invalid < partition.invalidCount(); invalid++) {
+                write("invalid", partition.invalidDTO(invalid));
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        generator.close();
+    }
+
+    private void endLine() {
+        generator.writeRaw('\n');
+        if (!flushed) {
+            generator.flush();
+            flushed = true;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.blackrock.selfinvestment.codec;
+
+import java.time.LocalDateTime;
+
+import com.blackrock.selfinvestment.models.SavingByDatesDTO;
+import com.blackrock.selfinvestment.models.SavingsByDatesIndexDTO;
+import com.blackrock.selfinvestment.models.invalidTransactionDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResponseDTO;
+import com.blackrock.selfinvestment.models.transactionResponseDTO;
+import com.blackrock.selfinvestment.models.validTransactionDTO;
+import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Serializers for the response rows, written field by field to the generator instead of through
+ * bean introspection, with dates from the {@link TimestampSerializer} cache. Property names, order
+ * and inclusion are those of the annotated DTOs, so the output is unchanged in every body format.
+ */
+public final class ResponseSerializers {
+
+    private static final SerializableString DATE = new SerializedString("date");
+    private static final SerializableString START = new SerializedString("start");
+    private static final SerializableString END = new SerializedString("end");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString CEILING = new SerializedString("ceiling");
+    private static final SerializableString REMANENT = new SerializedString("remanent");
+    private static final SerializableString IN_K_PERIOD = new SerializedString("inKPeriod");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString PROFIT = new SerializedString("profit");
+    private static final SerializableString TAX_BENEFIT = new SerializedString("taxBenefit");
+    private static final SerializableString RETURN = new SerializedString("return");
+
+    private ResponseSerializers() {
+    }
+
+    /**
+     * Module registering the row serializers and {@link TimestampSerializer} for LocalDateTime.
+     */
+    public static SimpleModule module() {
+        return new SimpleModule("responses")
+                .addSerializer(LocalDateTime.class, new TimestampSerializer())
+                .addSerializer(transactionResponseDTO.class, new TransactionResponseSerializer())
+                .addSerializer(validTransactionDTO.class, new ValidTransactionSerializer())
+                .addSerializer(invalidTransactionDTO.class, new InvalidTransactionSerializer())
+                .addSerializer(validTransactionFilterDTO.class, new ValidTransactionFilterSerializer())
+                .addSerializer(transactionFilterResponseDTO.class, new TransactionFilterResponseSerializer())
+                .addSerializer(kGroupResponseDTO.class, new KGroupResponseSerializer())
+                .addSerializer(SavingByDatesDTO.class, new SavingByDatesSerializer())
+                .addSerializer(SavingsByDatesIndexDTO.class, new SavingsByDatesIndexSerializer());
+    }
+
+    private static void writeDate(JsonGenerator generator, SerializableString name, LocalDateTime value) {
+        generator.writeName(name);
+        TimestampSerializer.write(value, generator);
+    }
+
+    /** For the NON_EMPTY rows: a null date is left out. */
+    private static void writeDateIfPresent(JsonGenerator generator, LocalDateTime value) {
+        if (value != null) {
+            writeDate(generator, DATE, value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, SerializableString name, double value) {
+        generator.writeName(name);
+        generator.writeNumber(value);
+    }
+
+    private static void writeAmounts(JsonGenerator generator, double amount, double ceiling, double remanent) {
+        writeNumber(generator, AMOUNT, amount);
+        writeNumber(generator, CEILING, ceiling);
+        writeNumber(generator, REMANENT, remanent);
+    }
+
+    static final class TransactionResponseSerializer extends StdSerializer<transactionResponseDTO> {
+        TransactionResponseSerializer() {
+            super(transactionResponseDTO.class);
+        }
+
+        @Override
+        public void serialize(transactionResponseDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeDate(generator, DATE, value.getDate());
+            writeAmounts(generator, value.getAmount(), value.getCeiling(), value.getRemanent());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class ValidTransactionSerializer extends StdSerializer<validTransactionDTO> {
+        ValidTransactionSerializer() {
+            super(validTransactionDTO.class);
+        }
+
+        @Override
+        public void serialize(validTransactionDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeDateIfPresent(generator, value.getDate());
+            writeAmounts(generator, value.getAmount(), value.getCeiling(), value.getRemanent());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class InvalidTransactionSerializer extends StdSerializer<invalidTransactionDTO> {
+        InvalidTransactionSerializer() {
+            super(invalidTransactionDTO.class);
+        }
+
+        @Override
+        public void serialize(invalidTransactionDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeDateIfPresent(generator, value.getDate());
+            writeAmounts(generator, value.getAmount(), value.getCeiling(), value.getRemanent());
+            String message = value.getMessage();
+            if (message != null && !message.isEmpty()) {
+                generator.writeName(MESSAGE);
+                generator.writeString(message);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    static final class ValidTransactionFilterSerializer extends StdSerializer<validTransactionFilterDTO> {
+        ValidTransactionFilterSerializer() {
+            super(validTransactionFilterDTO.class);
+        }
+
+        @Override
+        public void serialize(validTransactionFilterDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeDate(generator, DATE, value.getDate());
+            writeAmounts(generator, value.getAmount(), value.getCeiling(), value.getRemanent());
+            generator.writeName(IN_K_PERIOD);
+            generator.writeBoolean(value.isInKPeriod());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class TransactionFilterResponseSerializer extends StdSerializer<transactionFilterResponseDTO> {
+        TransactionFilterResponseSerializer() {
+            super(transactionFilterResponseDTO.class);
+        }
+
+        @Override
+        public void serialize(transactionFilterResponseDTO value, JsonGenerator generator,
+                SerializationContext context) throws JacksonException {
+            generator.writeStartObject(value);
+            writeDate(generator, DATE, value.getDate());
+            writeAmounts(generator, value.getAmount(), value.getCeiling(), value.getRemanent());
+            generator.writeName(IN_K_PERIOD);
+            generator.writeBoolean(value.isInKPeriod());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class KGroupResponseSerializer extends StdSerializer<kGroupResponseDTO> {
+        KGroupResponseSerializer() {
+            super(kGroupResponseDTO.class);
+        }
+
+        @Override
+        public void serialize(kGroupResponseDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeNumber(generator, AMOUNT, value.getAmount());
+            writeDate(generator, START, value.getStart());
+            writeDate(generator, END, value.getEnd());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class SavingByDatesSerializer extends StdSerializer<SavingByDatesDTO> {
+        SavingByDatesSerializer() {
+            super(SavingByDatesDTO.class);
+        }
+
+        @Override
+        public void serialize(SavingByDatesDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeDate(generator, START, value.getStart());
+            writeDate(generator, END, value.getEnd());
+            writeNumber(generator, AMOUNT, value.getAmount());
+            writeNumber(generator, PROFIT, value.getProfit());
+            writeNumber(generator, TAX_BENEFIT, value.getTaxBenefit());
+            generator.writeEndObject();
+        }
+    }
+
+    static final class SavingsByDatesIndexSerializer extends StdSerializer<SavingsByDatesIndexDTO> {
+        SavingsByDatesIndexSerializer() {
+            super(SavingsByDatesIndexDTO.class);
+        }
+
+        @Override
+        public void serialize(SavingsByDatesIndexDTO value, JsonGenerator generator, SerializationContext context)
+                throws JacksonException {
+            generator.writeStartObject(value);
+            writeNumber(generator, RETURN, value.getReturnValue());
+            writeDate(generator, START, value.getStart());
+            writeDate(generator, END, value.getEnd());
+            generator.writeEndObject();
+        }
+    }
+}
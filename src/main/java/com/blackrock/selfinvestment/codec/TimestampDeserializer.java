@@ -0,0 +1,86 @@
+package com.blackrock.selfinvestment.codec;
+
+import java.time.LocalDateTime;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.BeanProperty;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ext.javatime.deser.LocalDateTimeDeserializer;
+import tools.jackson.databind.module.SimpleModule;
+
+/**
+ * LocalDateTime deserializer for the properties annotated with
+ * {@code @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")}, i.e. every date of the model DTOs.
+ * The timestamp is decoded from the parser's character buffer by {@link Timestamps}, and the value
+ * comes from its cache of recent seconds, so a repeated date costs no allocation at all.
+ *
+ * Any other token or text goes to Jackson's own deserializer for the property, so lenient
+ * resolutions (e.g. 2023-02-30) and error messages are exactly those of the annotation alone.
+ * Properties with another or no pattern get Jackson's deserializer directly.
+ */
+public final class TimestampDeserializer extends ValueDeserializer<LocalDateTime> {
+
+    private final ValueDeserializer<LocalDateTime> fallback;
+
+    public TimestampDeserializer() {
+        this(LocalDateTimeDeserializer.INSTANCE);
+    }
+
+    private TimestampDeserializer(ValueDeserializer<LocalDateTime> fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Module registering the deserializer for LocalDateTime.
+     */
+    public static SimpleModule module() {
+        return new SimpleModule("timestamps").addDeserializer(LocalDateTime.class, new TimestampDeserializer());
+    }
+
+    /**
+     * Epoch second of the string the parser is on, decoded like {@link #deserialize}.
+     * @throws java.time.format.DateTimeParseException if the text is not a valid timestamp.
+     */
+    public static long epochSecond(JsonParser parser) {
+        long epochSecond = decode(parser);
+        return epochSecond != Timestamps.INVALID ? epochSecond
+                : Helper.toEpochSecond(Helper.parseDateTime(parser.getString()));
+    }
+
+    @Override
+    public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws JacksonException {
+        if (parser.hasToken(JsonToken.VALUE_STRING)) {
+            long epochSecond = decode(parser);
+            if (epochSecond != Timestamps.INVALID) {
+                return Timestamps.dateTime(epochSecond);
+            }
+        }
+        return fallback.deserialize(parser, context);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) {
+        ValueDeserializer<LocalDateTime> contextual = (ValueDeserializer<LocalDateTime>) LocalDateTimeDeserializer.INSTANCE
+                .createContextual(context, property);
+        JsonFormat.Value format = property == null ? null
+                : property.findPropertyFormat(context.getConfig(), LocalDateTime.class);
+        if (format == null || !Helper.DATE_TIME_PATTERN.equals(format.getPattern())) {
+            return contextual;
+        }
+        return new TimestampDeserializer(contextual);
+    }
+
+    private static long decode(JsonParser parser) {
+        if (parser.getStringLength() != Timestamps.LENGTH) {
+            return Timestamps.INVALID;
+        }
+        return Timestamps.epochSecond(parser.getStringCharacters(), parser.getStringOffset(), Timestamps.LENGTH);
+    }
+}
@@ -0,0 +1,73 @@
+package com.blackrock.selfinvestment.codec;
+
+import java.time.LocalDateTime;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.BeanProperty;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.ext.javatime.ser.LocalDateTimeSerializer;
+
+/**
+ * LocalDateTime serializer for the properties annotated with
+ * {@code @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")}. Formatted values are cached by epoch second
+ * as SerializedStrings, whose encoded bytes the generator copies as they are, so a repeated
+ * timestamp is neither formatted nor encoded again.
+ *
+ * Properties with another or no pattern get Jackson's serializer directly.
+ */
+public final class TimestampSerializer extends ValueSerializer<LocalDateTime> {
+
+    private static final int CACHE_SIZE = 1 << 12;
+    /** Recently formatted values by epoch second; entries are immutable, so racy updates are harmless. */
+    private static final Formatted[] CACHE = new Formatted[CACHE_SIZE];
+
+    /**
+     * Write a timestamp in the layout, or null.
+     */
+    public static void write(LocalDateTime value, JsonGenerator generator) throws JacksonException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(formatted(value));
+        }
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator generator, SerializationContext context)
+            throws JacksonException {
+        generator.writeString(formatted(value));
+    }
+
+    @Override
+    public ValueSerializer<?> createContextual(SerializationContext context, BeanProperty property) {
+        JsonFormat.Value format = property == null ? null
+                : property.findPropertyFormat(context.getConfig(), LocalDateTime.class);
+        if (format == null || !Helper.DATE_TIME_PATTERN.equals(format.getPattern())) {
+            return LocalDateTimeSerializer.INSTANCE.createContextual(context, property);
+        }
+        return this;
+    }
+
+    private static SerializedString formatted(LocalDateTime value) {
+        long epochSecond = Helper.toEpochSecond(value);
+        int slot = (int) (epochSecond ^ (epochSecond >>> 12)) & (CACHE_SIZE - 1);
+        Formatted cached = CACHE[slot];
+        if (cached != null && cached.epochSecond == epochSecond) {
+            return cached.text;
+        }
+        String text = Timestamps.format(value);
+        Formatted formatted = new Formatted(epochSecond,
+                new SerializedString(text != null ? text : Helper.formatDateTime(value)));
+        CACHE[slot] = formatted;
+        return formatted.text;
+    }
+
+    private record Formatted(long epochSecond, SerializedString text) {
+    }
+}
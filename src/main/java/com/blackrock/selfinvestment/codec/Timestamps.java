@@ -0,0 +1,142 @@
+package com.blackrock.selfinvestment.codec;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import com.blackrock.selfinvestment.helper.Helper;
+
+/**
+ * Decoder for the fixed 19-character {@value Helper#DATE_TIME_PATTERN} layout, straight from a
+ * character or byte buffer to epoch seconds, without a String or a DateTimeFormatter, and the
+ * matching formatter for four-digit years.
+ *
+ * Only strictly valid timestamps are decoded; anything else returns {@link #INVALID}, and callers
+ * hand the text to the formatter they replace so that its resolution and errors stay the same.
+ */
+public final class Timestamps {
+
+    /** Returned for text that is not a strictly valid timestamp in the layout. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    public static final int LENGTH = 19;
+
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int CACHE_SIZE = 1 << 12;
+    /** Recently decoded values by epoch second; entries are immutable, so racy updates are harmless. */
+    private static final LocalDateTime[] CACHE = new LocalDateTime[CACHE_SIZE];
+
+    private Timestamps() {
+    }
+
+    public static long epochSecond(char[] text, int offset, int length) {
+        if (length != LENGTH || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != ' '
+                || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return INVALID;
+        }
+        return epochSecond(digits(text, offset, 4), digits(text, offset + 5, 2), digits(text, offset + 8, 2),
+                digits(text, offset + 11, 2), digits(text, offset + 14, 2), digits(text, offset + 17, 2));
+    }
+
+    public static long epochSecond(byte[] text, int offset, int length) {
+        if (length != LENGTH || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != ' '
+                || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return INVALID;
+        }
+        return epochSecond(digits(text, offset, 4), digits(text, offset + 5, 2), digits(text, offset + 8, 2),
+                digits(text, offset + 11, 2), digits(text, offset + 14, 2), digits(text, offset + 17, 2));
+    }
+
+    /**
+     * LocalDateTime of an epoch second, shared with earlier calls for the same second when still cached.
+     */
+    public static LocalDateTime dateTime(long epochSecond) {
+        int slot = (int) (epochSecond ^ (epochSecond >>> 12)) & (CACHE_SIZE - 1);
+        LocalDateTime cached = CACHE[slot];
+        if (cached != null && cached.toEpochSecond(ZoneOffset.UTC) == epochSecond) {
+            return cached;
+        }
+        LocalDateTime value = Helper.fromEpochSecond(epochSecond);
+        CACHE[slot] = value;
+        return value;
+    }
+
+    /**
+     * Format a timestamp in the layout, as the formatter does for years 1 to 9999.
+     * @return null for other years: "yyyy" is the year of era, and the formatter decides its sign and width.
+     */
+    public static String format(LocalDateTime value) {
+        int year = value.getYear();
+        if (year < 1 || year > 9999) {
+            return null;
+        }
+        char[] text = new char[LENGTH];
+        digits(text, 0, year, 4);
+        text[4] = '-';
+        digits(text, 5, value.getMonthValue(), 2);
+        text[7] = '-';
+        digits(text, 8, value.getDayOfMonth(), 2);
+        text[10] = ' ';
+        digits(text, 11, value.getHour(), 2);
+        text[13] = ':';
+        digits(text, 14, value.getMinute(), 2);
+        text[16] = ':';
+        digits(text, 17, value.getSecond(), 2);
+        return new String(text);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (H. Hinnant's days_from_civil).
+     */
+    public static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long epochSecond(int year, int month, int day, int hour, int minute, int second) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return INVALID;
+        }
+        return epochDay(year, month, day) * 86400 + hour * 3600 + minute * 60 + second;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        boolean leap = (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+        return month == 2 && leap ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+
+    private static int digits(char[] text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void digits(char[] text, int from, int value, int count) {
+        for (int i = from + count - 1; i >= from; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(byte[] text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package com.blackrock.selfinvestment.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+
+import com.blackrock.selfinvestment.codec.ResponseSerializers;
+import com.blackrock.selfinvestment.codec.TimestampDeserializer;
+
+import tools.jackson.databind.JacksonModule;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * CBOR and Smile bodies next to JSON. Spring Boot configures the CBORMapper; the message
+ * converters are registered here so that they use it (and this SmileMapper) instead of mappers
+ * of their own, which the stream reader could not share.
+ *
+ * The timestamp and response modules are beans so that Spring Boot adds them to the JsonMapper and
+ * CBORMapper too: every format decodes DTO dates with {@link TimestampDeserializer} and writes the
+ * response rows with {@link ResponseSerializers}.
+ */
+@Configuration
+public class BodyFormatConfig {
+
+    @Bean
+    public JacksonModule timestampModule() {
+        return TimestampDeserializer.module();
+    }
+
+    @Bean
+    public JacksonModule responseModule() {
+        return ResponseSerializers.module();
+    }
+
+    @Bean
+    public SmileMapper smileMapper(ObjectProvider<JacksonModule> modules) {
+        return SmileMapper.builder().addModules(modules.orderedStream().toList()).build();
+    }
+
+    @Bean
+    public ServerHttpMessageConvertersCustomizer binaryBodyConverters(CBORMapper cborMapper, SmileMapper smileMapper) {
+        return builder -> builder
+                .withCborConverter(new JacksonCborHttpMessageConverter(cborMapper))
+                .withSmileConverter(new JacksonSmileHttpMessageConverter(smileMapper));
+    }
+}
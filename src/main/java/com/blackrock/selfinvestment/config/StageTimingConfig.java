@@ -0,0 +1,31 @@
+package com.blackrock.selfinvestment.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.webmvc.autoconfigure.WebMvcRegistrations;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.blackrock.selfinvestment.instrumentation.PlatformThreadHandlerAdapter;
+
+/**
+ * Replaces Spring MVC's handler adapter with {@link PlatformThreadHandlerAdapter} so that request
+ * stages report CPU time and allocation while requests are served on virtual threads. Off by
+ * default: every timed request then hops to one of a fixed number of platform threads.
+ */
+@Configuration
+public class StageTimingConfig {
+
+    @Bean
+    public WebMvcRegistrations platformThreadHandlers(
+            @Value("${app.request-timing.platform-threads:false}") boolean platformThreads,
+            @Value("${app.request-timing.handler-threads:0}") int handlerThreads) {
+        int threads = handlerThreads > 0 ? handlerThreads : Runtime.getRuntime().availableProcessors();
+        return new WebMvcRegistrations() {
+            @Override
+            public RequestMappingHandlerAdapter getRequestMappingHandlerAdapter() {
+                return platformThreads ? new PlatformThreadHandlerAdapter(threads) : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,207 @@
+package com.blackrock.selfinvestment.controller;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.engine.BatchPartition;
+import com.blackrock.selfinvestment.engine.FilterPipeline;
+import com.blackrock.selfinvestment.engine.KGroupAggregator;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.ingest.RequestLayout;
+import com.blackrock.selfinvestment.ingest.TransactionStreamReader;
+import com.blackrock.selfinvestment.jobs.Job;
+import com.blackrock.selfinvestment.jobs.JobManager;
+import com.blackrock.selfinvestment.jobs.JobResult;
+import com.blackrock.selfinvestment.jobs.JobTask;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
+import com.blackrock.selfinvestment.service.ReturnsService;
+import com.blackrock.selfinvestment.service.TransactionService;
+
+/**
+ * Asynchronous variants of :filter, returns:nps and returns:index for computations that outlive a
+ * gateway timeout. A submission reads the body, queues the job and answers 202 with its location;
+ * the client then polls the job, fetches the result, or cancels it.
+ *
+ * A running job stops at its next progress update once cancelled: every PROGRESS_ROWS rows for
+ * :filter, and for the returns jobs after sorting the transactions and every PROGRESS_WINDOWS k
+ * windows. Sorting the transactions of a returns job is not interrupted.
+ */
+@RestController
+@RequestMapping("/blackrock/challenge/v1")
+public class JobController {
+
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+    /** Rows filtered between progress updates and cancellation checks. */
+    private static final int PROGRESS_ROWS = 65536;
+    /** k windows summed between progress updates and cancellation checks. */
+    private static final int PROGRESS_WINDOWS = 4096;
+    /** Estimated bytes of a filtered row: its batch columns plus its partition index. */
+    private static final long FILTER_ROW_BYTES = 40;
+    /** Estimated bytes of a returns response with its list, and of one saving entry, as in ReturnsResultCache. */
+    private static final long RETURNS_BYTES = 96;
+    private static final long SAVING_BYTES = 200;
+
+    private final JobManager jobs;
+    private final TransactionStreamReader streamReader;
+    private final TransactionService transactionService;
+    private final ReturnsService returnsService;
+
+    JobController(JobManager jobs, TransactionStreamReader streamReader, TransactionService transactionService,
+            ReturnsService returnsService) {
+        this.jobs = jobs;
+        this.streamReader = streamReader;
+        this.transactionService = transactionService;
+        this.returnsService = returnsService;
+    }
+
+    /**
+     * Queue a :filter computation. Rows are filtered in order, PROGRESS_ROWS at a time, with the same
+     * result as the synchronous endpoint.
+     * @param body transactionFilterDTO as for :filter.
+     * @return 202 with the job summary, or 429 if the job queue is full.
+     */
+    @PostMapping(path="jobs/filter",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> submitFilter(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        TransactionBatch batch = new TransactionBatch(INITIAL_BATCH_CAPACITY);
+        transactionFilterDTO header = streamReader.read(body, BodyFormat.of(contentType), RequestLayout.FILTER, batch);
+        return submit("filter", batch.size(), job -> {
+            FilterPipeline pipeline = transactionService.filterPipeline(batch, header);
+            for (int from = 0; from < batch.size(); from += PROGRESS_ROWS) {
+                int to = Math.min(batch.size(), from + PROGRESS_ROWS);
+                for (int row = from; row < to; row++) {
+                    pipeline.accept(row);
+                }
+                job.advance(to - from);
+            }
+            BatchPartition partition = pipeline.getPartition();
+            return new JobResult(new transactionFilterResultDTO(partition.validFilterRows(), partition.invalidRows()),
+                    batch.size() * FILTER_ROW_BYTES);
+        });
+    }
+
+    @PostMapping(path="jobs/returns:nps",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> submitNPS(@RequestBody ReturnsRequestDTO request) {
+        return submit("returns:nps", returnsUnits(request), job -> {
+            KGroupAggregator aggregator = returnsService.aggregator(request);
+            ReturnsResponseDTO response = returnsService.npsReturns(request.getAge(), request.getWage(),
+                    request.getInflation(), aggregator.getTotalAmount(), aggregator.getTotalCeiling(),
+                    aggregate(job, request, aggregator));
+            return new JobResult(response, RETURNS_BYTES + response.getSavingByDates().size() * SAVING_BYTES);
+        });
+    }
+
+    @PostMapping(path="jobs/returns:index",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> submitIndexReturns(@RequestBody ReturnsRequestDTO request) {
+        return submit("returns:index", returnsUnits(request), job -> {
+            KGroupAggregator aggregator = returnsService.aggregator(request);
+            ReturnsResponseIndexDTO response = returnsService.indexReturns(request.getAge(), request.getInflation(),
+                    aggregator.getTotalAmount(), aggregator.getTotalCeiling(), aggregate(job, request, aggregator));
+            return new JobResult(response, RETURNS_BYTES + response.getSavingByDates().size() * SAVING_BYTES);
+        });
+    }
+
+    /**
+     * @return the job summary with its status and progress.
+     */
+    @GetMapping(path="jobs/{id}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        Job job = jobs.get(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job.summary());
+    }
+
+    /**
+     * @return the response the synchronous endpoint would have given, or 409 with the job summary
+     * while the job has not succeeded.
+     */
+    @GetMapping(path="jobs/{id}/result",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> getJobResult(@PathVariable String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Object value = job.value();
+        return value != null ? ResponseEntity.ok(value) : ResponseEntity.status(HttpStatus.CONFLICT).body(job.summary());
+    }
+
+    /**
+     * Cancel a queued or running job; a finished job is left as it is.
+     * @return the job summary.
+     */
+    @PostMapping(path="jobs/{id}:cancel",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> cancelJob(@PathVariable String id) {
+        Job job = jobs.cancel(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job.summary());
+    }
+
+    /**
+     * Cancel the job if needed and discard it with its result.
+     */
+    @DeleteMapping(path="jobs/{id}")
+    public ResponseEntity<?> deleteJob(@PathVariable String id) {
+        return jobs.remove(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /** Units of a returns job: its transactions, counted once they are sorted, and its k windows. */
+    private static long returnsUnits(ReturnsRequestDTO request) {
+        return size(request.getTransactions()) + size(request.getK());
+    }
+
+    private static long size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Sum the request's k windows PROGRESS_WINDOWS at a time, stopping if the job is cancelled.
+     */
+    private static List<kGroupResponseDTO> aggregate(Job job, ReturnsRequestDTO request, KGroupAggregator aggregator) {
+        job.advance(size(request.getTransactions()));
+        List<kGroupResponseDTO> kGroupResponses = new ArrayList<>(request.getK().size());
+        for (int from = 0; from < request.getK().size(); from += PROGRESS_WINDOWS) {
+            int to = Math.min(request.getK().size(), from + PROGRESS_WINDOWS);
+            kGroupResponses.addAll(aggregator.aggregate(request.getK().subList(from, to)));
+            job.advance(to - from);
+        }
+        return kGroupResponses;
+    }
+
+    private ResponseEntity<?> submit(String type, long total, JobTask task) {
+        Job job = jobs.submit(type, total, task);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Job queue is full, retry later");
+        }
+        return ResponseEntity.accepted().location(URI.create("/blackrock/challenge/v1/jobs/" + job.getId()))
+                .body(job.summary());
+    }
+}
@@ -0,0 +1,131 @@
+package com.blackrock.selfinvestment.controller;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.ingest.RequestLayout;
+import com.blackrock.selfinvestment.ingest.TransactionStreamReader;
+import com.blackrock.selfinvestment.ledger.LedgerSession;
+import com.blackrock.selfinvestment.ledger.LedgerSessionStore;
+import com.blackrock.selfinvestment.models.LedgerQueryDTO;
+import com.blackrock.selfinvestment.models.LedgerRequestDTO;
+import com.blackrock.selfinvestment.service.ReturnsService;
+
+/**
+ * Controller for stateful ledgers: a client creates a ledger with its returns parameters once,
+ * appends transaction batches as they happen and queries NPS or index returns for any k windows,
+ * without uploading the history again.
+ */
+@RestController
+@RequestMapping("/blackrock/challenge/v1")
+public class LedgerController {
+
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+
+    private final LedgerSessionStore sessions;
+    private final TransactionStreamReader streamReader;
+    private final ReturnsService returnsService;
+
+    LedgerController(LedgerSessionStore sessions, TransactionStreamReader streamReader, ReturnsService returnsService) {
+        this.sessions = sessions;
+        this.streamReader = streamReader;
+        this.returnsService = returnsService;
+    }
+
+    /**
+     * Create an empty ledger.
+     * @param request LedgerRequestDTO with age, wage, inflation and the q and p moments.
+     * @return 201 with the ledger summary and its location, or 429 if too many ledgers are open.
+     */
+    @PostMapping(path="ledgers",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> createLedger(@RequestBody LedgerRequestDTO request) {
+        LedgerSession session = sessions.create(request);
+        if (session == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many open ledgers, retry later");
+        }
+        return ResponseEntity.created(URI.create("/blackrock/challenge/v1/ledgers/" + session.getId()))
+                .body(session.summary());
+    }
+
+    @GetMapping(path="ledgers/{id}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> getLedger(@PathVariable String id) {
+        LedgerSession session = sessions.get(id);
+        return session == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(session.summary());
+    }
+
+    /**
+     * Append a batch of transactions, streamed into a columnar batch as in transactions:parse.
+     * @param body JSON array of transactionsDTO.
+     * @return the ledger summary after the append.
+     */
+    @PostMapping(path="ledgers/{id}/transactions",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> appendTransactions(@PathVariable String id, InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        LedgerSession session = sessions.get(id);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        TransactionBatch batch = new TransactionBatch(INITIAL_BATCH_CAPACITY);
+        streamReader.read(body, BodyFormat.of(contentType), RequestLayout.TRANSACTIONS, batch);
+        batch.roundUp();
+        // A persistent ledger evicted from memory meanwhile is reopened from disk
+        while (session.append(batch) < 0) {
+            session = sessions.get(id);
+            if (session == null) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        return ResponseEntity.ok(session.summary());
+    }
+
+    @PostMapping(path="ledgers/{id}/returns:nps",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> calculateNPS(@PathVariable String id, @RequestBody LedgerQueryDTO query) {
+        LedgerSession session = sessions.get(id);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LedgerSession.Snapshot snapshot = session.snapshot(query.getK());
+        return ResponseEntity.ok(returnsService.npsReturns(session.getAge(), session.getWage(), session.getInflation(),
+                snapshot.totalAmount(), snapshot.totalCeiling(), snapshot.kGroups()));
+    }
+
+    @PostMapping(path="ledgers/{id}/returns:index",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> calculateIndexReturns(@PathVariable String id, @RequestBody LedgerQueryDTO query) {
+        LedgerSession session = sessions.get(id);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        LedgerSession.Snapshot snapshot = session.snapshot(query.getK());
+        return ResponseEntity.ok(returnsService.indexReturns(session.getAge(), session.getInflation(),
+                snapshot.totalAmount(), snapshot.totalCeiling(), snapshot.kGroups()));
+    }
+
+    @DeleteMapping(path="ledgers/{id}")
+    public ResponseEntity<?> deleteLedger(@PathVariable String id) {
+        return sessions.remove(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -1,10 +1,14 @@
 package com.blackrock.selfinvestment.controller;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.instrumentation.RequestTimingFilter;
 import com.blackrock.selfinvestment.models.PerformanceResponseDTO;
 import com.blackrock.selfinvestment.service.PerformanceService;
 
@@ -12,15 +16,23 @@ import com.blackrock.selfinvestment.service.PerformanceService;
 @RequestMapping("/blackrock/challenge/v1")
 public class PerformaceController {
 
-    private PerformanceService performanceService = new PerformanceService();
+    private final PerformanceService performanceService;
 
     PerformaceController(PerformanceService performanceService) {
         this.performanceService = performanceService;
     }
 
-    @GetMapping(path="/performance", produces = "application/json")
-    public ResponseEntity<?> getPerformance() {
-        PerformanceResponseDTO performanceReport = performanceService.generateReport(System.currentTimeMillis());
+    /**
+     * Report the time this request has taken so far (measured from the start of the filter chain),
+     * memory and thread count, plus rolling latency percentiles per endpoint, GC, heap pool,
+     * allocation rate and Tomcat pool figures.
+     */
+    @GetMapping(path="/performance",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> getPerformance(
+            @RequestAttribute(name = RequestTimingFilter.REQUEST_START_ATTRIBUTE, required = false) Long requestStart) {
+        long startTime = requestStart != null ? requestStart : System.currentTimeMillis();
+        PerformanceResponseDTO performanceReport = performanceService.generateReport(startTime);
         return ResponseEntity.ok(performanceReport);
     }
 }
@@ -2,19 +2,43 @@ package com.blackrock.selfinvestment.controller;
 
 import org.springframework.web.bind.annotation.RestController;
 
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.codec.NdjsonWriter;
+import com.blackrock.selfinvestment.engine.BatchPartition;
+import com.blackrock.selfinvestment.engine.FilterPipeline;
+import com.blackrock.selfinvestment.engine.PartitionPipeline;
+import com.blackrock.selfinvestment.engine.RowPipeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.engine.ValidationPipeline;
+import com.blackrock.selfinvestment.ingest.CsvTransactionReader;
+import com.blackrock.selfinvestment.ingest.ImportMode;
+import com.blackrock.selfinvestment.ingest.RequestLayout;
+import com.blackrock.selfinvestment.ingest.TransactionStreamReader;
+import com.blackrock.selfinvestment.models.ImportSummaryDTO;
 import com.blackrock.selfinvestment.models.transactionFilterDTO;
-import com.blackrock.selfinvestment.models.transactionResponseDTO;
-import com.blackrock.selfinvestment.models.transactionValidatorDTO;
-import com.blackrock.selfinvestment.models.transactionsDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
 import com.blackrock.selfinvestment.service.TransactionService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Controller class for handling transaction-related endpoints.
@@ -23,42 +47,269 @@ import org.springframework.web.bind.annotation.RequestMapping;
 @RequestMapping("/blackrock/challenge/v1")
 public class SelfInvestmentController {
 
-    private TransactionService transactionService = new TransactionService();     
+    private static final int INITIAL_BATCH_CAPACITY = 1024;
+    private static final int CHUNK_ROWS = 8192;
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final TransactionService transactionService;     
+    private final TransactionStreamReader streamReader;
+    private final JsonMapper mapper;
 
-    SelfInvestmentController(TransactionService transactionService) {
+    SelfInvestmentController(TransactionService transactionService, TransactionStreamReader streamReader,
+            JsonMapper mapper) {
         this.transactionService = transactionService;
+        this.streamReader = streamReader;
+        this.mapper = mapper;
     }
 
     /**
      * Parse the list of transactions and return the response.
-     * @param transactions List of transactions to be parsed.
+     * The body is streamed into a columnar batch, which is then parsed (in parallel when large).
+     * @param body JSON array of transactions to be parsed.
      * @return List of transactionResponseDTO containing the parsed transactions.
      */
-    @PostMapping(path="transactions:parse", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<?> parseTransactions(@RequestBody List<transactionsDTO> transactions) {
-        List<transactionResponseDTO> responseList = transactionService.parseTransactions(transactions);
-        return ResponseEntity.ok(responseList);
+    @PostMapping(path="transactions:parse",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> parseTransactions(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        TransactionBatch batch = new TransactionBatch(INITIAL_BATCH_CAPACITY);
+        streamReader.read(body, BodyFormat.of(contentType), RequestLayout.TRANSACTIONS, batch);
+        return ResponseEntity.ok(transactionService.parse(batch).asResponseList());
     }
 
     /**
      * Validate the list of transactions and return the response.
-     * @param transactions transactionValidatorDTO containing the transactions to be validated and wage information.
+     * The body is streamed into a columnar batch, which is then validated (in parallel when large).
+     * @param body JSON transactionValidatorDTO containing the transactions to be validated and wage information.
      * @return Map containing the lists of valid and invalid transactions along with validation messages.
      */
-    @PostMapping(path="transactions:validator", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<?> validateTransactions(@RequestBody  transactionValidatorDTO transactions) {
-        Map<String, Object> response = transactionService.validateTransactions(transactions);
+    @PostMapping(path="transactions:validator",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> validateTransactions(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        TransactionBatch batch = new TransactionBatch(INITIAL_BATCH_CAPACITY);
+        transactionFilterDTO header = streamReader.read(body, BodyFormat.of(contentType), RequestLayout.VALIDATOR, batch);
+        Map<String, Object> response = transactionService.toValidatorResponse(
+                transactionService.validate(batch, header.getWage()));
         return ResponseEntity.ok(response);
     }
 
     /**
      * Filter and validate the list of transactions based on the provided criteria.
-     * @param transactions transactionFilterDTO containing the transactions to be filtered and validated along with filter criteria and wage information.
-     * @return Map containing the lists of valid and invalid transactions after filtering along with validation messages.
+     * The body is streamed into a columnar batch, which is then filtered (in parallel when large).
+     * @param body JSON transactionFilterDTO containing the transactions to be filtered and validated along with filter criteria and wage information.
+     * @return transactionFilterResultDTO containing the lists of valid and invalid transactions after filtering along with validation messages.
      */
-    @PostMapping(path=":filter", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<?> filterTransactions(@RequestBody transactionFilterDTO transactions) {
-        Map<String, Object> response = transactionService.filterAndValidate(transactions);
+    @PostMapping(path=":filter",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> filterTransactions(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        TransactionBatch batch = new TransactionBatch(INITIAL_BATCH_CAPACITY);
+        transactionFilterDTO header = streamReader.read(body, BodyFormat.of(contentType), RequestLayout.FILTER, batch);
+        BatchPartition partition = transactionService.filterAndValidate(batch, header);
+        transactionFilterResultDTO response = new transactionFilterResultDTO(
+                partition.validFilterRows(), partition.invalidRows());
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * NDJSON variant of transactions:parse, selected with Accept: application/x-ndjson.
+     * Each transaction is written as its own line as soon as it has been parsed, and the batch is
+     * cleared after every chunk of rows as in transactions:import.
+     * @param body JSON array of transactions to be parsed.
+     * @return one transactionResponseDTO per line.
+     */
+    @PostMapping(path="transactions:parse",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> parseTransactionsNdjson(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        return ndjson(out -> streamReader.read(body, BodyFormat.of(contentType), RequestLayout.TRANSACTIONS,
+                new TransactionBatch(INITIAL_BATCH_CAPACITY), (header, rows) -> {
+                    RowPipeline parse = transactionService.parsePipeline(rows);
+                    return chunked(rows, null, row -> {
+                        parse.accept(row);
+                        out.write(rows.responseDTO(row));
+                    });
+                }));
+    }
+
+    /**
+     * NDJSON variant of transactions:validator, selected with Accept: application/x-ndjson.
+     * Each transaction is written as a {"valid": ...} or {"invalid": ...} line as soon as it has been validated.
+     * The batch is cleared after every chunk of rows; only the duplicate check's keys are kept for the whole body.
+     * @param body JSON transactionValidatorDTO containing the transactions to be validated and wage information.
+     * @return one validated transaction per line, in input order.
+     */
+    @PostMapping(path="transactions:validator",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> validateTransactionsNdjson(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        return ndjson(out -> streamReader.read(body, BodyFormat.of(contentType), RequestLayout.VALIDATOR,
+                new TransactionBatch(INITIAL_BATCH_CAPACITY), (header, rows) -> {
+                    ValidationPipeline pipeline = transactionService.validationPipeline(rows, header.getWage());
+                    BatchPartition partition = pipeline.getPartition();
+                    return chunked(rows, partition, out.writing(pipeline, partition, partition::validDTO));
+                }));
+    }
+
+    /**
+     * NDJSON variant of :filter, selected with Accept: application/x-ndjson.
+     * Each transaction is written as a {"valid": ...} or {"invalid": ...} line as soon as it has been filtered.
+     * The batch is cleared after every chunk of rows; only the duplicate check's keys are kept for the whole body.
+     * @param body JSON transactionFilterDTO containing the transactions to be filtered and validated along with filter criteria and wage information.
+     * @return one filtered transaction per line, in input order; rows dropped by a zero q are not written.
+     */
+    @PostMapping(path=":filter",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> filterTransactionsNdjson(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType) {
+        return ndjson(out -> streamReader.read(body, BodyFormat.of(contentType), RequestLayout.FILTER,
+                new TransactionBatch(INITIAL_BATCH_CAPACITY), (header, rows) -> {
+                    FilterPipeline pipeline = transactionService.filterPipeline(rows, header);
+                    BatchPartition partition = pipeline.getPartition();
+                    return chunked(rows, partition, out.writing(pipeline, partition, partition::validFilterDTO));
+                }));
+    }
+
+    /**
+     * Bulk import of a CSV transaction file sent as the raw body.
+     * Rows are tokenized straight from the request stream and go through the rules of the chosen mode a
+     * chunk at a time; each result is written as its own line, as in the NDJSON variants above, followed
+     * by a {"summary": ...} line. The file is never held in memory.
+     * @param body CSV file with date and amount columns, optionally ceiling and remanent.
+     * @param mode parse (default), validator or filter; filter applies the wage but no q, p or k.
+     * @param wage monthly wage, required by validator and filter.
+     * @return one result per line, in file order, then the ImportSummaryDTO.
+     */
+    @PostMapping(path="transactions:import", consumes = TEXT_CSV_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importTransactions(InputStream body,
+            @RequestParam(name = "mode", defaultValue = "parse") String mode,
+            @RequestParam(name = "wage", required = false) Double wage) {
+        ImportMode importMode = ImportMode.of(mode);
+        if (importMode == null || (importMode != ImportMode.PARSE && wage == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        transactionFilterDTO rules = new transactionFilterDTO(List.of(), List.of(), List.of(),
+                wage == null ? 0 : wage, null);
+        return ndjson(out -> importCsv(new CsvTransactionReader(body), importMode, rules, out));
+    }
+
+    /**
+     * Multipart variant of transactions:import, for uploads from forms and curl -F.
+     * The file part is spooled to disk by the servlet container and read back as a stream.
+     * @param file CSV file with date and amount columns, optionally ceiling and remanent.
+     * @param rules JSON transactionFilterDTO without transactions (wage, q, p, k), required by validator and filter.
+     * @param mode parse (default), validator or filter.
+     * @return one result per line, in file order, then the ImportSummaryDTO.
+     */
+    @PostMapping(path="transactions:import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importTransactionsMultipart(
+            @RequestParam(name = "file", required = false) MultipartFile file,
+            @RequestParam(name = "rules", required = false) String rules,
+            @RequestParam(name = "mode", defaultValue = "parse") String mode) {
+        ImportMode importMode = ImportMode.of(mode);
+        if (file == null || importMode == null || (importMode != ImportMode.PARSE && rules == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        transactionFilterDTO header = new transactionFilterDTO(List.of(), List.of(), List.of(), 0, null);
+        if (rules != null) {
+            try {
+                header = mapper.readValue(rules, transactionFilterDTO.class);
+            } catch (JacksonException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            header.setQ(header.getQ() == null ? List.of() : header.getQ());
+            header.setP(header.getP() == null ? List.of() : header.getP());
+            header.setK(header.getK() == null ? List.of() : header.getK());
+        }
+        transactionFilterDTO importRules = header;
+        return ndjson(out -> {
+            try (InputStream in = file.getInputStream()) {
+                importCsv(new CsvTransactionReader(in), importMode, importRules, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Run a CSV file through the pipeline of the mode, one chunk of rows at a time. The batch and partition
+     * are cleared after every chunk, so memory is bounded by the chunk plus the duplicate check's keys.
+     * Rows without ceiling and remanent columns are rounded up before validation.
+     */
+    private void importCsv(CsvTransactionReader reader, ImportMode mode, transactionFilterDTO rules, NdjsonWriter out) {
+        TransactionBatch batch = new TransactionBatch(CHUNK_ROWS);
+        PartitionPipeline pipeline = switch (mode) {
+            case PARSE -> null;
+            case VALIDATOR -> transactionService.validationPipeline(batch, rules.getWage());
+            case FILTER -> transactionService.filterPipeline(batch, rules);
+        };
+        BatchPartition partition = pipeline == null ? null : pipeline.getPartition();
+        RowPipeline write;
+        if (pipeline == null) {
+            write = row -> out.write(batch.responseDTO(row));
+        } else {
+            IntFunction<?> validRow = mode == ImportMode.FILTER ? partition::validFilterDTO : partition::validDTO;
+            write = out.writing(pipeline, partition, validRow);
+        }
+
+        long rows = 0;
+        long valid = 0;
+        long invalid = 0;
+        double totalAmount = 0;
+        double totalCeiling = 0;
+        double totalRemanent = 0;
+        int count;
+        while ((count = reader.read(batch, CHUNK_ROWS)) > 0) {
+            if (mode == ImportMode.PARSE || (mode == ImportMode.VALIDATOR && !reader.hasCeiling())) {
+                batch.roundUp();
+            }
+            for (int row = 0; row < count; row++) {
+                write.accept(row);
+            }
+            rows += count;
+            int validRows = partition == null ? count : partition.validCount();
+            for (int i = 0; i < validRows; i++) {
+                int row = partition == null ? i : partition.validRow(i);
+                totalAmount += batch.amount(row);
+                totalCeiling += batch.ceiling(row);
+                totalRemanent += batch.remanent(row);
+            }
+            valid += validRows;
+            if (partition != null) {
+                invalid += partition.invalidCount();
+                partition.clear();
+            }
+            batch.clear();
+        }
+        out.write("summary", new ImportSummaryDTO(rows, valid, invalid, totalAmount, totalCeiling, totalRemanent));
+    }
+
+    /**
+     * Clear the batch and partition once a chunk of rows has been written, so a streamed body takes
+     * memory for one chunk. Only the batch's last row triggers it: rows the reader buffered until the
+     * header was complete are replayed in one go and all written first.
+     */
+    private static RowPipeline chunked(TransactionBatch batch, BatchPartition partition, RowPipeline write) {
+        return row -> {
+            write.accept(row);
+            if (row == batch.size() - 1 && batch.size() >= CHUNK_ROWS) {
+                if (partition != null) {
+                    partition.clear();
+                }
+                batch.clear();
+            }
+        };
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Consumer<NdjsonWriter> handler) {
+        return NdjsonWriter.response(mapper, handler);
+    }
 }
@@ -3,38 +3,142 @@ package com.blackrock.selfinvestment.controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.blackrock.selfinvestment.cache.ReturnsCacheKey;
+import com.blackrock.selfinvestment.cache.ReturnsResultCache;
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.codec.NdjsonWriter;
+import com.blackrock.selfinvestment.ingest.TransactionStreamReader;
 import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
 import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
 import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
+import com.blackrock.selfinvestment.models.ScenarioDTO;
+import com.blackrock.selfinvestment.models.ScenarioRequestDTO;
+import com.blackrock.selfinvestment.service.ReturnsBatchService;
 import com.blackrock.selfinvestment.service.ReturnsService;
 
+import java.io.InputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.json.JsonMapper;
 
 
 /**
  * Controller for handling requests related to self-investment returns, including NPS calculations.
+ * Results are cached by request content and tagged with an ETag: a client that sends the tag back in
+ * If-None-Match for the same request gets a 304 with no body, without recomputing or serializing.
  */
 @RestController
 @RequestMapping("/blackrock/challenge/v1")
 public class SelfInvestmentReturnController {
+
+    /** Largest scenario grid accepted in one request. */
+    private static final int MAX_SCENARIOS = 10_000;
     
-    private ReturnsService returnsService = new ReturnsService();
+    private final ReturnsService returnsService;
+    private final ReturnsResultCache resultCache;
+    private final ReturnsBatchService batchService;
+    private final TransactionStreamReader streamReader;
+    private final JsonMapper mapper;
 
-    SelfInvestmentReturnController(ReturnsService returnsService) {
+    SelfInvestmentReturnController(ReturnsService returnsService, ReturnsResultCache resultCache,
+            ReturnsBatchService batchService, TransactionStreamReader streamReader, JsonMapper mapper) {
         this.returnsService = returnsService;
+        this.resultCache = resultCache;
+        this.batchService = batchService;
+        this.streamReader = streamReader;
+        this.mapper = mapper;
+    }
+
+    @PostMapping(path="returns:nps",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> calculateNPS(@RequestBody ReturnsRequestDTO request,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReturnsCacheKey key = ReturnsCacheKey.of("nps", request);
+        if (key.matches(ifNoneMatch)) {
+            return notModified(key);
+        }
+        ReturnsResponseDTO response = resultCache.nps(key, () -> returnsService.calculateNPS(request));
+        return ResponseEntity.ok().eTag(key.etag()).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    @PostMapping(path="returns:index",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> calculateIndexReturns(@RequestBody ReturnsRequestDTO request,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ReturnsCacheKey key = ReturnsCacheKey.of("index", request);
+        if (key.matches(ifNoneMatch)) {
+            return notModified(key);
+        }
+        ReturnsResponseIndexDTO response = resultCache.index(key, () -> returnsService.calculateIndexReturns(request));
+        return ResponseEntity.ok().eTag(key.etag()).varyBy(HttpHeaders.ACCEPT).body(response);
+    }
+
+    /**
+     * Evaluate a grid of (age, inflation, wage, product) scenarios against one transaction set,
+     * aggregating the transactions once instead of once per scenario.
+     * @param request ScenarioRequestDTO with q, p, k, transactions and scenarios.
+     * @return ScenarioGridResponseDTO with one row per scenario and one column per k window,
+     * or 400 for an unknown product, an age outside [0, 150] or a grid larger than {@value #MAX_SCENARIOS}.
+     */
+    @PostMapping(path="returns:scenarios",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE})
+    public ResponseEntity<?> calculateScenarios(@RequestBody ScenarioRequestDTO request) {
+        if (request.getScenarios() != null) {
+            if (request.getScenarios().size() > MAX_SCENARIOS) {
+                return ResponseEntity.badRequest().build();
+            }
+            for (ScenarioDTO scenario : request.getScenarios()) {
+                if (!ReturnsService.NPS.equals(scenario.getProduct())
+                        && !ReturnsService.INDEX.equals(scenario.getProduct())
+                        || !ReturnsService.isScenarioAge(scenario.getAge())) {
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+        }
+        return ResponseEntity.ok(returnsService.scenarioGrid(request));
     }
 
-    @PostMapping(path="returns:nps", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<?> calculateNPS(@RequestBody ReturnsRequestDTO request) {
-        ReturnsResponseDTO response = returnsService.calculateNPS(request);
-        return ResponseEntity.ok(response);
+    /**
+     * Evaluate many independent returns requests, e.g. one per customer, in a single call.
+     * The array is read item by item and evaluated on the batch worker pool; each result is written as
+     * its own line as soon as it is ready, so lines arrive in completion order and carry the item's index.
+     * An item that fails gets an {"index": i, "error": ...} line and does not affect the others.
+     * Results are not cached: every item is a different customer.
+     * @param body JSON array of ReturnsRequestDTO.
+     * @param product nps (default) or index.
+     * @return one ReturnsBatchResultDTO per line, or 400 for an unknown product.
+     */
+    @PostMapping(path="returns:batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BodyFormat.SMILE_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> calculateBatch(InputStream body,
+            @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestParam(name = "product", defaultValue = ReturnsService.NPS) String product) {
+        if (!ReturnsService.NPS.equals(product) && !ReturnsService.INDEX.equals(product)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return NdjsonWriter.response(mapper, out -> {
+            try (JsonParser parser = streamReader.parser(body, BodyFormat.of(contentType))) {
+                batchService.evaluate(parser, product, out::write);
+            }
+        });
     }
 
-    @PostMapping(path="returns:index", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<?> calculateIndexReturns(@RequestBody ReturnsRequestDTO request) {
-        ReturnsResponseIndexDTO response = returnsService.calculateIndexReturns(request);
-        return ResponseEntity.ok(response);
+    private ResponseEntity<?> notModified(ReturnsCacheKey key) {
+        resultCache.recordNotModified();
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(key.etag()).varyBy(HttpHeaders.ACCEPT).build();
     }
 }
\ No newline at end of file
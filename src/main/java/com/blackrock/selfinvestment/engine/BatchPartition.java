@@ -0,0 +1,128 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.blackrock.selfinvestment.models.invalidTransactionDTO;
+import com.blackrock.selfinvestment.models.validTransactionDTO;
+import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
+
+/**
+ * Split of a {@link TransactionBatch} into valid and invalid rows, kept as row indices in input order.
+ * The response lists are lazy views over the batch columns.
+ */
+public final class BatchPartition {
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final TransactionBatch batch;
+    private int[] valid;
+    private int validCount;
+    private int[] invalid;
+    private byte[] reasons;
+    private int invalidCount;
+    private boolean[] inKPeriod;
+
+    public BatchPartition(TransactionBatch batch) {
+        this.batch = batch;
+        this.valid = new int[Math.max(batch.size(), 1)];
+        this.invalid = new int[16];
+        this.reasons = new byte[16];
+    }
+
+    public void addValid(int row) {
+        if (validCount == valid.length) {
+            valid = Arrays.copyOf(valid, validCount << 1);
+        }
+        valid[validCount++] = row;
+    }
+
+    public void addInvalid(int row, RejectReason reason) {
+        if (invalidCount == invalid.length) {
+            invalid = Arrays.copyOf(invalid, invalidCount << 1);
+            reasons = Arrays.copyOf(reasons, invalidCount << 1);
+        }
+        invalid[invalidCount] = row;
+        reasons[invalidCount++] = (byte) reason.ordinal();
+    }
+
+    /**
+     * Mark whether a row falls inside a k window; only read by {@link #validFilterRows()}.
+     */
+    public void setInKPeriod(int row, boolean value) {
+        if (inKPeriod == null) {
+            inKPeriod = new boolean[Math.max(batch.size(), row + 1)];
+        } else if (row >= inKPeriod.length) {
+            inKPeriod = Arrays.copyOf(inKPeriod, Math.max(inKPeriod.length << 1, row + 1));
+        }
+        inKPeriod[row] = value;
+    }
+
+    /**
+     * Forget every row; used together with {@link TransactionBatch#clear()}.
+     */
+    public void clear() {
+        validCount = 0;
+        invalidCount = 0;
+        if (inKPeriod != null) {
+            Arrays.fill(inKPeriod, false);
+        }
+    }
+
+    public TransactionBatch getBatch() {
+        return batch;
+    }
+
+    public int validCount() {
+        return validCount;
+    }
+
+    public int invalidCount() {
+        return invalidCount;
+    }
+
+    public int validRow(int index) {
+        return valid[index];
+    }
+
+    public int invalidRow(int index) {
+        return invalid[index];
+    }
+
+    public RejectReason reason(int index) {
+        return REASONS[reasons[index]];
+    }
+
+    public boolean inKPeriod(int row) {
+        return inKPeriod != null && row < inKPeriod.length && inKPeriod[row];
+    }
+
+    public validTransactionDTO validDTO(int index) {
+        int row = valid[index];
+        return new validTransactionDTO(batch.date(row), batch.amount(row), batch.ceiling(row), batch.remanent(row));
+    }
+
+    public validTransactionFilterDTO validFilterDTO(int index) {
+        int row = valid[index];
+        return new validTransactionFilterDTO(batch.date(row), batch.amount(row), batch.ceiling(row),
+                batch.remanent(row), inKPeriod(row));
+    }
+
+    public invalidTransactionDTO invalidDTO(int index) {
+        int row = invalid[index];
+        return new invalidTransactionDTO(batch.date(row), batch.amount(row), batch.ceiling(row),
+                batch.remanent(row), reason(index).getMessage());
+    }
+
+    public List<validTransactionDTO> validRows() {
+        return TransactionBatch.rows(validCount, this::validDTO);
+    }
+
+    public List<validTransactionFilterDTO> validFilterRows() {
+        return TransactionBatch.rows(validCount, this::validFilterDTO);
+    }
+
+    public List<invalidTransactionDTO> invalidRows() {
+        return TransactionBatch.rows(invalidCount, this::invalidDTO);
+    }
+}
@@ -0,0 +1,67 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * Column-at-a-time arithmetic over the primitive arrays of a {@link TransactionBatch}: the round-up
+ * of amounts to the next multiple of 100 and the [0, wage] validity check.
+ *
+ * {@link #get()} is the SIMD implementation on {@code jdk.incubator.vector} when the JVM was started
+ * with {@code --add-modules jdk.incubator.vector}, and the scalar one otherwise or when the system
+ * property {@code app.simd.enabled} is false. Both give bit-identical results.
+ */
+public abstract class ColumnKernel {
+
+    public static final String SIMD_PROPERTY = "app.simd.enabled";
+
+    private static final ColumnKernel VECTOR = loadVector();
+    private static final ColumnKernel DEFAULT =
+            VECTOR != null && Boolean.parseBoolean(System.getProperty(SIMD_PROPERTY, "true")) ? VECTOR : scalar();
+
+    /**
+     * @return the kernel used by the engine.
+     */
+    public static ColumnKernel get() {
+        return DEFAULT;
+    }
+
+    public static ColumnKernel scalar() {
+        return ScalarColumnKernel.INSTANCE;
+    }
+
+    /**
+     * @return the SIMD kernel, or null if the incubator module is not available.
+     */
+    public static ColumnKernel vector() {
+        return VECTOR;
+    }
+
+    /**
+     * For rows [from, to): ceiling = Math.ceil(amount / 100) * 100 and remanent = ceiling - amount.
+     */
+    public abstract void roundUp(double[] amount, double[] ceiling, double[] remanent, int from, int to);
+
+    /**
+     * Write the indices of the rows in [from, to) whose amount is neither negative nor above max,
+     * in ascending order.
+     * @param rows receives the indices; needs room for to - from entries.
+     * @return number of indices written.
+     */
+    public abstract int selectValid(double[] amount, int from, int to, double max, int[] rows);
+
+    public abstract String name();
+
+    /**
+     * The vector kernel's class links against the incubator module, so it is only loaded
+     * reflectively once the module is known to be present.
+     */
+    private static ColumnKernel loadVector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (ColumnKernel) Class.forName(ColumnKernel.class.getPackageName() + ".VectorColumnKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.function.Supplier;
+
+/**
+ * Fused :filter pipeline applied row by row: q/p rules, validation, duplicate check and k flag.
+ * Ceiling and remanent columns of the batch are overwritten with the values after the q and p rules.
+ * Rows dropped by a q with a zero fixed amount end up in neither list.
+ */
+public final class FilterPipeline extends PartitionPipeline {
+
+    public FilterPipeline(TransactionBatch batch, MomentTimeline timeline, KWindowSet kWindows, double wage) {
+        super(batch, rules(batch, timeline, kWindows, wage));
+    }
+
+    /**
+     * Classifiers applying the q, p, wage and k rules; each keeps its own timeline cursor.
+     */
+    public static Supplier<RowClassifier> rules(TransactionBatch batch, MomentTimeline timeline, KWindowSet kWindows,
+            double wage) {
+        return () -> new FilterRules(batch, timeline, kWindows, wage);
+    }
+
+    private static final class FilterRules implements RowClassifier {
+        private final TransactionBatch batch;
+        private final MomentTimeline timeline;
+        private final MomentTimeline.Cursor cursor;
+        private final KWindowSet kWindows;
+        private final double wage;
+
+        FilterRules(TransactionBatch batch, MomentTimeline timeline, KWindowSet kWindows, double wage) {
+            this.batch = batch;
+            this.timeline = timeline;
+            this.cursor = timeline.cursor();
+            this.kWindows = kWindows;
+            this.wage = wage;
+        }
+
+        @Override
+        public byte classify(int row) {
+            double originalAmount = batch.amount(row);
+
+            if (originalAmount <= 0) {
+                batch.setCeiling(row, 0);
+                batch.setRemanent(row, 0);
+                return (byte) RejectReason.NEGATIVE_OR_ZERO.ordinal();
+            }
+
+            double ceiling = Math.ceil(originalAmount / 100) * 100;
+            double remanent = ceiling - originalAmount;
+
+            // ---------------- Q RULE ----------------
+            long epochSecond = batch.epochSecond(row);
+            int segment = cursor.seek(epochSecond);
+            int selectedQ = timeline.latestQ(segment);
+
+            if (selectedQ != MomentTimeline.NO_Q) {
+
+                if (timeline.fixed(selectedQ) == 0) {
+                    return DROPPED;
+                }
+
+                remanent = timeline.fixed(selectedQ);
+                ceiling = originalAmount + remanent;
+            }
+
+            // ---------------- P RULE ----------------
+            remanent += timeline.extra(segment);
+
+            batch.setCeiling(row, ceiling);
+            batch.setRemanent(row, remanent);
+
+            // ---------------- VALIDATION ----------------
+            if (originalAmount > wage) {
+                return (byte) RejectReason.EXCEEDS_WAGE.ordinal();
+            }
+            // ---------------- K RULE ----------------
+            return kWindows.contains(epochSecond) ? CANDIDATE_IN_K : CANDIDATE;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * Exact sums of doubles as 128-bit fixed-point numbers with 64 fraction bits, kept in two longs: the
+ * signed high word (integer part) and the unsigned low word (fraction). Adding and subtracting them
+ * is exact, so a window sum taken as the difference of two prefix sums is the exact sum of the
+ * window's values rounded once, whatever the order the values were added in.
+ *
+ * Every remanent is a multiple of 2^-64; q fixed and p extra amounts finer than that are rounded to
+ * the nearest multiple when converted. Partial sums cannot overflow while the magnitudes of all the
+ * values add up to less than {@link #LIMIT}; callers keep double sums beyond it.
+ */
+final class FixedPoint {
+
+    /** Bound on the summed magnitudes of the values, well inside the 2^63 range of the high word. */
+    static final double LIMIT = 0x1p62;
+
+    private static final long MANTISSA = (1L << 52) - 1;
+    private static final long IMPLICIT_BIT = 1L << 52;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Whether values whose magnitudes add up to the given total are summed exactly (false for NaN and infinity).
+     */
+    static boolean fits(double magnitude) {
+        return magnitude < LIMIT;
+    }
+
+    /** High word of v, which must be finite with |v| below {@link #LIMIT}. */
+    static long high(double v) {
+        double magnitude = Math.abs(v);
+        long high = magnitudeHigh(magnitude);
+        return v < 0 ? ~high + (magnitudeLow(magnitude) == 0 ? 1 : 0) : high;
+    }
+
+    /** Low word of v, which must be finite with |v| below {@link #LIMIT}. */
+    static long low(double v) {
+        long low = magnitudeLow(Math.abs(v));
+        return v < 0 ? -low : low;
+    }
+
+    /** Carry out of the low words of an addition a + b. */
+    static long carry(long lowA, long lowB) {
+        return Long.compareUnsigned(lowA + lowB, lowA) < 0 ? 1 : 0;
+    }
+
+    /** Borrow from the high words of a subtraction a - b. */
+    static long borrow(long lowA, long lowB) {
+        return Long.compareUnsigned(lowA, lowB) < 0 ? 1 : 0;
+    }
+
+    /**
+     * The fixed-point number rounded to the nearest double, ties to even.
+     */
+    static double toDouble(long high, long low) {
+        if (high < 0) {
+            return -magnitude(~high + (low == 0 ? 1 : 0), -low);
+        }
+        return magnitude(high, low);
+    }
+
+    private static double magnitude(long high, long low) {
+        if (high == 0) {
+            // unsigned long to double, keeping the lowest bit as a sticky bit
+            double fraction = low >= 0 ? low : (double) ((low >>> 1) | (low & 1)) * 2;
+            return fraction * 0x1p-64;
+        }
+        // Top 63 bits of the 128, the bits shifted out folded into the lowest one so rounding stays exact
+        int bits = 64 - Long.numberOfLeadingZeros(high);
+        long top = high << (63 - bits);
+        boolean sticky;
+        if (bits == 63) {
+            sticky = low != 0;
+        } else {
+            top |= low >>> (bits + 1);
+            sticky = (low & ((1L << (bits + 1)) - 1)) != 0;
+        }
+        return Math.scalb((double) (top | (sticky ? 1 : 0)), bits + 1 - 64);
+    }
+
+    /** Integer part of a * 2^64 >> 64, for a >= 0. */
+    private static long magnitudeHigh(double a) {
+        int shift = Math.getExponent(a) + 12; // a = mantissa * 2^(exponent - 52), scaled by 2^64
+        long mantissa = (Double.doubleToRawLongBits(a) & MANTISSA) | IMPLICIT_BIT;
+        if (shift >= 64) return mantissa << (shift - 64);
+        if (shift > 0) return mantissa >>> (64 - shift);
+        return 0;
+    }
+
+    /** Low 64 bits of a * 2^64 rounded to an integer, ties to even, for a >= 0. */
+    private static long magnitudeLow(double a) {
+        int shift = Math.getExponent(a) + 12;
+        long mantissa = (Double.doubleToRawLongBits(a) & MANTISSA) | IMPLICIT_BIT;
+        if (shift >= 64) return 0;
+        if (shift >= 0) return mantissa << shift;
+        if (shift <= -64) return 0; // zero, subnormals and anything below 2^-65
+        int dropped = -shift;
+        long kept = mantissa >>> dropped;
+        long rest = mantissa & ((1L << dropped) - 1);
+        long half = 1L << (dropped - 1);
+        return rest > half || (rest == half && (kept & 1) != 0) ? kept + 1 : kept;
+    }
+}
@@ -0,0 +1,35 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * Powers of one yearly rate for a range of whole-year periods, computed once so that evaluating
+ * many scenarios and k groups is a lookup instead of a {@code Math.pow} each. The entries are the
+ * exact {@code Math.pow} results, so projections match the per-request endpoints to the bit.
+ */
+public final class GrowthTable {
+
+    private final int minPeriod;
+    private final double[] factors;
+
+    private GrowthTable(int minPeriod, double[] factors) {
+        this.minPeriod = minPeriod;
+        this.factors = factors;
+    }
+
+    /**
+     * @param base yearly growth factor, e.g. 1.0711 for 7.11% a year.
+     * @param minPeriod smallest period looked up, may be negative.
+     * @param maxPeriod largest period looked up.
+     */
+    public static GrowthTable of(double base, int minPeriod, int maxPeriod) {
+        double[] factors = new double[maxPeriod - minPeriod + 1];
+        for (int i = 0; i < factors.length; i++) {
+            factors[i] = Math.pow(base, minPeriod + i);
+        }
+        return new GrowthTable(minPeriod, factors);
+    }
+
+    /** {@code base} raised to the period, which must lie in the table's range. */
+    public double factor(int period) {
+        return factors[period - minPeriod];
+    }
+}
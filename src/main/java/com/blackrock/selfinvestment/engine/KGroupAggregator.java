@@ -0,0 +1,238 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+
+/**
+ * Answers k-group savings sums for the returns endpoints.
+ * The transactions are sorted by time once, resolved against the compiled {@link MomentTimeline}
+ * and turned into prefix sums of effective remanents, so every k window costs two binary searches.
+ *
+ * The prefix sums are exact {@link FixedPoint} numbers: a window is the exact sum of its remanents
+ * rounded once, independent of the running total before it and of the order of the rows, and the
+ * same as {@link LedgerIndex} returns for the same transactions. Only when the remanents' magnitudes
+ * add up to {@link FixedPoint#LIMIT} or more are plain double prefix sums used.
+ */
+public final class KGroupAggregator {
+
+    /** Transaction times, ascending. */
+    private final long[] times;
+    /** Exact prefix sums of the effective remanents in time order, or null beyond {@link FixedPoint#LIMIT}. */
+    private final long[] prefixHigh;
+    private final long[] prefixLow;
+    /** Double prefix sums, used when the exact ones are null. */
+    private final double[] prefix;
+    private final double totalAmount;
+    private final double totalCeiling;
+
+    private KGroupAggregator(long[] times, long[] prefixHigh, long[] prefixLow, double[] prefix,
+            double totalAmount, double totalCeiling) {
+        this.times = times;
+        this.prefixHigh = prefixHigh;
+        this.prefixLow = prefixLow;
+        this.prefix = prefix;
+        this.totalAmount = totalAmount;
+        this.totalCeiling = totalCeiling;
+    }
+
+    /**
+     * Build the aggregator for a returns request.
+     * Transactions with a negative amount or an amount above the wage are skipped.
+     * @param request ReturnsRequestDTO containing the transactions and wage.
+     * @param timeline MomentTimeline compiled from the request's q and p moments.
+     * @return KGroupAggregator ready to answer k windows.
+     */
+    public static KGroupAggregator build(ReturnsRequestDTO request, MomentTimeline timeline) {
+        return build(request, timeline, ParallelBatchExecutor.sequential());
+    }
+
+    /**
+     * Same as {@link #build(ReturnsRequestDTO, MomentTimeline)}, running the per-transaction
+     * rounding and q/p resolution on the executor for large requests.
+     */
+    public static KGroupAggregator build(ReturnsRequestDTO request, MomentTimeline timeline,
+            ParallelBatchExecutor executor) {
+        TransactionBatch batch = TransactionBatch.of(request.getTransactions());
+        executor.forEachRange(batch.size(), batch::roundUp);
+        return build(batch, request.getWage(), timeline, executor);
+    }
+
+    /**
+     * Build the aggregator from a parsed batch (ceiling and remanent already set).
+     * @param batch TransactionBatch of parsed transactions, left unchanged.
+     * @param monthlySalary wage; rows with a negative amount or an amount above it are skipped.
+     * @param timeline MomentTimeline compiled from the q and p moments.
+     * @return KGroupAggregator ready to answer k windows.
+     */
+    public static KGroupAggregator build(TransactionBatch batch, double monthlySalary, MomentTimeline timeline) {
+        return build(batch, monthlySalary, timeline, ParallelBatchExecutor.sequential());
+    }
+
+    /**
+     * Same as {@link #build(TransactionBatch, double, MomentTimeline)}; the q/p resolution of the
+     * sorted transactions runs in chunks on the executor, the prefix sums stay sequential so the
+     * sums are identical to the sequential build.
+     */
+    public static KGroupAggregator build(TransactionBatch batch, double monthlySalary, MomentTimeline timeline,
+            ParallelBatchExecutor executor) {
+        double[] amounts = batch.amountColumn();
+        double[] ceilings = batch.ceilingColumn();
+        double[] baseRemanents = batch.remanentColumn();
+        long[] epochSeconds = batch.epochSecondColumn();
+
+        int[] rows = new int[batch.size()];
+        int n = ColumnKernel.get().selectValid(amounts, 0, batch.size(), monthlySalary, rows); // Skip invalid transactions
+        long[] times = new long[n];
+        double[] remanents = new double[n];
+        double totalCeiling = 0;
+        double totalAmount = 0;
+
+        // Totals stay in row order so they are the same bits on every kernel
+        for (int i = 0; i < n; i++) {
+            int row = rows[i];
+            times[i] = epochSeconds[row];
+            remanents[i] = baseRemanents[row];
+            totalCeiling += ceilings[row];
+            totalAmount += amounts[row];
+        }
+
+        sortByTime(times, remanents, n);
+
+        // q and p rules in one merge-style pass per range over the sorted transactions
+        executor.forEachRange(n, (from, to) -> {
+            MomentTimeline.Cursor cursor = timeline.cursor();
+            for (int i = from; i < to; i++) {
+                int segment = cursor.seek(times[i]);
+                int q = timeline.firstQ(segment);
+                double remanent = q == MomentTimeline.NO_Q ? remanents[i] : timeline.fixed(q);
+                remanents[i] = remanent + timeline.extra(segment);
+            }
+        });
+
+        double magnitude = 0;
+        for (int i = 0; i < n; i++) {
+            magnitude += Math.abs(remanents[i]);
+        }
+        if (!FixedPoint.fits(magnitude)) {
+            double[] prefix = new double[n + 1];
+            for (int i = 0; i < n; i++) {
+                prefix[i + 1] = prefix[i] + remanents[i];
+            }
+            return new KGroupAggregator(times, null, null, prefix, totalAmount, totalCeiling);
+        }
+        long[] prefixHigh = new long[n + 1];
+        long[] prefixLow = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            long low = FixedPoint.low(remanents[i]);
+            prefixLow[i + 1] = prefixLow[i] + low;
+            prefixHigh[i + 1] = prefixHigh[i] + FixedPoint.high(remanents[i]) + FixedPoint.carry(prefixLow[i], low);
+        }
+        return new KGroupAggregator(times, prefixHigh, prefixLow, null, totalAmount, totalCeiling);
+    }
+
+    /**
+     * Sum of effective remanents of the transactions dated within [start, end], both inclusive.
+     */
+    public double sum(LocalDateTime start, LocalDateTime end) {
+        int from = lowerBound(times, Helper.toEpochSecond(start));
+        int to = upperBound(times, Helper.toEpochSecond(end));
+        if (to <= from) return 0;
+        if (prefixHigh == null) return prefix[to] - prefix[from];
+
+        long high = prefixHigh[to] - prefixHigh[from] - FixedPoint.borrow(prefixLow[to], prefixLow[from]);
+        return FixedPoint.toDouble(high, prefixLow[to] - prefixLow[from]);
+    }
+
+    /**
+     * Aggregate every k window in request order.
+     * @param kGroups List of kGroupsDTO windows.
+     * @return List of kGroupResponseDTO with the summed remanent of each window.
+     */
+    public List<kGroupResponseDTO> aggregate(List<kGroupsDTO> kGroups) {
+        List<kGroupResponseDTO> kGroupResponses = new ArrayList<>(kGroups.size());
+        for (kGroupsDTO group : kGroups) {
+            kGroupResponses.add(new kGroupResponseDTO(sum(group.getStart(), group.getEnd()),
+                    group.getStart(), group.getEnd()));
+        }
+        return kGroupResponses;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public double getTotalCeiling() {
+        return totalCeiling;
+    }
+
+    /** First index whose time is >= key. */
+    static int lowerBound(long[] sorted, long key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First index whose time is > key. */
+    static int upperBound(long[] sorted, long key) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Stable merge sort of the first n entries of two parallel arrays by time.
+     * Already sorted input (the usual case for statement exports) costs a single scan.
+     */
+    static void sortByTime(long[] times, double[] values, int n) {
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = times[i - 1] <= times[i];
+        }
+        if (sorted) return;
+
+        long[] timeBuffer = new long[n];
+        double[] valueBuffer = new double[n];
+        for (int width = 1; width < n; width <<= 1) {
+            for (int lo = 0; lo < n - width; lo += width << 1) {
+                int mid = lo + width;
+                int hi = Math.min(lo + (width << 1), n);
+                if (times[mid - 1] <= times[mid]) continue; // runs already in order
+
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    if (times[j] < times[i]) {
+                        timeBuffer[k] = times[j];
+                        valueBuffer[k++] = values[j++];
+                    } else {
+                        timeBuffer[k] = times[i];
+                        valueBuffer[k++] = values[i++];
+                    }
+                }
+                while (i < mid) {
+                    timeBuffer[k] = times[i];
+                    valueBuffer[k++] = values[i++];
+                }
+                while (j < hi) {
+                    timeBuffer[k] = times[j];
+                    valueBuffer[k++] = values[j++];
+                }
+                System.arraycopy(timeBuffer, lo, times, lo, hi - lo);
+                System.arraycopy(valueBuffer, lo, values, lo, hi - lo);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+
+/**
+ * Union of the k windows of a request as sorted, non-overlapping intervals.
+ * Answers "is this time inside any k window" with one binary search.
+ */
+public final class KWindowSet {
+
+    private final long[] starts;
+    private final long[] ends;
+
+    private KWindowSet(long[] starts, long[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Merge the k windows. Null lists and windows ending before they start contribute nothing.
+     * @param kGroups List of kGroupsDTO windows.
+     * @return KWindowSet of the merged windows.
+     */
+    public static KWindowSet of(List<kGroupsDTO> kGroups) {
+        int n = kGroups == null ? 0 : kGroups.size();
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            long start = Helper.toEpochSecond(kGroups.get(i).getStart());
+            long end = Helper.toEpochSecond(kGroups.get(i).getEnd());
+            if (start > end) continue;
+            starts[m] = start;
+            ends[m] = end;
+            m++;
+        }
+        Integer[] order = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> starts[i]));
+
+        long[] mergedStarts = new long[m];
+        long[] mergedEnds = new long[m];
+        int merged = 0;
+        for (int i : order) {
+            if (merged > 0 && starts[i] <= mergedEnds[merged - 1] + 1) {
+                mergedEnds[merged - 1] = Math.max(mergedEnds[merged - 1], ends[i]);
+            } else {
+                mergedStarts[merged] = starts[i];
+                mergedEnds[merged] = ends[i];
+                merged++;
+            }
+        }
+        return new KWindowSet(Arrays.copyOf(mergedStarts, merged), Arrays.copyOf(mergedEnds, merged));
+    }
+
+    public boolean contains(long epochSecond) {
+        int i = KGroupAggregator.upperBound(starts, epochSecond) - 1;
+        return i >= 0 && epochSecond <= ends[i];
+    }
+}
@@ -0,0 +1,401 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+
+/**
+ * Incrementally maintained counterpart of {@link KGroupAggregator} for a growing ledger.
+ * Effective remanents are summed per distinct transaction time, in time order, in a Fenwick
+ * (binary indexed) tree, so a k window costs two binary searches and two O(log n) prefix sums.
+ *
+ * Appending a batch costs O(b log b) to sort it plus O(log n) per row whose time is already known
+ * or later than every known time, the usual case for a ledger fed in statement order. Rows that
+ * introduce a new time before the last one are merged in and the tree rebuilt, in O(n + b).
+ *
+ * Sums are exact {@link FixedPoint} numbers, as in {@link KGroupAggregator}, so a window returns the
+ * same double as returns:nps over the same transactions, whatever the batches and their order. Once
+ * the remanents' magnitudes add up to {@link FixedPoint#LIMIT} the index switches to double sums.
+ *
+ * The state can be saved with {@link #writeCheckpoint} and restored with {@link #readCheckpoint}
+ * in O(n), without re-sorting or re-resolving any transaction.
+ *
+ * Not thread-safe; callers serialize appends against queries.
+ */
+public final class LedgerIndex {
+
+    private final double monthlySalary;
+    private final MomentTimeline timeline;
+
+    /** Distinct transaction times, ascending. */
+    private long[] times = new long[16];
+    /** Summed effective remanent of each time as FixedPoint words, and a 1-based Fenwick tree over them. */
+    private long[] high = new long[16];
+    private long[] low = new long[16];
+    private long[] treeHigh = new long[17];
+    private long[] treeLow = new long[17];
+    /** Double sums instead, once magnitude reaches FixedPoint.LIMIT; null until then, the words null after. */
+    private double[] values;
+    private double[] tree;
+    private int size;
+    /** Sum of the magnitudes of all remanents added. */
+    private double magnitude;
+
+    private long count;
+    private double totalAmount;
+    private double totalCeiling;
+
+    /**
+     * @param monthlySalary wage; rows with a negative amount or an amount above it are skipped.
+     * @param timeline MomentTimeline compiled from the ledger's q and p moments.
+     */
+    public LedgerIndex(double monthlySalary, MomentTimeline timeline) {
+        this.monthlySalary = monthlySalary;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Add a parsed batch (ceiling and remanent set) to the ledger; the batch is left unchanged.
+     * @return number of rows added, rows outside [0, wage] are skipped as in returns:nps.
+     */
+    public int append(TransactionBatch batch) {
+        int[] rows = new int[batch.size()];
+        int n = ColumnKernel.get().selectValid(batch.amountColumn(), 0, batch.size(), monthlySalary, rows);
+        long[] batchTimes = new long[n];
+        double[] remanents = new double[n];
+        for (int i = 0; i < n; i++) {
+            int row = rows[i];
+            batchTimes[i] = batch.epochSecond(row);
+            remanents[i] = batch.remanent(row);
+            totalCeiling += batch.ceiling(row);
+            totalAmount += batch.amount(row);
+        }
+        count += n;
+
+        KGroupAggregator.sortByTime(batchTimes, remanents, n);
+        MomentTimeline.Cursor cursor = timeline.cursor();
+        int late = 0;
+        for (int i = 0; i < n; i++) {
+            int segment = cursor.seek(batchTimes[i]);
+            int q = timeline.firstQ(segment);
+            double remanent = (q == MomentTimeline.NO_Q ? remanents[i] : timeline.fixed(q)) + timeline.extra(segment);
+            magnitude += Math.abs(remanent);
+            if (values == null && !FixedPoint.fits(magnitude)) {
+                toDoubles();
+            }
+
+            int position = lowerBound(batchTimes[i]);
+            if (position < size && times[position] == batchTimes[i]) {
+                add(position, remanent);
+            } else if (position == size) {
+                push(batchTimes[i], remanent);
+            } else {
+                // New time before the end: park it at the front of the batch arrays and merge below
+                batchTimes[late] = batchTimes[i];
+                remanents[late++] = remanent;
+            }
+        }
+        if (late > 0) {
+            merge(batchTimes, remanents, late);
+        }
+        return n;
+    }
+
+    /**
+     * Sum of effective remanents of the transactions dated within [start, end], both inclusive.
+     */
+    public double sum(LocalDateTime start, LocalDateTime end) {
+        int from = lowerBound(Helper.toEpochSecond(start));
+        int to = upperBound(Helper.toEpochSecond(end));
+        if (to <= from) return 0;
+        if (values != null) return prefix(to) - prefix(from);
+
+        // Both exact prefix sums, then their difference; all in locals as queries may run concurrently
+        long sumHigh = 0, sumLow = 0;
+        for (int i = to; i > 0; i -= i & -i) {
+            sumHigh += treeHigh[i] + FixedPoint.carry(sumLow, treeLow[i]);
+            sumLow += treeLow[i];
+        }
+        for (int i = from; i > 0; i -= i & -i) {
+            sumHigh -= treeHigh[i] + FixedPoint.borrow(sumLow, treeLow[i]);
+            sumLow -= treeLow[i];
+        }
+        return FixedPoint.toDouble(sumHigh, sumLow);
+    }
+
+    /**
+     * Aggregate every k window in request order.
+     * @param kGroups List of kGroupsDTO windows.
+     * @return List of kGroupResponseDTO with the summed remanent of each window.
+     */
+    public List<kGroupResponseDTO> aggregate(List<kGroupsDTO> kGroups) {
+        List<kGroupResponseDTO> kGroupResponses = new ArrayList<>(kGroups.size());
+        for (kGroupsDTO group : kGroups) {
+            kGroupResponses.add(new kGroupResponseDTO(sum(group.getStart(), group.getEnd()),
+                    group.getStart(), group.getEnd()));
+        }
+        return kGroupResponses;
+    }
+
+    /** Transactions added, skipped rows excluded. */
+    public long getCount() {
+        return count;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public double getTotalCeiling() {
+        return totalCeiling;
+    }
+
+    /**
+     * Bytes written by {@link #writeCheckpoint}.
+     */
+    public long checkpointBytes() {
+        long sums = values == null ? 2L * Long.BYTES : Double.BYTES;
+        return 5L * Long.BYTES + Integer.BYTES + (long) size * (Long.BYTES + sums);
+    }
+
+    /**
+     * Write the index (totals and per-time sums, not the tree) at the buffer's position.
+     * The per-time sums are written as FixedPoint words, or as doubles once the index uses them.
+     */
+    public void writeCheckpoint(ByteBuffer out) {
+        out.putLong(count);
+        out.putDouble(totalAmount);
+        out.putDouble(totalCeiling);
+        out.putLong(Double.doubleToRawLongBits(monthlySalary));
+        out.putDouble(magnitude);
+        out.putInt(size);
+        out.asLongBuffer().put(times, 0, size);
+        out.position(out.position() + size * Long.BYTES);
+        if (values == null) {
+            out.asLongBuffer().put(high, 0, size);
+            out.position(out.position() + size * Long.BYTES);
+            out.asLongBuffer().put(low, 0, size);
+            out.position(out.position() + size * Long.BYTES);
+        } else {
+            out.asDoubleBuffer().put(values, 0, size);
+            out.position(out.position() + size * Double.BYTES);
+        }
+    }
+
+    /**
+     * Restore an index written by {@link #writeCheckpoint}, rebuilding the tree in O(n).
+     * @param in buffer positioned at the checkpoint.
+     * @param monthlySalary wage of the ledger; must be the one the checkpoint was written with.
+     * @param timeline MomentTimeline of the ledger's q and p moments.
+     * @throws IllegalArgumentException if the checkpoint was written for another wage.
+     */
+    public static LedgerIndex readCheckpoint(ByteBuffer in, double monthlySalary, MomentTimeline timeline) {
+        LedgerIndex index = new LedgerIndex(monthlySalary, timeline);
+        index.count = in.getLong();
+        index.totalAmount = in.getDouble();
+        index.totalCeiling = in.getDouble();
+        if (in.getLong() != Double.doubleToRawLongBits(monthlySalary)) {
+            throw new IllegalArgumentException("Checkpoint was written for another wage");
+        }
+        index.magnitude = in.getDouble();
+        int size = in.getInt();
+        int capacity = Math.max(16, size);
+        index.times = new long[capacity];
+        in.asLongBuffer().get(index.times, 0, size);
+        in.position(in.position() + size * Long.BYTES);
+        if (FixedPoint.fits(index.magnitude)) {
+            index.high = new long[capacity];
+            index.low = new long[capacity];
+            in.asLongBuffer().get(index.high, 0, size);
+            in.position(in.position() + size * Long.BYTES);
+            in.asLongBuffer().get(index.low, 0, size);
+            in.position(in.position() + size * Long.BYTES);
+        } else {
+            index.high = null;
+            index.low = null;
+            index.values = new double[capacity];
+            in.asDoubleBuffer().get(index.values, 0, size);
+            in.position(in.position() + size * Double.BYTES);
+        }
+        index.size = size;
+        index.rebuild();
+        return index;
+    }
+
+    /** Sum of the first k values, in double mode. */
+    private double prefix(int k) {
+        double sum = 0;
+        for (int i = k; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /** Add a remanent to the sum of the time at position, and to the tree nodes covering it. */
+    private void add(int position, double remanent) {
+        if (values != null) {
+            values[position] += remanent;
+            for (int i = position + 1; i <= size; i += i & -i) {
+                tree[i] += remanent;
+            }
+            return;
+        }
+        long deltaHigh = FixedPoint.high(remanent);
+        long deltaLow = FixedPoint.low(remanent);
+        high[position] += deltaHigh + FixedPoint.carry(low[position], deltaLow);
+        low[position] += deltaLow;
+        for (int i = position + 1; i <= size; i += i & -i) {
+            treeHigh[i] += deltaHigh + FixedPoint.carry(treeLow[i], deltaLow);
+            treeLow[i] += deltaLow;
+        }
+    }
+
+    /**
+     * Append a time after every known one. Node i of a Fenwick tree covers (i - lowbit(i), i],
+     * which for the new last node is its value plus the nodes below it down to i - lowbit(i).
+     */
+    private void push(long time, double remanent) {
+        if (size == times.length) {
+            grow(size + 1);
+        }
+        times[size] = time;
+        size++;
+        if (values != null) {
+            values[size - 1] = remanent;
+            tree[size] = remanent + prefix(size - 1) - prefix(size - (size & -size));
+            return;
+        }
+        long nodeHigh = FixedPoint.high(remanent);
+        long nodeLow = FixedPoint.low(remanent);
+        high[size - 1] = nodeHigh;
+        low[size - 1] = nodeLow;
+        for (int i = size - 1, stop = size - (size & -size); i > stop; i -= i & -i) {
+            nodeHigh += treeHigh[i] + FixedPoint.carry(nodeLow, treeLow[i]);
+            nodeLow += treeLow[i];
+        }
+        treeHigh[size] = nodeHigh;
+        treeLow[size] = nodeLow;
+    }
+
+    /**
+     * Merge sorted late rows (times may repeat) into the known times and rebuild the tree.
+     */
+    private void merge(long[] lateTimes, double[] lateValues, int n) {
+        int capacity = Math.max(16, size + n);
+        long[] mergedTimes = new long[capacity];
+        long[] mergedHigh = values == null ? new long[capacity] : null;
+        long[] mergedLow = values == null ? new long[capacity] : null;
+        double[] mergedValues = values == null ? null : new double[capacity];
+        int i = 0, j = 0, m = 0;
+        while (i < size || j < n) {
+            long time = j == n || (i < size && times[i] <= lateTimes[j]) ? times[i] : lateTimes[j];
+            mergedTimes[m] = time;
+            if (values != null) {
+                double value = 0;
+                while (i < size && times[i] == time) value += values[i++];
+                while (j < n && lateTimes[j] == time) value += lateValues[j++];
+                mergedValues[m++] = value;
+                continue;
+            }
+            long valueHigh = 0, valueLow = 0;
+            while (i < size && times[i] == time) {
+                valueHigh += high[i] + FixedPoint.carry(valueLow, low[i]);
+                valueLow += low[i++];
+            }
+            while (j < n && lateTimes[j] == time) {
+                long lateLow = FixedPoint.low(lateValues[j]);
+                valueHigh += FixedPoint.high(lateValues[j++]) + FixedPoint.carry(valueLow, lateLow);
+                valueLow += lateLow;
+            }
+            mergedHigh[m] = valueHigh;
+            mergedLow[m++] = valueLow;
+        }
+        times = mergedTimes;
+        high = mergedHigh;
+        low = mergedLow;
+        values = mergedValues;
+        size = m;
+        rebuild();
+    }
+
+    /**
+     * Build the tree from values in O(n): each node pushes its range sum to its parent.
+     */
+    private void rebuild() {
+        if (values != null) {
+            tree = new double[times.length + 1];
+            for (int k = 1; k <= size; k++) {
+                tree[k] += values[k - 1];
+                int parent = k + (k & -k);
+                if (parent <= size) tree[parent] += tree[k];
+            }
+            return;
+        }
+        treeHigh = new long[times.length + 1];
+        treeLow = new long[times.length + 1];
+        for (int k = 1; k <= size; k++) {
+            treeHigh[k] += high[k - 1] + FixedPoint.carry(treeLow[k], low[k - 1]);
+            treeLow[k] += low[k - 1];
+            int parent = k + (k & -k);
+            if (parent <= size) {
+                treeHigh[parent] += treeHigh[k] + FixedPoint.carry(treeLow[parent], treeLow[k]);
+                treeLow[parent] += treeLow[k];
+            }
+        }
+    }
+
+    /** Switch to double sums, rounding each per-time sum once. */
+    private void toDoubles() {
+        values = new double[times.length];
+        for (int i = 0; i < size; i++) {
+            values[i] = FixedPoint.toDouble(high[i], low[i]);
+        }
+        high = null;
+        low = null;
+        treeHigh = null;
+        treeLow = null;
+        rebuild();
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, times.length + (times.length >> 1));
+        times = Arrays.copyOf(times, capacity);
+        if (values != null) {
+            values = Arrays.copyOf(values, capacity);
+            tree = Arrays.copyOf(tree, capacity + 1);
+            return;
+        }
+        high = Arrays.copyOf(high, capacity);
+        low = Arrays.copyOf(low, capacity);
+        treeHigh = Arrays.copyOf(treeHigh, capacity + 1);
+        treeLow = Arrays.copyOf(treeLow, capacity + 1);
+    }
+
+    /** First index whose time is >= key. */
+    private int lowerBound(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First index whose time is > key. */
+    private int upperBound(long key) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
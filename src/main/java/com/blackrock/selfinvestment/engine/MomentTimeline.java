@@ -0,0 +1,179 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+/**
+ * The q and p periods of a request compiled into a flat, sorted timeline of segments.
+ * Every segment knows which q applies to it and the summed p extra, so a transaction
+ * resolves its rules with one binary search (or one cursor step for sorted input)
+ * instead of scanning every moment.
+ *
+ * Two q policies are kept because the endpoints differ: the returns endpoints take the
+ * first matching q in request order, the filter endpoint takes the matching q with the
+ * latest start (first in request order on ties).
+ *
+ * Instances are immutable and shared between requests through {@link MomentTimelineCache}.
+ */
+public final class MomentTimeline {
+
+    public static final int NO_Q = -1;
+
+    // segment i covers [starts[i], starts[i + 1]); segment 0 and the last segment are open ended
+    private final long[] starts;
+    private final int[] firstQ;
+    private final int[] latestQ;
+    private final double[] extra;
+    private final double[] qFixed;
+
+    private MomentTimeline(long[] starts, int[] firstQ, int[] latestQ, double[] extra, double[] qFixed) {
+        this.starts = starts;
+        this.firstQ = firstQ;
+        this.latestQ = latestQ;
+        this.extra = extra;
+        this.qFixed = qFixed;
+    }
+
+    /**
+     * Compile the q and p moments of a request. Null lists are treated as empty.
+     * @param qMoments List of qMomentsDTO fixed-remanent periods.
+     * @param pMoments List of pMomentsDTO extra-remanent periods.
+     * @return MomentTimeline covering every period.
+     */
+    public static MomentTimeline compile(List<qMomentsDTO> qMoments, List<pMomentsDTO> pMoments) {
+        List<qMomentsDTO> q = qMoments == null ? List.of() : qMoments;
+        List<pMomentsDTO> p = pMoments == null ? List.of() : pMoments;
+
+        long[] qStart = new long[q.size()];
+        long[] qEnd = new long[q.size()];
+        double[] qFixed = new double[q.size()];
+        long[] pStart = new long[p.size()];
+        long[] pEnd = new long[p.size()];
+
+        // ---------------- BREAKPOINTS ----------------
+        long[] bounds = new long[2 * (q.size() + p.size())];
+        int b = 0;
+        for (int i = 0; i < q.size(); i++) {
+            qStart[i] = Helper.toEpochSecond(q.get(i).getStart());
+            qEnd[i] = Helper.toEpochSecond(q.get(i).getEnd());
+            qFixed[i] = q.get(i).getFixed();
+            if (qStart[i] <= qEnd[i]) {
+                bounds[b++] = qStart[i];
+                bounds[b++] = qEnd[i] + 1;
+            }
+        }
+        for (int i = 0; i < p.size(); i++) {
+            pStart[i] = Helper.toEpochSecond(p.get(i).getStart());
+            pEnd[i] = Helper.toEpochSecond(p.get(i).getEnd());
+            if (pStart[i] <= pEnd[i]) {
+                bounds[b++] = pStart[i];
+                bounds[b++] = pEnd[i] + 1;
+            }
+        }
+        Arrays.sort(bounds, 0, b);
+
+        long[] starts = new long[b + 1];
+        starts[0] = Long.MIN_VALUE;
+        int segments = 1;
+        for (int i = 0; i < b; i++) {
+            if (bounds[i] != starts[segments - 1]) {
+                starts[segments++] = bounds[i];
+            }
+        }
+        starts = Arrays.copyOf(starts, segments);
+
+        int[] firstQ = new int[segments];
+        int[] latestQ = new int[segments];
+        Arrays.fill(firstQ, NO_Q);
+        Arrays.fill(latestQ, NO_Q);
+        double[] extra = new double[segments];
+
+        // ---------------- Q RULE ----------------
+        for (int i = 0; i < q.size(); i++) {
+            if (qStart[i] > qEnd[i]) continue;
+            int to = Arrays.binarySearch(starts, qEnd[i] + 1);
+            for (int s = Arrays.binarySearch(starts, qStart[i]); s < to; s++) {
+                if (firstQ[s] == NO_Q) {
+                    firstQ[s] = i;
+                }
+                if (latestQ[s] == NO_Q || qStart[i] > qStart[latestQ[s]]) {
+                    latestQ[s] = i;
+                }
+            }
+        }
+
+        // ---------------- P RULE ----------------
+        for (int i = 0; i < p.size(); i++) {
+            if (pStart[i] > pEnd[i]) continue;
+            int to = Arrays.binarySearch(starts, pEnd[i] + 1);
+            for (int s = Arrays.binarySearch(starts, pStart[i]); s < to; s++) {
+                extra[s] += p.get(i).getExtra();
+            }
+        }
+
+        return new MomentTimeline(starts, firstQ, latestQ, extra, qFixed);
+    }
+
+    /**
+     * Segment containing the given time.
+     * @param epochSecond transaction time in epoch seconds.
+     * @return segment index, always valid.
+     */
+    public int segment(long epochSecond) {
+        return KGroupAggregator.upperBound(starts, epochSecond) - 1;
+    }
+
+    /** Index of the first q in request order covering the segment, or {@link #NO_Q}. */
+    public int firstQ(int segment) {
+        return firstQ[segment];
+    }
+
+    /** Index of the covering q with the latest start, or {@link #NO_Q}. */
+    public int latestQ(int segment) {
+        return latestQ[segment];
+    }
+
+    public double fixed(int q) {
+        return qFixed[q];
+    }
+
+    /** Sum of the p extras covering the segment. */
+    public double extra(int segment) {
+        return extra[segment];
+    }
+
+    public int segmentCount() {
+        return starts.length;
+    }
+
+    /**
+     * Cursor for resolving segments in a merge-style pass over time-sorted input.
+     * Staying in the segment or stepping to the next one is O(1); any other jump falls back
+     * to binary search, so unsorted input still resolves correctly.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public final class Cursor {
+        private int current;
+
+        private Cursor() {
+        }
+
+        public int seek(long epochSecond) {
+            int next = current + 1;
+            if (epochSecond >= starts[current] && (next == starts.length || epochSecond < starts[next])) {
+                return current;
+            }
+            if (epochSecond >= starts[current] && (next + 1 == starts.length || epochSecond < starts[next + 1])) {
+                return current = next;
+            }
+            return current = segment(epochSecond);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+/**
+ * Bounded LRU cache of compiled {@link MomentTimeline}s, keyed by the content of the q and p lists.
+ * Callers that repeatedly send the same rule set skip compilation.
+ */
+@Component
+public class MomentTimelineCache {
+
+    private final Map<Key, MomentTimeline> cache;
+
+    public MomentTimelineCache(@Value("${app.timeline.cache-size:256}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, MomentTimeline> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the compiled timeline for the given moments, compiling it on a miss.
+     * @param q List of qMomentsDTO, may be null.
+     * @param p List of pMomentsDTO, may be null.
+     * @return MomentTimeline for the rule set.
+     */
+    public MomentTimeline get(List<qMomentsDTO> q, List<pMomentsDTO> p) {
+        Key key = Key.of(q, p);
+        synchronized (cache) {
+            MomentTimeline timeline = cache.get(key);
+            if (timeline != null) {
+                return timeline;
+            }
+        }
+        // Compile outside the lock; a concurrent miss on the same key just compiles twice
+        MomentTimeline timeline = MomentTimeline.compile(q, p);
+        synchronized (cache) {
+            cache.put(key, timeline);
+        }
+        return timeline;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Full encoding of the moment lists, so equal hashes never alias different rule sets.
+     */
+    private static final class Key {
+        private final long[] data;
+        private final int hash;
+
+        private Key(long[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        static Key of(List<qMomentsDTO> q, List<pMomentsDTO> p) {
+            int qSize = q == null ? 0 : q.size();
+            int pSize = p == null ? 0 : p.size();
+            long[] data = new long[1 + 3 * (qSize + pSize)];
+            int i = 0;
+            data[i++] = qSize;
+            for (int j = 0; j < qSize; j++) {
+                qMomentsDTO moment = q.get(j);
+                data[i++] = Double.doubleToLongBits(moment.getFixed());
+                data[i++] = Helper.toEpochSecond(moment.getStart());
+                data[i++] = Helper.toEpochSecond(moment.getEnd());
+            }
+            for (int j = 0; j < pSize; j++) {
+                pMomentsDTO moment = p.get(j);
+                data[i++] = Double.doubleToLongBits(moment.getExtra());
+                data[i++] = Helper.toEpochSecond(moment.getStart());
+                data[i++] = Helper.toEpochSecond(moment.getEnd());
+            }
+            return new Key(data);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && hash == key.hash && Arrays.equals(data, key.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs per-row work over large batches in chunks on a dedicated ForkJoinPool.
+ * Batches below the threshold stay on the calling thread, so small requests pay no hand-off.
+ *
+ * Results are merged in input order: a parallel partition is identical to the one the
+ * sequential {@link PartitionPipeline} builds, including which of two duplicates is kept.
+ */
+@Component
+public class ParallelBatchExecutor implements AutoCloseable {
+
+    /** Smallest chunk worth a task of its own. */
+    private static final int MIN_CHUNK = 4096;
+    /** Chunks per worker, so that uneven chunks still balance. */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private static final ParallelBatchExecutor SEQUENTIAL = new ParallelBatchExecutor();
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    @Autowired
+    public ParallelBatchExecutor(@Value("${app.parallel.pool-size:0}") int poolSize,
+            @Value("${app.parallel.threshold:50000}") int threshold) {
+        int parallelism = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("batch-worker-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.threshold = Math.max(threshold, 1);
+    }
+
+    private ParallelBatchExecutor() {
+        this.pool = null;
+        this.threshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Executor that always runs on the calling thread.
+     */
+    public static ParallelBatchExecutor sequential() {
+        return SEQUENTIAL;
+    }
+
+    public boolean isParallel(int rows) {
+        return pool != null && rows >= threshold;
+    }
+
+    /**
+     * Run the task over [0, rows) split into disjoint ranges, in parallel for large inputs.
+     * @param rows number of rows.
+     * @param task RangeTask called once per range; ranges never overlap.
+     */
+    public void forEachRange(int rows, RangeTask task) {
+        if (!isParallel(rows)) {
+            task.run(0, rows);
+            return;
+        }
+        int chunk = chunkSize(rows);
+        invokeAll((rows + chunk - 1) / chunk, i -> task.run(i * chunk, Math.min(rows, (i + 1) * chunk)));
+    }
+
+    /**
+     * Classify and deduplicate every row of the batch.
+     * Rows are classified in parallel chunks, one classifier per chunk. Candidates are then
+     * checked for duplicates by key-hash shard, each shard walking its rows in input order,
+     * so the first occurrence of a key is the one kept no matter which chunk it fell in.
+     * @param batch TransactionBatch to partition.
+     * @param rules source of classifiers, one per chunk.
+     * @return BatchPartition of the rows in input order.
+     */
+    public BatchPartition partition(TransactionBatch batch, Supplier<RowClassifier> rules) {
+        int rows = batch.size();
+        if (!isParallel(rows)) {
+            PartitionPipeline pipeline = new PartitionPipeline(batch, rules);
+            for (int row = 0; row < rows; row++) {
+                pipeline.accept(row);
+            }
+            return pipeline.getPartition();
+        }
+
+        int chunk = chunkSize(rows);
+        int chunks = (rows + chunk - 1) / chunk;
+        int shards = Integer.highestOneBit(pool.getParallelism() * 2 - 1) << 1;
+        byte[] status = new byte[rows];
+        IntList[][] candidates = new IntList[chunks][shards];
+
+        invokeAll(chunks, c -> {
+            RowClassifier classifier = rules.get();
+            IntList[] byShard = candidates[c];
+            for (int row = c * chunk, end = Math.min(rows, row + chunk); row < end; row++) {
+                byte rowStatus = classifier.classify(row);
+                status[row] = rowStatus;
+                if (RowClassifier.isCandidate(rowStatus)) {
+                    int shard = (int) TransactionKeySet.hash(batch.epochSecond(row), batch.amount(row)) & (shards - 1);
+                    if (byShard[shard] == null) {
+                        byShard[shard] = new IntList();
+                    }
+                    byShard[shard].add(row);
+                }
+            }
+        });
+
+        invokeAll(shards, shard -> {
+            TransactionKeySet seen = new TransactionKeySet(rows / shards);
+            for (int c = 0; c < chunks; c++) {
+                IntList list = candidates[c][shard];
+                if (list == null) continue;
+                for (int i = 0; i < list.size; i++) {
+                    int row = list.values[i];
+                    if (!seen.add(batch.epochSecond(row), batch.amount(row))) {
+                        status[row] = (byte) RejectReason.DUPLICATE.ordinal();
+                    }
+                }
+            }
+        });
+
+        BatchPartition partition = new BatchPartition(batch);
+        for (int row = 0; row < rows; row++) {
+            PartitionPipeline.record(partition, row, status[row]);
+        }
+        return partition;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    private int chunkSize(int rows) {
+        int chunks = pool.getParallelism() * CHUNKS_PER_WORKER;
+        return Math.max(MIN_CHUNK, (rows + chunks - 1) / chunks);
+    }
+
+    private void invokeAll(int count, IntConsumer body) {
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks[i] = pool.submit(() -> body.accept(index));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Work over the half-open row range [from, to).
+     */
+    @FunctionalInterface
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.function.Supplier;
+
+/**
+ * Row pipeline that classifies each row with a {@link RowClassifier} and then runs the duplicate
+ * check on the candidates, in arrival order, to fill a {@link BatchPartition}.
+ */
+public class PartitionPipeline implements RowPipeline {
+
+    private static final RejectReason[] REASONS = RejectReason.values();
+
+    private final TransactionBatch batch;
+    private final RowClassifier classifier;
+    private final BatchPartition partition;
+    private final TransactionKeySet seen;
+
+    protected PartitionPipeline(TransactionBatch batch, Supplier<RowClassifier> rules) {
+        this.batch = batch;
+        this.classifier = rules.get();
+        this.partition = new BatchPartition(batch);
+        this.seen = new TransactionKeySet(batch.size());
+    }
+
+    @Override
+    public void accept(int row) {
+        byte status = classifier.classify(row);
+        if (RowClassifier.isCandidate(status) && !seen.add(batch.epochSecond(row), batch.amount(row))) {
+            status = (byte) RejectReason.DUPLICATE.ordinal();
+        }
+        record(partition, row, status);
+    }
+
+    public BatchPartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Add a row whose duplicate check has been done to the partition.
+     */
+    static void record(BatchPartition partition, int row, byte status) {
+        switch (status) {
+            case RowClassifier.DROPPED -> { }
+            case RowClassifier.CANDIDATE -> partition.addValid(row);
+            case RowClassifier.CANDIDATE_IN_K -> {
+                partition.setInKPeriod(row, true);
+                partition.addValid(row);
+            }
+            default -> partition.addInvalid(row, REASONS[status]);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * Validation failures reported in the "invalid" list, with the messages clients already rely on.
+ */
+public enum RejectReason {
+    NEGATIVE_OR_ZERO("Negative or zero amount is not allowed"),
+    EXCEEDS_WAGE("Amount exceeds wage"),
+    DUPLICATE("Duplicate transaction");
+
+    private final String message;
+
+    RejectReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * First stage of a partitioning pipeline: everything that can be decided from the row alone.
+ * Duplicate detection, which depends on the rows before it, is left to the caller.
+ *
+ * Instances may keep per-scan state (such as a timeline cursor) and are not thread-safe;
+ * parallel scans use one instance per chunk.
+ */
+@FunctionalInterface
+public interface RowClassifier {
+
+    /** The row is dropped from both result lists. */
+    byte DROPPED = -1;
+    /** The row is valid unless it duplicates an earlier candidate. */
+    byte CANDIDATE = -2;
+    /** As {@link #CANDIDATE}, for a row inside a k window. */
+    byte CANDIDATE_IN_K = -3;
+
+    /**
+     * Classify a row, updating its ceiling and remanent if the rules change them.
+     * @param row index of the row in the batch.
+     * @return DROPPED, CANDIDATE, CANDIDATE_IN_K or the ordinal of the {@link RejectReason}.
+     */
+    byte classify(int row);
+
+    static boolean isCandidate(byte status) {
+        return status == CANDIDATE || status == CANDIDATE_IN_K;
+    }
+}
@@ -0,0 +1,14 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * Per-row computation over a {@link TransactionBatch}, fed one row at a time as rows arrive.
+ */
+@FunctionalInterface
+public interface RowPipeline {
+
+    /**
+     * Process a row that has just been appended to the batch.
+     * @param row index of the row in the batch.
+     */
+    void accept(int row);
+}
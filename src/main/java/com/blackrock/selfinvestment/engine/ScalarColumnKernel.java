@@ -0,0 +1,35 @@
+package com.blackrock.selfinvestment.engine;
+
+/**
+ * One row at a time; the reference for {@link VectorColumnKernel} and the fallback without it.
+ */
+final class ScalarColumnKernel extends ColumnKernel {
+
+    static final ScalarColumnKernel INSTANCE = new ScalarColumnKernel();
+
+    private ScalarColumnKernel() {
+    }
+
+    @Override
+    public void roundUp(double[] amount, double[] ceiling, double[] remanent, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ceiling[i] = Math.ceil(amount[i] / 100) * 100;
+            remanent[i] = ceiling[i] - amount[i];
+        }
+    }
+
+    @Override
+    public int selectValid(double[] amount, int from, int to, double max, int[] rows) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            if (amount[i] < 0 || amount[i] > max) continue;
+            rows[n++] = i;
+        }
+        return n;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
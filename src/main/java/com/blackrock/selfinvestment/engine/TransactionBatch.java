@@ -0,0 +1,204 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.transactionResponseDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+/**
+ * Columnar, primitive representation of a list of transactions used internally by the services.
+ * A row costs 32 bytes (epoch second, amount, ceiling, remanent) instead of a DTO plus its
+ * LocalDateTime graph, and the per-column loops are plain array walks the JIT can vectorize.
+ *
+ * DTOs are only created at the JSON boundary, through the lazy {@link #rows} views.
+ */
+public final class TransactionBatch {
+
+    private long[] epochSeconds;
+    private double[] amount;
+    private double[] ceiling;
+    private double[] remanent;
+    private int size;
+
+    public TransactionBatch(int capacity) {
+        int initial = Math.max(capacity, 16);
+        epochSeconds = new long[initial];
+        amount = new double[initial];
+        ceiling = new double[initial];
+        remanent = new double[initial];
+    }
+
+    /**
+     * Load raw transactions; ceiling and remanent start at zero.
+     */
+    public static TransactionBatch of(List<transactionsDTO> transactions) {
+        TransactionBatch batch = new TransactionBatch(transactions.size());
+        for (transactionsDTO transaction : transactions) {
+            batch.add(Helper.toEpochSecond(transaction.getDate()), transaction.getAmount());
+        }
+        return batch;
+    }
+
+    /**
+     * Load already parsed transactions, keeping their ceiling and remanent.
+     */
+    public static TransactionBatch ofParsed(List<transactionResponseDTO> transactions) {
+        TransactionBatch batch = new TransactionBatch(transactions.size());
+        for (transactionResponseDTO transaction : transactions) {
+            batch.add(Helper.toEpochSecond(transaction.getDate()), transaction.getAmount(),
+                    transaction.getCeiling(), transaction.getRemanent());
+        }
+        return batch;
+    }
+
+    public void add(long epochSecond, double amount) {
+        add(epochSecond, amount, 0, 0);
+    }
+
+    public void add(long epochSecond, double amount, double ceiling, double remanent) {
+        if (size == epochSeconds.length) {
+            grow();
+        }
+        this.epochSeconds[size] = epochSecond;
+        this.amount[size] = amount;
+        this.ceiling[size] = ceiling;
+        this.remanent[size] = remanent;
+        size++;
+    }
+
+    /**
+     * Round every amount up to the next multiple of 100 and store ceiling and remanent.
+     */
+    public void roundUp() {
+        roundUp(0, size);
+    }
+
+    /**
+     * Round the rows in [from, to) up with the {@link ColumnKernel}; disjoint ranges may be rounded concurrently.
+     */
+    public void roundUp(int from, int to) {
+        ColumnKernel.get().roundUp(amount, ceiling, remanent, from, to);
+    }
+
+    /**
+     * Round a single row up; used when rows are processed as they arrive.
+     */
+    public void roundUp(int row) {
+        ceiling[row] = Math.ceil(amount[row] / 100) * 100;
+        remanent[row] = ceiling[row] - amount[row];
+    }
+
+    /**
+     * Drop every row but keep the capacity; used to reuse one batch for consecutive chunks of a stream.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long epochSecond(int row) {
+        return epochSeconds[row];
+    }
+
+    public LocalDateTime date(int row) {
+        return Helper.fromEpochSecond(epochSeconds[row]);
+    }
+
+    public double amount(int row) {
+        return amount[row];
+    }
+
+    public double ceiling(int row) {
+        return ceiling[row];
+    }
+
+    public double remanent(int row) {
+        return remanent[row];
+    }
+
+    public void setCeiling(int row, double value) {
+        ceiling[row] = value;
+    }
+
+    public void setRemanent(int row, double value) {
+        remanent[row] = value;
+    }
+
+    /** Direct column access for bulk kernels; valid up to {@link #size()}. */
+    public long[] epochSecondColumn() {
+        return epochSeconds;
+    }
+
+    public double[] amountColumn() {
+        return amount;
+    }
+
+    public double[] ceilingColumn() {
+        return ceiling;
+    }
+
+    public double[] remanentColumn() {
+        return remanent;
+    }
+
+    /**
+     * Every row as a transactionResponseDTO, created on access.
+     */
+    public List<transactionResponseDTO> asResponseList() {
+        return rows(size, this::responseDTO);
+    }
+
+    public transactionResponseDTO responseDTO(int row) {
+        return new transactionResponseDTO(date(row), amount[row], ceiling[row], remanent[row]);
+    }
+
+    /**
+     * Read-only list view whose elements are built on access.
+     * Serializing the view allocates one short-lived DTO at a time instead of retaining a DTO per row.
+     * @param count number of elements.
+     * @param mapper builds the element at a position.
+     */
+    public static <T> List<T> rows(int count, IntFunction<T> mapper) {
+        return new RowView<>(count, mapper);
+    }
+
+    private void grow() {
+        int capacity = epochSeconds.length + (epochSeconds.length >> 1);
+        epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        amount = Arrays.copyOf(amount, capacity);
+        ceiling = Arrays.copyOf(ceiling, capacity);
+        remanent = Arrays.copyOf(remanent, capacity);
+    }
+
+    private static final class RowView<T> extends AbstractList<T> implements RandomAccess {
+        private final int count;
+        private final IntFunction<T> mapper;
+
+        RowView(int count, IntFunction<T> mapper) {
+            this.count = count;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return mapper.apply(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.time.LocalDateTime;
+
+import com.blackrock.selfinvestment.helper.Helper;
+
+/**
+ * Open-addressing hash set of (date, amount) transaction keys used for duplicate detection.
+ * Keys are stored as two primitive longs, the epoch second and the raw bits of the amount,
+ * so lookups never box and cost O(1) expected instead of a scan over the accepted rows.
+ *
+ * Amounts compare like the {@code ==} check this replaces: NaN is never a duplicate and
+ * 0.0 equals -0.0.
+ */
+public final class TransactionKeySet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] seconds;
+    private long[] amounts;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /**
+     * @param expectedSize number of keys expected, used to pre-size the table.
+     */
+    public TransactionKeySet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Add the key if absent.
+     * @return true if the key was added, false if it was already present.
+     */
+    public boolean add(LocalDateTime date, double amount) {
+        return add(Helper.toEpochSecond(date), amount);
+    }
+
+    public boolean add(long epochSecond, double amount) {
+        if (Double.isNaN(amount)) {
+            return true;
+        }
+        long amountBits = Double.doubleToRawLongBits(amount == 0 ? 0.0 : amount);
+        int slot = slot(epochSecond, amountBits);
+        while (used[slot]) {
+            if (seconds[slot] == epochSecond && amounts[slot] == amountBits) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        seconds[slot] = epochSecond;
+        amounts[slot] = amountBits;
+        if (++size > used.length * LOAD_FACTOR) {
+            rehash();
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hash of a key, equal for keys that {@link #add} treats as equal; used to shard keys across sets.
+     */
+    static long hash(long epochSecond, double amount) {
+        return mix(epochSecond * 0x9E3779B97F4A7C15L ^ Double.doubleToRawLongBits(amount == 0 ? 0.0 : amount));
+    }
+
+    private int slot(long epochSecond, long amountBits) {
+        return (int) mix(epochSecond * 0x9E3779B97F4A7C15L ^ amountBits) & mask;
+    }
+
+    // MurmurHash3 64-bit finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private void rehash() {
+        long[] oldSeconds = seconds;
+        long[] oldAmounts = amounts;
+        boolean[] oldUsed = used;
+        allocate(oldUsed.length << 1);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = slot(oldSeconds[i], oldAmounts[i]);
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            seconds[slot] = oldSeconds[i];
+            amounts[slot] = oldAmounts[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        seconds = new long[capacity];
+        amounts = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize / LOAD_FACTOR && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
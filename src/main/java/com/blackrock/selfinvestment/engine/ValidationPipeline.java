@@ -0,0 +1,30 @@
+package com.blackrock.selfinvestment.engine;
+
+import java.util.function.Supplier;
+
+/**
+ * Validation rules of transactions:validator applied row by row:
+ * positive amount, amount within wage, no duplicate (date, amount).
+ */
+public final class ValidationPipeline extends PartitionPipeline {
+
+    public ValidationPipeline(TransactionBatch batch, double wage) {
+        super(batch, rules(batch, wage));
+    }
+
+    /**
+     * Classifiers for the amount checks alone; {@link ParallelBatchExecutor} runs the duplicate check itself.
+     */
+    public static Supplier<RowClassifier> rules(TransactionBatch batch, double wage) {
+        return () -> row -> {
+            double ammount = batch.amount(row);
+
+            if (ammount <= 0) {
+                return (byte) RejectReason.NEGATIVE_OR_ZERO.ordinal();
+            } else if (ammount > wage) {
+                return (byte) RejectReason.EXCEEDS_WAGE.ordinal();
+            }
+            return RowClassifier.CANDIDATE;
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.blackrock.selfinvestment.engine;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ColumnKernel} on the incubating Vector API, using the widest doubles vector of the CPU.
+ * Only loaded through {@link ColumnKernel#vector()}; the tail shorter than a vector is done by the
+ * scalar kernel.
+ */
+final class VectorColumnKernel extends ColumnKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    /** From 2^52 up every double is a whole number, and below it x + 2^52 - 2^52 rounds x to one. */
+    private static final double INTEGRAL = 0x1p52;
+
+    @Override
+    public void roundUp(double[] amount, double[] ceiling, double[] remanent, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, amount, i);
+            DoubleVector rounded = ceil(value.div(100)).mul(100);
+            rounded.intoArray(ceiling, i);
+            rounded.sub(value).intoArray(remanent, i);
+        }
+        ScalarColumnKernel.INSTANCE.roundUp(amount, ceiling, remanent, i, to);
+    }
+
+    @Override
+    public int selectValid(double[] amount, int from, int to, double max, int[] rows) {
+        int n = 0;
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, amount, i);
+            // Negated like the scalar check, so NaN counts as valid in both
+            VectorMask<Double> invalid = value.compare(VectorOperators.LT, 0).or(value.compare(VectorOperators.GT, max));
+            for (long valid = invalid.not().toLong(); valid != 0; valid &= valid - 1) {
+                rows[n++] = i + Long.numberOfTrailingZeros(valid);
+            }
+        }
+        for (; i < to; i++) {
+            if (amount[i] < 0 || amount[i] > max) continue;
+            rows[n++] = i;
+        }
+        return n;
+    }
+
+    @Override
+    public String name() {
+        return "vector(" + SPECIES.vectorBitSize() + " bit)";
+    }
+
+    /**
+     * Math.ceil per lane, including the sign of zero results, NaN and infinities, without a
+     * double/long conversion (not a single instruction below AVX-512).
+     */
+    private static DoubleVector ceil(DoubleVector x) {
+        DoubleVector magnitude = x.abs();
+        DoubleVector nearest = magnitude.add(INTEGRAL).sub(INTEGRAL);
+        nearest = nearest.blend(nearest.neg(), x.compare(VectorOperators.LT, 0));
+        DoubleVector up = nearest.add(1, nearest.compare(VectorOperators.LT, x));
+        // Math.ceil of (-1, 0] is -0.0 and of 0.0 is 0.0: the sign of x times zero
+        up = up.blend(x.mul(0.0), up.compare(VectorOperators.EQ, 0));
+        return up.blend(x, magnitude.compare(VectorOperators.GE, INTEGRAL));
+    }
+}
@@ -1,13 +1,46 @@
 package com.blackrock.selfinvestment.helper;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 
 public class Helper {
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+
     public static boolean isBetweenInclusive(LocalDateTime target, LocalDateTime start, LocalDateTime end) {
         return (target.equals(start) || target.isAfter(start)) &&
                 (target.equals(end) || target.isBefore(end));
     }
 
+    /**
+     * Convert a timestamp to epoch seconds. Request timestamps use the
+     * "yyyy-MM-dd HH:mm:ss" layout, so second precision is lossless.
+     */
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd HH:mm:ss" timestamp the same way the @JsonFormat bound DTOs do.
+     * @throws java.time.format.DateTimeParseException if the text does not match the layout.
+     */
+    public static LocalDateTime parseDateTime(CharSequence text) {
+        return LocalDateTime.parse(text, DATE_TIME_FORMATTER);
+    }
+
+    /**
+     * Format a timestamp the same way the @JsonFormat bound DTOs are written.
+     */
+    public static String formatDateTime(LocalDateTime dateTime) {
+        return DATE_TIME_FORMATTER.format(dateTime);
+    }
+
     public static double taxPerSalary(double salary) {
         if (salary <= 700000) {
             return 0;
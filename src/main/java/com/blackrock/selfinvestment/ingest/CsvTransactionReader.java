@@ -0,0 +1,334 @@
+package com.blackrock.selfinvestment.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.codec.Timestamps;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.helper.Helper;
+
+/**
+ * Byte-level tokenizer for CSV transaction files (bank-statement exports) that appends rows to a
+ * {@link TransactionBatch} a chunk at a time. Only a fixed read buffer is held, so files of any size
+ * stream through in bounded memory as long as the caller clears the batch between chunks.
+ *
+ * The first line is a header when its first field does not start with a digit; it must then name a
+ * {@code date} and an {@code amount} column and may name {@code ceiling} and {@code remanent}, any other
+ * column is skipped. Without a header the first two columns are date and amount. Fields may be quoted,
+ * lines end in LF or CRLF, blank lines and a UTF-8 byte order mark are ignored.
+ *
+ * Dates ("yyyy-MM-dd HH:mm:ss", through {@link Timestamps}) and plain decimal amounts are converted
+ * straight from the bytes. Anything else falls back to {@link Helper#parseDateTime} and
+ * {@link Double#parseDouble}, so values are read exactly as the JSON endpoints read them.
+ */
+public final class CsvTransactionReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int NO_COLUMN = -1;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean eof;
+    private long line;
+    private boolean started;
+
+    private int dateColumn = 0;
+    private int amountColumn = 1;
+    private int ceilingColumn = NO_COLUMN;
+    private int remanentColumn = NO_COLUMN;
+    private int lastColumn = 1;
+
+    // Fields of the line being parsed
+    private long epochSecond;
+    private double amount;
+    private double ceiling;
+    private double remanent;
+
+    public CsvTransactionReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Append up to maxRows rows to the batch.
+     * @return number of rows appended; 0 once the input is exhausted.
+     * @throws ResponseStatusException with 400 if a line is malformed, naming its line number.
+     */
+    public int read(TransactionBatch batch, int maxRows) {
+        int rows = 0;
+        while (rows < maxRows) {
+            int end = nextLine();
+            if (end < 0) {
+                break;
+            }
+            int start = position;
+            if (skip(start, lineEnd(start, end))) {
+                continue;
+            }
+            batch.add(epochSecond, amount, ceiling, remanent);
+            rows++;
+        }
+        return rows;
+    }
+
+    /**
+     * Whether the rows carry ceiling and remanent columns; known once the first row has been read.
+     */
+    public boolean hasCeiling() {
+        return ceilingColumn != NO_COLUMN && remanentColumn != NO_COLUMN;
+    }
+
+    /**
+     * Parse the line in [start, end) into the row fields.
+     * @return true if the line holds no row (blank or header).
+     */
+    private boolean skip(int start, int end) {
+        if (isBlank(start, end)) {
+            return true;
+        }
+        if (!started) {
+            started = true;
+            if (end - start >= 3 && buffer[start] == (byte) 0xEF && buffer[start + 1] == (byte) 0xBB
+                    && buffer[start + 2] == (byte) 0xBF) {
+                start += 3;
+            }
+            int first = start;
+            while (first < end && (buffer[first] == ' ' || buffer[first] == '"')) {
+                first++;
+            }
+            if (first < end && !isDigit(buffer[first])) {
+                header(start, end);
+                return true;
+            }
+        }
+        row(start, end);
+        return false;
+    }
+
+    private void header(int start, int end) {
+        dateColumn = amountColumn = ceilingColumn = remanentColumn = NO_COLUMN;
+        int column = 0;
+        int p = start;
+        while (p <= end) {
+            int fieldEnd = fieldEnd(p, end);
+            String name = new String(buffer, p, fieldEnd - p, StandardCharsets.UTF_8).replace("\"", "").trim();
+            switch (name.toLowerCase()) {
+                case "date" -> dateColumn = column;
+                case "amount" -> amountColumn = column;
+                case "ceiling" -> ceilingColumn = column;
+                case "remanent" -> remanentColumn = column;
+                default -> { }
+            }
+            column++;
+            p = fieldEnd + 1;
+        }
+        if (dateColumn == NO_COLUMN || amountColumn == NO_COLUMN) {
+            throw bad("header must name a date and an amount column");
+        }
+        lastColumn = Math.max(Math.max(dateColumn, amountColumn), Math.max(ceilingColumn, remanentColumn));
+    }
+
+    private void row(int start, int end) {
+        int found = 0;
+        ceiling = 0;
+        remanent = 0;
+        int column = 0;
+        int p = start;
+        while (p <= end && column <= lastColumn) {
+            int fieldEnd = fieldEnd(p, end);
+            int from = p;
+            int to = fieldEnd;
+            while (from < to && buffer[from] == ' ') {
+                from++;
+            }
+            while (to > from && buffer[to - 1] == ' ') {
+                to--;
+            }
+            if (to - from >= 2 && buffer[from] == '"' && buffer[to - 1] == '"') {
+                from++;
+                to--;
+            }
+            if (column == dateColumn) {
+                epochSecond = date(from, to);
+                found++;
+            } else if (column == amountColumn) {
+                amount = number(from, to, "amount");
+                found++;
+            } else if (column == ceilingColumn) {
+                ceiling = number(from, to, "ceiling");
+            } else if (column == remanentColumn) {
+                remanent = number(from, to, "remanent");
+            }
+            column++;
+            p = fieldEnd + 1;
+        }
+        if (found < 2) {
+            throw bad("missing date or amount");
+        }
+    }
+
+    /**
+     * End of the field starting at p: the next comma outside quotes, or the line end.
+     */
+    private int fieldEnd(int p, int end) {
+        boolean quoted = false;
+        for (; p < end; p++) {
+            byte b = buffer[p];
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                return p;
+            }
+        }
+        return end;
+    }
+
+    private long date(int from, int to) {
+        long epochSecond = Timestamps.epochSecond(buffer, from, to - from);
+        if (epochSecond != Timestamps.INVALID) {
+            return epochSecond;
+        }
+        try {
+            return Helper.toEpochSecond(Helper.parseDateTime(text(from, to)));
+        } catch (DateTimeParseException e) {
+            throw bad("invalid date '" + text(from, to) + "'");
+        }
+    }
+
+    /**
+     * Plain decimals whose digits fit in 53 bits are divided by an exact power of ten, which rounds the
+     * same as {@link Double#parseDouble}; other forms are handed to it.
+     */
+    private double number(int from, int to, String column) {
+        int p = from;
+        boolean negative = p < to && buffer[p] == '-';
+        if (negative) {
+            p++;
+        }
+        long mantissa = 0;
+        int scale = -1;
+        int digits = 0;
+        for (; p < to; p++) {
+            byte b = buffer[p];
+            if (isDigit(b)) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    break;
+                }
+            } else if (b == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                break;
+            }
+        }
+        if (p == to && digits > 0 && scale < POWERS_OF_TEN.length) {
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(text(from, to));
+        } catch (NumberFormatException e) {
+            throw bad("invalid " + column + " '" + text(from, to) + "'");
+        }
+    }
+
+    /**
+     * Index of the next '\n' (or the end of the input) with the whole line in the buffer; -1 at the end.
+     */
+    private int nextLine() {
+        int scanned = position;
+        while (true) {
+            for (int p = scanned; p < limit; p++) {
+                if (buffer[p] == '\n') {
+                    line++;
+                    return p;
+                }
+            }
+            if (eof) {
+                if (position < limit) {
+                    line++;
+                    return limit;
+                }
+                return -1;
+            }
+            scanned = fill();
+        }
+    }
+
+    /**
+     * Move the unread bytes to the front and read more.
+     * @return index from which the new bytes start.
+     */
+    private int fill() {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            line++;
+            throw bad("line longer than " + BUFFER_SIZE + " bytes");
+        }
+        int scanned = limit;
+        try {
+            int n = in.read(buffer, limit, buffer.length - limit);
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return scanned;
+    }
+
+    /**
+     * Consume the line ending at end and return where its content ends (before a '\r').
+     */
+    private int lineEnd(int start, int end) {
+        position = end < limit ? end + 1 : end;
+        return end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int p = start; p < end; p++) {
+            if (buffer[p] != ' ' && buffer[p] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String text(int from, int to) {
+        return new String(buffer, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private ResponseStatusException bad(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV line " + line + ": " + message);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
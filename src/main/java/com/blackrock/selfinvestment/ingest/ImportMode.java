@@ -0,0 +1,28 @@
+package com.blackrock.selfinvestment.ingest;
+
+/**
+ * Rules applied to the rows of a transactions:import file, named after the endpoint with the same rules.
+ */
+public enum ImportMode {
+    PARSE("parse"),
+    VALIDATOR("validator"),
+    FILTER("filter");
+
+    private final String value;
+
+    ImportMode(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the mode with the given name, or null if there is none.
+     */
+    public static ImportMode of(String value) {
+        for (ImportMode mode : values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
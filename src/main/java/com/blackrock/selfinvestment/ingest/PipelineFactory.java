@@ -0,0 +1,19 @@
+package com.blackrock.selfinvestment.ingest;
+
+import com.blackrock.selfinvestment.engine.RowPipeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+
+/**
+ * Creates the row pipeline of a streamed request once its header fields are known.
+ */
+@FunctionalInterface
+public interface PipelineFactory<P extends RowPipeline> {
+
+    /**
+     * @param header transactionFilterDTO holding the header fields read so far (wage, q, p, k); transactions is null.
+     * @param batch TransactionBatch the rows are appended to.
+     * @return pipeline fed with every row of the batch.
+     */
+    P create(transactionFilterDTO header, TransactionBatch batch);
+}
@@ -0,0 +1,33 @@
+package com.blackrock.selfinvestment.ingest;
+
+import java.util.List;
+
+/**
+ * Shapes of the request bodies that carry a transaction array.
+ */
+public enum RequestLayout {
+    /** transactions:parse, a top-level array of transactionsDTO. */
+    TRANSACTIONS(false, List.of()),
+    /** transactions:validator, wage plus an array of parsed transactions. */
+    VALIDATOR(true, List.of("wage")),
+    /** :filter, q/p/k rules and wage plus an array of transactionsDTO. */
+    FILTER(false, List.of("q", "p", "k", "wage"));
+
+    private final boolean parsedRows;
+    private final List<String> headerFields;
+
+    RequestLayout(boolean parsedRows, List<String> headerFields) {
+        this.parsedRows = parsedRows;
+        this.headerFields = headerFields;
+    }
+
+    /** Whether rows carry ceiling and remanent that must be kept. */
+    public boolean hasParsedRows() {
+        return parsedRows;
+    }
+
+    /** Fields that must be known before rows can be processed as they arrive. */
+    public List<String> getHeaderFields() {
+        return headerFields;
+    }
+}
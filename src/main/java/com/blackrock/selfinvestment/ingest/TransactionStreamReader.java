@@ -0,0 +1,248 @@
+package com.blackrock.selfinvestment.ingest;
+
+import java.io.InputStream;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.codec.TimestampDeserializer;
+import com.blackrock.selfinvestment.engine.RowPipeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.instrumentation.Stage;
+import com.blackrock.selfinvestment.instrumentation.StageTimer;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+/**
+ * Token-level reader for request bodies carrying large transaction arrays.
+ * Rows go straight from the parser into a columnar {@link TransactionBatch} and are handed to the
+ * request's pipeline as they arrive, so neither the raw body nor a DTO per row is ever held.
+ *
+ * When a header field the pipeline needs (wage, q, p, k) appears after the transaction array,
+ * rows are buffered in the batch and processed once the body has been read.
+ *
+ * Bodies may be JSON, CBOR or Smile ({@link BodyFormat}); the token stream is the same. A row's
+ * date may also be given as epoch seconds (an integer), which binary callers use to skip date parsing.
+ */
+@Component
+public class TransactionStreamReader {
+
+    private static final TypeReference<List<qMomentsDTO>> Q_LIST = new TypeReference<>() { };
+    private static final TypeReference<List<pMomentsDTO>> P_LIST = new TypeReference<>() { };
+    private static final TypeReference<List<kGroupsDTO>> K_LIST = new TypeReference<>() { };
+
+    private final Map<BodyFormat, ObjectMapper> mappers = new EnumMap<>(BodyFormat.class);
+
+    public TransactionStreamReader(JsonMapper jsonMapper, CBORMapper cborMapper, SmileMapper smileMapper) {
+        mappers.put(BodyFormat.JSON, jsonMapper);
+        mappers.put(BodyFormat.CBOR, cborMapper);
+        mappers.put(BodyFormat.SMILE, smileMapper);
+    }
+
+    /**
+     * Parser over a body in the given format, for callers that walk other arrays token by token.
+     */
+    public JsonParser parser(InputStream body, BodyFormat format) {
+        return mappers.get(format).createParser(body);
+    }
+
+    /**
+     * Read a request body, feeding every transaction into the pipeline built by the factory.
+     * @param body request body.
+     * @param layout RequestLayout of the body.
+     * @param batch TransactionBatch the rows are appended to.
+     * @param factory PipelineFactory called once the header fields are known.
+     * @return the pipeline after every row has been accepted.
+     * @throws ResponseStatusException with 400 if the body is malformed.
+     */
+    public <P extends RowPipeline> P read(InputStream body, RequestLayout layout, TransactionBatch batch,
+            PipelineFactory<P> factory) {
+        return read(body, BodyFormat.JSON, layout, batch, factory);
+    }
+
+    /**
+     * Same as {@link #read(InputStream, RequestLayout, TransactionBatch, PipelineFactory)} for a body in the given format.
+     */
+    public <P extends RowPipeline> P read(InputStream body, BodyFormat format, RequestLayout layout,
+            TransactionBatch batch, PipelineFactory<P> factory) {
+        StageTimer.mark(Stage.DESERIALIZE);
+        try (JsonParser parser = mappers.get(format).createParser(body)) {
+            return read(parser, layout, batch, factory);
+        } catch (JacksonException | DateTimeParseException | NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed request body: " + e.getMessage(), e);
+        } finally {
+            StageTimer.mark(Stage.COMPUTE);
+        }
+    }
+
+    /**
+     * Read a request body into the batch without processing the rows, for callers that run
+     * the whole batch at once (see {@code ParallelBatchExecutor}).
+     * @param body request body.
+     * @param layout RequestLayout of the body.
+     * @param batch TransactionBatch the rows are appended to.
+     * @return the header fields of the body; its transaction list is not set.
+     * @throws ResponseStatusException with 400 if the body is malformed.
+     */
+    public transactionFilterDTO read(InputStream body, RequestLayout layout, TransactionBatch batch) {
+        return read(body, BodyFormat.JSON, layout, batch);
+    }
+
+    /**
+     * Same as {@link #read(InputStream, RequestLayout, TransactionBatch)} for a body in the given format.
+     */
+    public transactionFilterDTO read(InputStream body, BodyFormat format, RequestLayout layout, TransactionBatch batch) {
+        transactionFilterDTO[] header = new transactionFilterDTO[1];
+        read(body, format, layout, batch, (fields, rows) -> {
+            header[0] = fields;
+            return row -> { };
+        });
+        return header[0];
+    }
+
+    /**
+     * Same as {@link #read(InputStream, RequestLayout, TransactionBatch, PipelineFactory)} on an open parser
+     * positioned before the body's first token.
+     */
+    public <P extends RowPipeline> P read(JsonParser parser, RequestLayout layout, TransactionBatch batch,
+            PipelineFactory<P> factory) {
+        transactionFilterDTO header = new transactionFilterDTO(null, null, null, 0, null);
+        P pipeline = null;
+
+        JsonToken token = parser.nextToken();
+        if (layout == RequestLayout.TRANSACTIONS) {
+            pipeline = factory.create(header, batch);
+            readRows(parser, token, layout, batch, pipeline);
+            return pipeline;
+        }
+
+        expect(parser, token, JsonToken.START_OBJECT);
+        List<String> headerFields = layout.getHeaderFields();
+        int seenHeader = 0; // bit per header field
+        int from = batch.size();
+
+        String name;
+        while ((name = parser.nextName()) != null) {
+            token = parser.nextToken();
+            int field = headerFields.indexOf(name);
+            if (field >= 0) {
+                readHeaderField(parser, token, name, header);
+                seenHeader |= 1 << field;
+            } else if (name.equals("transactions")) {
+                if (pipeline == null && seenHeader == (1 << headerFields.size()) - 1) {
+                    pipeline = factory.create(header, batch);
+                    from = batch.size();
+                }
+                readRows(parser, token, layout, batch, pipeline);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (pipeline == null) {
+            // header completed after the rows: replay the buffered rows
+            pipeline = factory.create(header, batch);
+            for (int row = from; row < batch.size(); row++) {
+                pipeline.accept(row);
+            }
+        }
+        return pipeline;
+    }
+
+    private void readHeaderField(JsonParser parser, JsonToken token, String name, transactionFilterDTO header) {
+        switch (name) {
+            case "wage" -> header.setWage(readDouble(parser, token));
+            case "q" -> header.setQ(token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Q_LIST));
+            case "p" -> header.setP(token == JsonToken.VALUE_NULL ? null : parser.readValueAs(P_LIST));
+            case "k" -> header.setK(token == JsonToken.VALUE_NULL ? null : parser.readValueAs(K_LIST));
+            default -> parser.skipChildren();
+        }
+    }
+
+    private void readRows(JsonParser parser, JsonToken token, RequestLayout layout, TransactionBatch batch,
+            RowPipeline pipeline) {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            readRow(parser, layout, batch);
+            if (pipeline != null) {
+                pipeline.accept(batch.size() - 1);
+            }
+        }
+    }
+
+    private void readRow(JsonParser parser, RequestLayout layout, TransactionBatch batch) {
+        long epochSecond = 0;
+        boolean hasDate = false;
+        double amount = 0;
+        double ceiling = 0;
+        double remanent = 0;
+
+        String name;
+        while ((name = parser.nextName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (name) {
+                case "date" -> {
+                    if (token == JsonToken.VALUE_NUMBER_INT) {
+                        epochSecond = parser.getLongValue();
+                    } else if (token == JsonToken.VALUE_STRING) {
+                        epochSecond = TimestampDeserializer.epochSecond(parser);
+                    } else {
+                        throw badRow(parser, "date must be a \"" + Helper.DATE_TIME_PATTERN
+                                + "\" string or epoch seconds");
+                    }
+                    hasDate = true;
+                }
+                case "amount" -> amount = readDouble(parser, token);
+                case "ceiling" -> ceiling = layout.hasParsedRows() ? readDouble(parser, token) : 0;
+                case "remanent" -> remanent = layout.hasParsedRows() ? readDouble(parser, token) : 0;
+                default -> parser.skipChildren();
+            }
+        }
+        if (!hasDate) {
+            throw badRow(parser, "date is required");
+        }
+        batch.add(epochSecond, amount, ceiling, remanent);
+    }
+
+    private static double readDouble(JsonParser parser, JsonToken token) {
+        return switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_STRING -> Double.parseDouble(parser.getString().trim());
+            case VALUE_NULL -> 0;
+            default -> throw badRow(parser, "expected a number for \"" + parser.currentName() + "\"");
+        };
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw badRow(parser, "expected " + expected + " but found " + actual);
+        }
+    }
+
+    private static ResponseStatusException badRow(JsonParser parser, String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Malformed request body at " + parser.currentLocation().offsetDescription() + ": " + message);
+    }
+}
@@ -0,0 +1,99 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the handler of a request served on a virtual thread on a platform thread, so that the
+ * {@link StageTimer} can read thread CPU time and allocated bytes, which the JVM does not report
+ * for virtual threads (JDK 21). The handler covers all three stages: reading the body, the
+ * controller and writing the response. Filters, and with them bulkhead and load-shedding waits,
+ * stay on the virtual thread, which waits for the handler without holding a platform thread.
+ *
+ * The platform threads are a fixed pool: a slow client holds one of them while its body is read,
+ * and requests beyond the pool wait in its queue on their virtual threads. Requests already on a
+ * platform thread, or not timed, are handled in place.
+ */
+public class PlatformThreadHandlerAdapter extends RequestMappingHandlerAdapter implements DisposableBean {
+
+    private final ExecutorService threads;
+
+    public PlatformThreadHandlerAdapter(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "request-handler-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected ModelAndView handleInternal(HttpServletRequest request, HttpServletResponse response,
+            HandlerMethod handlerMethod) throws Exception {
+
+        StageTimer timer = StageTimer.current();
+        if (timer == null || !Thread.currentThread().isVirtual()) {
+            return super.handleInternal(request, response, handlerMethod);
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        LocaleContext locale = LocaleContextHolder.getLocaleContext();
+        SecurityContext security = SecurityContextHolder.getContext();
+        timer.detach();
+        Future<ModelAndView> result = threads.submit(() -> {
+            timer.attach();
+            RequestContextHolder.setRequestAttributes(attributes);
+            LocaleContextHolder.setLocaleContext(locale);
+            SecurityContextHolder.setContext(security);
+            try {
+                return super.handleInternal(request, response, handlerMethod);
+            } finally {
+                SecurityContextHolder.clearContext();
+                LocaleContextHolder.resetLocaleContext();
+                RequestContextHolder.resetRequestAttributes();
+                timer.detach();
+            }
+        });
+
+        // The handler owns the request until it returns, so an interrupt cannot end the wait early
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw (Error) e.getCause();
+                }
+            }
+        } finally {
+            timer.attach();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        threads.shutdownNow();
+    }
+}
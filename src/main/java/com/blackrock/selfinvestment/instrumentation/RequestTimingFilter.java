@@ -0,0 +1,141 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request by stage (deserialize, compute, serialize) with a {@link StageTimer}.
+ * Each stage is recorded as Micrometer meters tagged with the endpoint and stage:
+ * {@code app.request.stage.wall} and {@code app.request.stage.cpu} timers and the
+ * {@code app.request.stage.allocated} summary in bytes. The stages are also reported to the
+ * client in a Server-Timing header, added when the response body starts (see {@link StageTimingAdvice}).
+ *
+ * Only the request thread is measured, or the platform thread its handler runs on (see
+ * {@link PlatformThreadHandlerAdapter}): the body of a streamed (async) response is written on
+ * another thread and is not part of the stages. The request's total latency, up to completion
+ * of an async response, is also fed to {@link RollingMetrics} for the /performance percentiles.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING = "Server-Timing";
+    /** Request attribute holding the request's start time in epoch milliseconds. */
+    public static final String REQUEST_START_ATTRIBUTE = "com.blackrock.selfinvestment.instrumentation.RequestTimingFilter.start";
+
+    private static final String UNMATCHED = "UNMATCHED";
+
+    private final MeterRegistry registry;
+    private final RollingMetrics rollingMetrics;
+
+    public RequestTimingFilter(MeterRegistry registry, RollingMetrics rollingMetrics) {
+        this.registry = registry;
+        this.rollingMetrics = rollingMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        boolean hasBody = request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+        StageTimer timer = StageTimer.start(hasBody ? Stage.DESERIALIZE : Stage.COMPUTE);
+        request.setAttribute(REQUEST_START_ATTRIBUTE, timer.getStartMillis());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            timer.stop();
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING)) {
+                response.setHeader(SERVER_TIMING, timer.serverTiming());
+            }
+            String endpoint = endpoint(request);
+            record(endpoint, timer);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new CompletionListener(endpoint, timer));
+            } else {
+                rollingMetrics.record(endpoint, timer.totalNanos());
+            }
+        }
+    }
+
+    private void record(String endpoint, StageTimer timer) {
+        for (Stage stage : Stage.values()) {
+            if (!timer.entered(stage)) continue;
+            String name = stage.getMetricName();
+            Timer.builder("app.request.stage.wall")
+                    .description("Wall time of a request stage")
+                    .tags("endpoint", endpoint, "stage", name)
+                    .register(registry)
+                    .record(timer.wallNanos(stage), TimeUnit.NANOSECONDS);
+            long cpu = timer.cpuNanos(stage);
+            if (cpu >= 0) {
+                Timer.builder("app.request.stage.cpu")
+                        .description("Request thread CPU time of a request stage")
+                        .tags("endpoint", endpoint, "stage", name)
+                        .register(registry)
+                        .record(cpu, TimeUnit.NANOSECONDS);
+            }
+            long allocated = timer.allocatedBytes(stage);
+            if (allocated >= 0) {
+                DistributionSummary.builder("app.request.stage.allocated")
+                        .description("Bytes allocated by the request thread during a request stage")
+                        .baseUnit("bytes")
+                        .tags("endpoint", endpoint, "stage", name)
+                        .register(registry)
+                        .record(allocated);
+            }
+        }
+    }
+
+    /**
+     * Mapped path pattern of the request; requests rejected before dispatch share one tag value.
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMATCHED;
+    }
+
+    /**
+     * Records the latency of an async request when it completes; timeouts and errors complete it too.
+     */
+    private final class CompletionListener implements AsyncListener {
+        private final String endpoint;
+        private final StageTimer timer;
+
+        CompletionListener(String endpoint, StageTimer timer) {
+            this.endpoint = endpoint;
+            this.timer = timer;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            rollingMetrics.record(endpoint, timer.totalNanos());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
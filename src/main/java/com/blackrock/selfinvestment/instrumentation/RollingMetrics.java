@@ -0,0 +1,221 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.IntCountsHistogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding-window request latency per endpoint and the JVM allocation rate, reported by /performance.
+ *
+ * Requests record into an HdrHistogram {@link Recorder} per endpoint, which is wait-free for
+ * writers: the request path pays a map lookup and a counter increment. Every {@link #TICK} the
+ * recorded interval is moved into two rings of slots, 5-second slots for the 1-minute window and
+ * 1-minute slots for the 15-minute window, and a read rolls once more before merging the slots.
+ * A window therefore covers its nominal length give or take the partly elapsed current slot.
+ */
+@Component
+public class RollingMetrics implements AutoCloseable {
+
+    public static final Duration ONE_MINUTE = Duration.ofMinutes(1);
+    public static final Duration FIFTEEN_MINUTES = Duration.ofMinutes(15);
+
+    static final Duration TICK = Duration.ofSeconds(5);
+
+    /** Latencies are kept in microseconds, 2 significant digits, up to a minute (longer ones are clamped). */
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+    private final LongSupplier allocatedBytes;
+    private final ScheduledExecutorService ticker;
+
+    /** Allocated-bytes samples taken at each tick, oldest overwritten first. */
+    private final long[] sampleNanos = new long[(int) (FIFTEEN_MINUTES.toNanos() / TICK.toNanos()) + 1];
+    private final long[] sampleBytes = new long[sampleNanos.length];
+    private int samples;
+    private int nextSample;
+
+    @Autowired
+    public RollingMetrics() {
+        this(System::nanoTime, RollingMetrics::totalAllocatedBytes);
+        ticker.scheduleAtFixedRate(this::tick, TICK.toNanos(), TICK.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Unscheduled instance driven by {@link #tick()}; for tests.
+     */
+    RollingMetrics(LongSupplier clock, LongSupplier allocatedBytes) {
+        this.clock = clock;
+        this.allocatedBytes = allocatedBytes;
+        this.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "rolling-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tick();
+    }
+
+    /**
+     * Record one request's latency against its endpoint.
+     */
+    public void record(String endpoint, long nanos) {
+        EndpointLatency latency = endpoints.get(endpoint);
+        if (latency == null) {
+            latency = endpoints.computeIfAbsent(endpoint, name -> new EndpointLatency());
+        }
+        latency.recorder.recordValue(Math.max(0, Math.min(HIGHEST_MICROS, nanos / 1_000)));
+    }
+
+    /**
+     * Latency histogram (in microseconds) of every endpoint seen, over the window ending now.
+     * @param window {@link #ONE_MINUTE} or {@link #FIFTEEN_MINUTES}.
+     * @return fresh histograms keyed and sorted by endpoint.
+     */
+    public Map<String, AbstractHistogram> latency(Duration window) {
+        long now = clock.getAsLong();
+        Map<String, AbstractHistogram> result = new TreeMap<>();
+        endpoints.forEach((endpoint, latency) -> result.put(endpoint, latency.snapshot(window, now)));
+        return result;
+    }
+
+    /**
+     * Heap bytes allocated per second by all threads over the window, or -1 if the JVM does not
+     * report allocations or no sample is old enough yet.
+     */
+    public synchronized double allocationRate(Duration window) {
+        long now = clock.getAsLong();
+        long bytes = allocatedBytes.getAsLong();
+        if (bytes < 0 || samples == 0) {
+            return -1;
+        }
+        // Oldest sample inside the window, or the newest one if the window is shorter than a tick
+        int oldest = (nextSample - samples + sampleNanos.length) % sampleNanos.length;
+        int chosen = (nextSample - 1 + sampleNanos.length) % sampleNanos.length;
+        for (int i = 0; i < samples; i++) {
+            int index = (oldest + i) % sampleNanos.length;
+            if (now - sampleNanos[index] <= window.toNanos()) {
+                chosen = index;
+                break;
+            }
+        }
+        long elapsed = now - sampleNanos[chosen];
+        return elapsed <= 0 ? -1 : (bytes - sampleBytes[chosen]) * 1e9 / elapsed;
+    }
+
+    /**
+     * Roll every endpoint's recorded interval into the windows and sample the allocation counter.
+     */
+    void tick() {
+        long now = clock.getAsLong();
+        for (EndpointLatency latency : endpoints.values()) {
+            latency.roll(now);
+        }
+        long bytes = allocatedBytes.getAsLong();
+        if (bytes >= 0) {
+            synchronized (this) {
+                sampleNanos[nextSample] = now;
+                sampleBytes[nextSample] = bytes;
+                nextSample = (nextSample + 1) % sampleNanos.length;
+                samples = Math.min(samples + 1, sampleNanos.length);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+    }
+
+    private static long totalAllocatedBytes() {
+        try {
+            return ALLOCATIONS.isThreadAllocatedMemoryEnabled() ? ALLOCATIONS.getTotalThreadAllocatedBytes() : -1;
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static AbstractHistogram newHistogram() {
+        return new IntCountsHistogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Recorder of one endpoint and its two rings. Only the ticker and readers lock it; writers never do.
+     */
+    private static final class EndpointLatency {
+        private final Recorder recorder = new Recorder(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        private final SlotRing minute = new SlotRing(ONE_MINUTE, TICK);
+        private final SlotRing quarter = new SlotRing(FIFTEEN_MINUTES, ONE_MINUTE);
+        private Histogram interval;
+        private long lastRoll = Long.MIN_VALUE;
+
+        synchronized void roll(long now) {
+            // A tick and a read may race; never roll into a slot older than the last one
+            lastRoll = Math.max(lastRoll, now);
+            interval = recorder.getIntervalHistogram(interval);
+            if (interval.getTotalCount() > 0) {
+                minute.add(interval, lastRoll);
+                quarter.add(interval, lastRoll);
+            }
+        }
+
+        synchronized AbstractHistogram snapshot(Duration window, long now) {
+            roll(now);
+            AbstractHistogram merged = newHistogram();
+            (window.compareTo(ONE_MINUTE) <= 0 ? minute : quarter).mergeInto(merged, lastRoll);
+            return merged;
+        }
+    }
+
+    /**
+     * Fixed ring of histograms, one per slot of time; a slot is cleared when its position is reused.
+     */
+    private static final class SlotRing {
+        private final long slotNanos;
+        private final AbstractHistogram[] slots;
+        private final long[] slotIds;
+
+        SlotRing(Duration window, Duration slot) {
+            this.slotNanos = slot.toNanos();
+            this.slots = new AbstractHistogram[(int) (window.toNanos() / slotNanos)];
+            this.slotIds = new long[slots.length];
+        }
+
+        void add(Histogram interval, long now) {
+            long id = Math.floorDiv(now, slotNanos);
+            int index = (int) Math.floorMod(id, slots.length);
+            if (slots[index] == null) {
+                slots[index] = newHistogram();
+            } else if (slotIds[index] != id) {
+                slots[index].reset();
+            }
+            slotIds[index] = id;
+            slots[index].add(interval);
+        }
+
+        void mergeInto(AbstractHistogram target, long now) {
+            long current = Math.floorDiv(now, slotNanos);
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null && current - slotIds[i] < slots.length) {
+                    target.add(slots[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+/**
+ * Request stages timed by {@link RequestTimingFilter}.
+ */
+public enum Stage {
+    /** Reading and binding the request body. */
+    DESERIALIZE("deserialize"),
+    /** The controller and services. */
+    COMPUTE("compute"),
+    /** Writing the response body. */
+    SERIALIZE("serialize");
+
+    private final String metricName;
+
+    Stage(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
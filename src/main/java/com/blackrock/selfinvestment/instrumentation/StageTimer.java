@@ -0,0 +1,201 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Wall time, thread CPU time and allocated bytes of one request, split by {@link Stage}.
+ * The timer belongs to the request thread; code on that thread moves it to the next stage with
+ * {@link #mark(Stage)}, which does nothing when no request is being timed.
+ *
+ * CPU time and allocation come from the thread's {@link ThreadMXBean} counters. The JVM does not
+ * report them for virtual threads (JDK 21), so {@link PlatformThreadHandlerAdapter} moves the timer
+ * with {@link #detach()} and {@link #attach()} to the platform thread that runs the handler; only
+ * the time spent there is counted. A request that never reaches a platform thread records wall time only.
+ */
+public final class StageTimer {
+
+    private static final ThreadLocal<StageTimer> CURRENT = new ThreadLocal<>();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS =
+            THREADS instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()
+                    ? bean : null;
+    private static final int STAGES = Stage.values().length;
+
+    private final long startMillis;
+    private final long startNanos;
+    private final long[] wallNanos = new long[STAGES];
+    private final long[] cpuNanos = new long[STAGES];
+    private final long[] allocatedBytes = new long[STAGES];
+    private final boolean[] entered = new boolean[STAGES];
+    /** Whether any CPU time or allocation was counted, i.e. the request ran on a platform thread. */
+    private boolean cpuSupported;
+    private boolean allocationSupported;
+    /** Whether the thread the timer is attached to reports the counters. */
+    private boolean sampleCpu;
+    private boolean sampleAllocation;
+
+    private Stage stage;
+    private long stageWall;
+    private long stageCpu;
+    private long stageAllocated;
+
+    private StageTimer(Stage first) {
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        this.stage = first;
+        this.stageWall = startNanos;
+        entered[first.ordinal()] = true;
+        sampleThread();
+    }
+
+    /**
+     * Start timing the current thread's request.
+     */
+    static StageTimer start(Stage first) {
+        StageTimer timer = new StageTimer(first);
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * Timer of the request running on this thread, or null.
+     */
+    public static StageTimer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Close the running stage of this thread's request and start the next one.
+     */
+    public static void mark(Stage next) {
+        StageTimer timer = CURRENT.get();
+        if (timer != null && timer.stage != next) {
+            timer.closeStage();
+            timer.stage = next;
+            timer.entered[next.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Close the running stage and detach the timer from the thread.
+     */
+    void stop() {
+        if (stage != null) {
+            closeStage();
+            stage = null;
+        }
+        CURRENT.remove();
+    }
+
+    /**
+     * Count the running stage's CPU time and allocation on this thread so far and detach the timer,
+     * before the request moves to another thread. Wall time carries on.
+     */
+    void detach() {
+        if (stage != null) {
+            sampleCounters(stage.ordinal());
+        }
+        sampleCpu = false;
+        sampleAllocation = false;
+        CURRENT.remove();
+    }
+
+    /**
+     * Continue timing on this thread, counting its CPU time and allocation from now on if it reports them.
+     */
+    void attach() {
+        CURRENT.set(this);
+        sampleThread();
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public boolean entered(Stage stage) {
+        return entered[stage.ordinal()];
+    }
+
+    public long wallNanos(Stage stage) {
+        return wallNanos[stage.ordinal()];
+    }
+
+    /** CPU nanoseconds of the stage, or -1 when the thread does not report CPU time. */
+    public long cpuNanos(Stage stage) {
+        return cpuSupported ? cpuNanos[stage.ordinal()] : -1;
+    }
+
+    /** Bytes allocated by the stage, or -1 when the thread does not report allocation. */
+    public long allocatedBytes(Stage stage) {
+        return allocationSupported ? allocatedBytes[stage.ordinal()] : -1;
+    }
+
+    /**
+     * Server-Timing header value of the stages closed so far, e.g.
+     * {@code deserialize;dur=1.204;desc="cpu=1.010ms alloc=81920B", compute;dur=0.310}.
+     */
+    public String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Stage each : Stage.values()) {
+            if (!entered(each) || each == stage) continue;
+            if (header.length() > 0) header.append(", ");
+            header.append(each.getMetricName()).append(";dur=").append(millis(wallNanos(each)));
+            if (cpuSupported || allocationSupported) {
+                header.append(";desc=\"");
+                if (cpuSupported) header.append("cpu=").append(millis(cpuNanos(each))).append("ms");
+                if (cpuSupported && allocationSupported) header.append(' ');
+                if (allocationSupported) header.append("alloc=").append(allocatedBytes(each)).append('B');
+                header.append('"');
+            }
+        }
+        return header.toString();
+    }
+
+    private void closeStage() {
+        int i = stage.ordinal();
+        long wall = System.nanoTime();
+        wallNanos[i] += wall - stageWall;
+        stageWall = wall;
+        sampleCounters(i);
+    }
+
+    private void sampleCounters(int i) {
+        if (sampleCpu) {
+            long cpu = threadCpuTime();
+            cpuNanos[i] += cpu - stageCpu;
+            stageCpu = cpu;
+        }
+        if (sampleAllocation) {
+            long allocated = threadAllocatedBytes();
+            allocatedBytes[i] += allocated - stageAllocated;
+            stageAllocated = allocated;
+        }
+    }
+
+    private void sampleThread() {
+        stageCpu = threadCpuTime();
+        stageAllocated = threadAllocatedBytes();
+        sampleCpu = stageCpu >= 0;
+        sampleAllocation = stageAllocated >= 0;
+        cpuSupported |= sampleCpu;
+        allocationSupported |= sampleAllocation;
+    }
+
+    private static long threadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long threadAllocatedBytes() {
+        return ALLOCATIONS != null ? ALLOCATIONS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,112 @@
+package com.blackrock.selfinvestment.jobs;
+
+import java.util.concurrent.CancellationException;
+
+import com.blackrock.selfinvestment.models.JobDTO;
+
+/**
+ * One submitted computation. Progress is counted in units of work (rows, or requests) out of a
+ * total known at submission; only the worker running the job advances it.
+ */
+public final class Job {
+
+    private final String id;
+    private final String type;
+    private final long total;
+    private final long submittedNanos;
+    private volatile long processed;
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private long finishedNanos;
+    private JobResult result;
+    private String error;
+    Runnable runner;
+
+    Job(String id, String type, long total, long submittedNanos) {
+        this.id = id;
+        this.type = type;
+        this.total = total;
+        this.submittedNanos = submittedNanos;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Count units of work as done.
+     * @throws CancellationException if the job has been cancelled, to stop the task.
+     */
+    public void advance(long units) {
+        if (status == JobStatus.CANCELLED) {
+            throw new CancellationException();
+        }
+        processed += units;
+    }
+
+    /**
+     * @return the value of a succeeded job, otherwise null.
+     */
+    public synchronized Object value() {
+        return status == JobStatus.SUCCEEDED ? result.value() : null;
+    }
+
+    public synchronized JobDTO summary() {
+        long elapsed = (status.isFinal() ? finishedNanos : System.nanoTime()) - submittedNanos;
+        return new JobDTO(id, type, status, processed, total, elapsed / 1_000_000, error);
+    }
+
+    synchronized long weight() {
+        return result == null ? 0 : result.weight();
+    }
+
+    synchronized long finishedNanos() {
+        return finishedNanos;
+    }
+
+    /**
+     * Move a queued job to RUNNING.
+     * @return false if it was cancelled while queued.
+     */
+    synchronized boolean start() {
+        if (status != JobStatus.QUEUED) {
+            return false;
+        }
+        status = JobStatus.RUNNING;
+        return true;
+    }
+
+    /**
+     * Request cancellation: a queued job is cancelled at once, a running one at its next {@link #advance}.
+     * @return false if the job had already finished.
+     */
+    synchronized boolean cancel() {
+        if (status.isFinal()) {
+            return false;
+        }
+        status = JobStatus.CANCELLED;
+        finishedNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Record the outcome of the task, unless the job was cancelled meanwhile.
+     * @return false if the job had been cancelled and the outcome was dropped.
+     */
+    synchronized boolean finish(JobResult result, String error) {
+        if (status == JobStatus.CANCELLED) {
+            return false;
+        }
+        this.result = result;
+        this.error = error;
+        if (result != null) {
+            processed = total;
+        }
+        status = result != null ? JobStatus.SUCCEEDED : JobStatus.FAILED;
+        finishedNanos = System.nanoTime();
+        return true;
+    }
+}
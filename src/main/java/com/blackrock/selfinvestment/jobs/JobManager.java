@@ -0,0 +1,219 @@
+package com.blackrock.selfinvestment.jobs;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs submitted {@link Job}s on a fixed pool of workers fed by a bounded queue. A submission that
+ * finds the queue full is refused, so callers get backpressure instead of an ever growing backlog.
+ *
+ * Finished jobs are retained, oldest first out, while the estimated weight of their results stays
+ * under the configured maximum and for at most the retention TTL; an evicted job is gone (404).
+ * Queued and running jobs are never evicted: they are bounded by the queue capacity and pool size.
+ *
+ * Published meters: {@code app.jobs.rejected}, {@code app.jobs.evictions} (tag cause=size|expired)
+ * and the {@code app.jobs.queued} and {@code app.jobs.retained.weight} gauges.
+ */
+@Component
+public class JobManager implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobManager.class);
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    /** Finished jobs in the order they finished. */
+    private final Map<String, Job> finished = new LinkedHashMap<>();
+    private final ThreadPoolExecutor workers;
+    private final long maxWeight;
+    private final long ttlNanos;
+    private long weight;
+
+    private final Counter rejected;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public JobManager(@Value("${app.jobs.workers:2}") int workers,
+            @Value("${app.jobs.queue-capacity:64}") int queueCapacity,
+            @Value("${app.jobs.retention.max-size:256MB}") DataSize maxSize,
+            @Value("${app.jobs.retention.ttl:1h}") Duration ttl, MeterRegistry registry) {
+        AtomicInteger count = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), task -> {
+                    Thread thread = new Thread(task, "job-worker-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxWeight = maxSize.toBytes();
+        this.ttlNanos = ttl.toNanos();
+        this.rejected = Counter.builder("app.jobs.rejected")
+                .description("Job submissions refused because the job queue was full")
+                .register(registry);
+        this.sizeEvictions = evictions(registry, "size");
+        this.expiredEvictions = evictions(registry, "expired");
+        Gauge.builder("app.jobs.queued", this.workers, pool -> pool.getQueue().size())
+                .description("Jobs waiting for a worker")
+                .register(registry);
+        Gauge.builder("app.jobs.retained.weight", this, JobManager::weight)
+                .description("Estimated heap retained by the results of finished jobs")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Queue a job.
+     * @param type name reported in the job summary.
+     * @param total units of work the task will report through {@link Job#advance(long)}.
+     * @param task JobTask run on a worker.
+     * @return the queued job, or null if the queue is full.
+     */
+    public Job submit(String type, long total, JobTask task) {
+        expire();
+        Job job = new Job(UUID.randomUUID().toString(), type, total, System.nanoTime());
+        job.runner = () -> run(job, task);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(job.runner);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejected.increment();
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * @return the job, or null if it is unknown or has been evicted.
+     */
+    public Job get(String id) {
+        expire();
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancel a queued or running job; its queue slot is released at once.
+     * @return the job, or null if it is unknown or has been evicted.
+     */
+    public Job cancel(String id) {
+        Job job = get(id);
+        if (job != null && job.cancel()) {
+            workers.remove(job.runner);
+            retain(job);
+        }
+        return job;
+    }
+
+    /**
+     * Cancel the job if it has not finished and forget it.
+     * @return false if the job is unknown or has been evicted.
+     */
+    public boolean remove(String id) {
+        Job job = cancel(id);
+        if (job == null) {
+            return false;
+        }
+        synchronized (finished) {
+            if (finished.remove(id) != null) {
+                weight -= job.weight();
+            }
+            jobs.remove(id);
+        }
+        return true;
+    }
+
+    /**
+     * Estimated bytes retained by the results of finished jobs.
+     */
+    public long weight() {
+        synchronized (finished) {
+            return weight;
+        }
+    }
+
+    private void run(Job job, JobTask task) {
+        if (!job.start()) {
+            return;
+        }
+        JobResult result = null;
+        String error = null;
+        try {
+            result = task.run(job);
+        } catch (CancellationException e) {
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Job {} failed", job.getId(), e);
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        }
+        if (job.finish(result, error)) {
+            retain(job);
+        }
+    }
+
+    private void retain(Job job) {
+        synchronized (finished) {
+            if (!jobs.containsKey(job.getId()) || finished.putIfAbsent(job.getId(), job) != null) {
+                return;
+            }
+            weight += job.weight();
+            Iterator<Job> eldest = finished.values().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                remove(eldest, eldest.next());
+                sizeEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Drop the finished jobs older than the TTL; they are at the head of the finish order.
+     */
+    private void expire() {
+        long now = System.nanoTime();
+        synchronized (finished) {
+            Iterator<Job> eldest = finished.values().iterator();
+            while (eldest.hasNext()) {
+                Job job = eldest.next();
+                if (now - job.finishedNanos() < ttlNanos) {
+                    break;
+                }
+                remove(eldest, job);
+                expiredEvictions.increment();
+            }
+        }
+    }
+
+    private void remove(Iterator<Job> eldest, Job job) {
+        eldest.remove();
+        weight -= job.weight();
+        jobs.remove(job.getId());
+    }
+
+    private static Counter evictions(MeterRegistry registry, String cause) {
+        return Counter.builder("app.jobs.evictions")
+                .description("Finished jobs dropped with their results")
+                .tag("cause", cause)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
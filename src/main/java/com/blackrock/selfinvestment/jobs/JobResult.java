@@ -0,0 +1,8 @@
+package com.blackrock.selfinvestment.jobs;
+
+/**
+ * Value produced by a job, with an estimate of the heap it retains; the estimate is what
+ * counts against {@code app.jobs.retention.max-size}.
+ */
+public record JobResult(Object value, long weight) {
+}
@@ -0,0 +1,16 @@
+package com.blackrock.selfinvestment.jobs;
+
+/**
+ * Life cycle of a {@link Job}: QUEUED, then RUNNING, then one of the final states.
+ */
+public enum JobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinal() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.blackrock.selfinvestment.jobs;
+
+/**
+ * Work of a job, run on a job worker. Long tasks report progress through {@link Job#advance(long)},
+ * which also ends the task with a CancellationException once the job has been cancelled.
+ */
+@FunctionalInterface
+public interface JobTask {
+
+    JobResult run(Job job);
+}
@@ -0,0 +1,231 @@
+package com.blackrock.selfinvestment.ledger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.blackrock.selfinvestment.engine.LedgerIndex;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+
+/**
+ * Append-only transaction log of one ledger: a directory of {@link SegmentFile}s named by their
+ * sequence number, plus an optional checkpoint of the ledger's {@link LedgerIndex}.
+ *
+ * Recovery loads the checkpoint and replays only the records appended after it, so reopening a
+ * ledger costs O(distinct times) plus the tail instead of re-indexing the whole history. The log
+ * is consistent up to the first segment that is not full: a crash during an append can lose a
+ * suffix of that append, never earlier records, and a crash while rolling over can leave a newest
+ * segment without a header, which holds no records and is removed on open.
+ *
+ * Not thread-safe; the owning {@link LedgerSession} serializes access.
+ */
+public final class LedgerLog implements AutoCloseable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT = "checkpoint.dat";
+    private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+    private static final int CHECKPOINT_MAGIC = 0x4C444743; // "LDGC"
+    private static final int CHECKPOINT_VERSION = 2;
+    /** Rows read per batch while replaying. */
+    private static final int REPLAY_CHUNK = 65536;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean force;
+    /** Segment files in order and their committed record counts. */
+    private final List<Path> segments = new ArrayList<>();
+    private final List<Integer> counts = new ArrayList<>();
+    private SegmentFile tail;
+    private long records;
+    private long checkpointed;
+
+    private LedgerLog(Path directory, int segmentRecords, boolean force) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.force = force;
+    }
+
+    /**
+     * Open the log in the directory, creating it if needed. Segments after the first one that
+     * is not full cannot hold committed records and are deleted, as is a newest segment whose
+     * header is missing or torn.
+     * @param segmentRecords capacity of new segments, in records.
+     * @param force whether every append is flushed to the device before it returns.
+     */
+    public static LedgerLog open(Path directory, int segmentRecords, boolean force) throws IOException {
+        Files.createDirectories(directory);
+        LedgerLog log = new LedgerLog(directory, segmentRecords, force);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            if (log.tail != null && !log.tail.isFull()) {
+                Files.delete(file);
+                continue;
+            }
+            SegmentFile segment;
+            try {
+                segment = SegmentFile.open(file);
+            } catch (SegmentFile.TornHeaderException e) {
+                if (i < files.size() - 1) {
+                    log.close();
+                    throw e; // an older segment was committed to, its records cannot be skipped
+                }
+                Files.delete(file);
+                continue;
+            }
+            if (log.tail != null) {
+                log.tail.close();
+            }
+            log.tail = segment;
+            log.segments.add(file);
+            log.counts.add(log.tail.count());
+            log.records += log.tail.count();
+        }
+        return log;
+    }
+
+    /**
+     * Append every row of the batch, rolling over to new segments as they fill.
+     */
+    public void append(TransactionBatch batch) throws IOException {
+        int row = 0;
+        while (row < batch.size()) {
+            if (tail == null || tail.isFull()) {
+                roll();
+            }
+            int written = tail.append(batch, row, batch.size(), force);
+            counts.set(counts.size() - 1, tail.count());
+            records += written;
+            row += written;
+        }
+    }
+
+    /**
+     * Rebuild the ledger's index: from the checkpoint when there is a usable one, then from the
+     * records appended after it. A checkpoint that cannot be used is deleted, so that one ahead
+     * of the log is not taken as valid once later appends catch up with it.
+     * @param monthlySalary wage of the ledger.
+     * @param timeline MomentTimeline of the ledger's q and p moments.
+     */
+    public LedgerIndex recover(double monthlySalary, MomentTimeline timeline) throws IOException {
+        LedgerIndex index = null;
+        long from = 0;
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            boolean usable = false;
+            try (FileChannel channel = FileChannel.open(checkpoint, StandardOpenOption.READ)) {
+                MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                long covered = in.getInt() == CHECKPOINT_MAGIC && in.getInt() == CHECKPOINT_VERSION ? in.getLong() : -1;
+                // A checkpoint ahead of the log (records lost in an OS crash) is discarded
+                if (covered >= 0 && covered <= records) {
+                    index = LedgerIndex.readCheckpoint(in, monthlySalary, timeline);
+                    from = covered;
+                    usable = true;
+                }
+            } catch (RuntimeException e) {
+                index = null; // unreadable checkpoint: replay everything
+                from = 0;
+            }
+            if (!usable) {
+                Files.delete(checkpoint);
+            }
+        }
+        if (index == null) {
+            index = new LedgerIndex(monthlySalary, timeline);
+        }
+        replay(from, index);
+        checkpointed = from;
+        return index;
+    }
+
+    /**
+     * Save the index as covering every record appended so far. The checkpoint is written to a
+     * temporary file and moved into place, so a crash leaves either the old or the new one.
+     */
+    public void checkpoint(LedgerIndex index) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT_TMP);
+        long size = 2L * Integer.BYTES + Long.BYTES + index.checkpointBytes();
+        if (size > Integer.MAX_VALUE) {
+            return; // larger than one mapping; recovery replays the log instead
+        }
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(CHECKPOINT_MAGIC);
+            out.putInt(CHECKPOINT_VERSION);
+            out.putLong(records);
+            index.writeCheckpoint(out);
+            out.force();
+        }
+        Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        checkpointed = records;
+    }
+
+    /** Records in the log. */
+    public long records() {
+        return records;
+    }
+
+    /** Records appended since the last checkpoint. */
+    public long uncheckpointed() {
+        return records - checkpointed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (tail != null) {
+            tail.close();
+            tail = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (tail != null) {
+            tail.close();
+        }
+        Path file = directory.resolve(String.format("%08d%s", segments.size(), SEGMENT_SUFFIX));
+        tail = SegmentFile.create(file, segmentRecords);
+        segments.add(file);
+        counts.add(0);
+    }
+
+    /**
+     * Feed the records from the given position to the index in chunks, reading each segment
+     * through its mapping.
+     */
+    private void replay(long from, LedgerIndex index) throws IOException {
+        long start = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            int count = counts.get(i);
+            if (start + count > from) {
+                SegmentFile segment = i == segments.size() - 1 ? tail : SegmentFile.open(segments.get(i));
+                try {
+                    for (int record = (int) Math.max(0, from - start); record < count; record += REPLAY_CHUNK) {
+                        int end = Math.min(count, record + REPLAY_CHUNK);
+                        TransactionBatch batch = new TransactionBatch(end - record);
+                        segment.read(record, end, batch);
+                        batch.roundUp();
+                        index.append(batch);
+                    }
+                } finally {
+                    if (segment != tail) {
+                        segment.close();
+                    }
+                }
+            }
+            start += count;
+        }
+    }
+}
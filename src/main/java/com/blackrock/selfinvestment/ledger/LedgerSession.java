@@ -0,0 +1,175 @@
+package com.blackrock.selfinvestment.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.blackrock.selfinvestment.engine.LedgerIndex;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.models.LedgerResponseDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+
+/**
+ * A user's ledger: the fixed returns parameters (age, wage, inflation, q and p moments) and the
+ * transactions appended so far, indexed by a {@link LedgerIndex}. Appends are serialized against
+ * each other and against queries; queries run concurrently.
+ *
+ * A persistent session writes every batch to its {@link LedgerLog} before indexing it, and
+ * checkpoints the index every {@code checkpointRecords} records and when it is closed.
+ */
+public final class LedgerSession {
+
+    private final String id;
+    private final int age;
+    private final double wage;
+    private final double inflation;
+    private final LedgerIndex index;
+    private final LedgerLog log;
+    private final long checkpointRecords;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile long lastAccessNanos;
+    private boolean closed;
+
+    /**
+     * @param index LedgerIndex of the transactions so far.
+     * @param log LedgerLog the index was recovered from, or null for an in-memory session.
+     */
+    LedgerSession(String id, int age, double wage, double inflation, LedgerIndex index, LedgerLog log,
+            long checkpointRecords, long now) {
+        this.id = id;
+        this.age = age;
+        this.wage = wage;
+        this.inflation = inflation;
+        this.index = index;
+        this.log = log;
+        this.checkpointRecords = checkpointRecords;
+        this.lastAccessNanos = now;
+    }
+
+    LedgerSession(String id, int age, double wage, double inflation, MomentTimeline timeline, long now) {
+        this(id, age, wage, inflation, new LedgerIndex(wage, timeline), null, Long.MAX_VALUE, now);
+    }
+
+    /**
+     * Add a parsed batch of transactions.
+     * @return number of transactions added, rows outside [0, wage] are skipped; -1 if the session
+     * has been closed meanwhile and the ledger must be looked up again.
+     * @throws UncheckedIOException if the batch could not be written; the index is then unchanged.
+     */
+    public int append(TransactionBatch batch) {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return -1;
+            }
+            if (log != null) {
+                log.append(batch);
+            }
+            int added = index.append(batch);
+            if (log != null && log.uncheckpointed() >= checkpointRecords) {
+                log.checkpoint(index);
+            }
+            return added;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Totals and k window sums, consistent with each other even while batches are appended.
+     */
+    public Snapshot snapshot(List<kGroupsDTO> kGroups) {
+        lock.readLock().lock();
+        try {
+            return new Snapshot(index.getTotalAmount(), index.getTotalCeiling(),
+                    kGroups == null ? List.of() : index.aggregate(kGroups));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public LedgerResponseDTO summary() {
+        lock.readLock().lock();
+        try {
+            return new LedgerResponseDTO(id, index.getCount(), index.getTotalAmount(), index.getTotalCeiling());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public double getWage() {
+        return wage;
+    }
+
+    public double getInflation() {
+        return inflation;
+    }
+
+    /**
+     * Stop accepting appends; a persistent session checkpoints what the last checkpoint misses
+     * and closes its log.
+     */
+    void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (log != null) {
+                try {
+                    if (log.uncheckpointed() > 0) {
+                        log.checkpoint(index);
+                    }
+                } finally {
+                    log.close();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Close without a final checkpoint, for a ledger about to be deleted.
+     */
+    void discard() throws IOException {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            if (log != null) {
+                log.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    void touch(long now) {
+        lastAccessNanos = now;
+    }
+
+    /**
+     * Totals of the ledger and the summed remanent of each requested k window.
+     */
+    public record Snapshot(double totalAmount, double totalCeiling, List<kGroupResponseDTO> kGroups) {
+    }
+}
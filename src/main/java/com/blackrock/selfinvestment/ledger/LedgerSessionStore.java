@@ -0,0 +1,205 @@
+package com.blackrock.selfinvestment.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.blackrock.selfinvestment.engine.LedgerIndex;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.models.LedgerRequestDTO;
+
+/**
+ * Open {@link LedgerSession}s by id. The number of sessions in memory is bounded and sessions not
+ * used for the idle timeout are dropped, so abandoned ledgers do not hold memory forever.
+ *
+ * With a {@link LedgerStore} enabled, memory is only a cache of the ledgers on disk: a dropped or
+ * least recently used session is checkpointed and closed, and reopened from its log on next use.
+ * Without one, a dropped session is gone.
+ *
+ * Closing, deleting and loading a ledger all run inside the map's compute for its id, so a session
+ * is never reopened from a log that is still being checkpointed or deleted.
+ */
+@Component
+public class LedgerSessionStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSessionStore.class);
+
+    private final Map<String, LedgerSession> sessions = new ConcurrentHashMap<>();
+    private final MomentTimelineCache timelineCache;
+    private final LedgerStore store;
+    private final int maxSessions;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+
+    @Autowired
+    public LedgerSessionStore(MomentTimelineCache timelineCache, LedgerStore store,
+            @Value("${app.ledger.max-sessions:1024}") int maxSessions,
+            @Value("${app.ledger.idle-timeout:30m}") Duration idleTimeout) {
+        this(timelineCache, store, maxSessions, idleTimeout, System::nanoTime);
+    }
+
+    LedgerSessionStore(MomentTimelineCache timelineCache, LedgerStore store, int maxSessions, Duration idleTimeout,
+            LongSupplier clock) {
+        this.timelineCache = timelineCache;
+        this.store = store;
+        this.maxSessions = maxSessions;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Open a new, empty ledger.
+     * @param request LedgerRequestDTO with the ledger's age, wage, inflation and q/p moments.
+     * @return the new LedgerSession, or null if the maximum number of in-memory ledgers is open.
+     * @throws UncheckedIOException if the ledger could not be persisted.
+     */
+    public LedgerSession create(LedgerRequestDTO request) {
+        long now = clock.getAsLong();
+        if (!makeRoom(now)) {
+            return null;
+        }
+        String id = UUID.randomUUID().toString();
+        MomentTimeline timeline = timelineCache.get(request.getQ(), request.getP());
+        LedgerSession session;
+        if (store.isEnabled()) {
+            try {
+                session = new LedgerSession(id, request.getAge(), request.getWage(), request.getInflation(),
+                        new LedgerIndex(request.getWage(), timeline), store.create(id, request),
+                        store.getCheckpointRecords(), now);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        } else {
+            session = new LedgerSession(id, request.getAge(), request.getWage(), request.getInflation(), timeline, now);
+        }
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * @return the session, reopened from the store if needed, or null if there is no such ledger
+     * (or, without a store, it has been idle for too long).
+     */
+    public LedgerSession get(String id) {
+        long now = clock.getAsLong();
+        LedgerSession session = sessions.get(id);
+        if (session != null && now - session.getLastAccessNanos() > idleTimeoutNanos) {
+            drop(id, session);
+            session = null;
+        }
+        if (session == null) {
+            if (!store.isEnabled() || store.definition(id) == null) {
+                return null;
+            }
+            makeRoom(now);
+            session = sessions.computeIfAbsent(id, this::load);
+            if (session == null) {
+                return null; // deleted meanwhile
+            }
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Close the ledger and delete it from the store.
+     * @return true if the ledger existed.
+     */
+    public boolean remove(String id) {
+        boolean[] existed = new boolean[1];
+        IOException[] failure = new IOException[1];
+        sessions.compute(id, (key, session) -> {
+            try {
+                if (session != null) {
+                    session.discard();
+                }
+                existed[0] = store.delete(id) || session != null;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+            return null;
+        });
+        if (failure[0] != null) {
+            throw new UncheckedIOException(failure[0]);
+        }
+        return existed[0];
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Checkpoint and close every persistent session, so the next start reopens them quickly.
+     */
+    @Override
+    public void close() {
+        sessions.forEach(this::drop);
+    }
+
+    private LedgerSession load(String id) {
+        LedgerRequestDTO definition = store.definition(id);
+        if (definition == null) {
+            return null;
+        }
+        MomentTimeline timeline = timelineCache.get(definition.getQ(), definition.getP());
+        try {
+            LedgerLog log = store.open(id);
+            LedgerIndex index = log.recover(definition.getWage(), timeline);
+            return new LedgerSession(id, definition.getAge(), definition.getWage(), definition.getInflation(),
+                    index, log, store.getCheckpointRecords(), clock.getAsLong());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Drop idle sessions and, if that is not enough and they can be reopened, the least recently used one.
+     * @return whether a session can be added.
+     */
+    private boolean makeRoom(long now) {
+        if (sessions.size() < maxSessions) {
+            return true;
+        }
+        sessions.forEach((id, session) -> {
+            if (now - session.getLastAccessNanos() > idleTimeoutNanos) {
+                drop(id, session);
+            }
+        });
+        while (store.isEnabled() && sessions.size() >= maxSessions) {
+            sessions.entrySet().stream()
+                    .min((a, b) -> Long.compare(a.getValue().getLastAccessNanos(), b.getValue().getLastAccessNanos()))
+                    .ifPresent(eldest -> drop(eldest.getKey(), eldest.getValue()));
+        }
+        return sessions.size() < maxSessions;
+    }
+
+    /**
+     * Remove the session if it is still the one mapped to id, closing it before the mapping goes.
+     */
+    private void drop(String id, LedgerSession session) {
+        sessions.computeIfPresent(id, (key, current) -> {
+            if (current != session) {
+                return current;
+            }
+            try {
+                session.close();
+            } catch (IOException e) {
+                // The log is intact; only the checkpoint is missing and recovery replays more
+                logger.warn("Could not checkpoint ledger {}", id, e);
+            }
+            return null;
+        });
+    }
+}
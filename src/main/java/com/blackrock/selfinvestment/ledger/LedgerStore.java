@@ -0,0 +1,106 @@
+package com.blackrock.selfinvestment.ledger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.blackrock.selfinvestment.models.LedgerRequestDTO;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Persistence of ledgers on the local filesystem, one directory per ledger id holding its
+ * definition ({@code ledger.json}: age, wage, inflation, q and p) and its {@link LedgerLog}.
+ * Disabled when {@code app.ledger.store.dir} is empty, in which case ledgers live in memory only.
+ */
+@Component
+public class LedgerStore {
+
+    private static final String DEFINITION = "ledger.json";
+    /** Ledger ids are UUIDs; anything else never reaches the filesystem. */
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final int MAX_SEGMENT_RECORDS = (Integer.MAX_VALUE - SegmentFile.HEADER_BYTES) / SegmentFile.RECORD_BYTES;
+
+    private final Path root;
+    private final int segmentRecords;
+    private final long checkpointRecords;
+    private final boolean force;
+    private final JsonMapper mapper;
+
+    public LedgerStore(@Value("${app.ledger.store.dir:}") String dir,
+            @Value("${app.ledger.store.segment-records:1048576}") int segmentRecords,
+            @Value("${app.ledger.store.checkpoint-records:1000000}") long checkpointRecords,
+            @Value("${app.ledger.store.force:false}") boolean force,
+            JsonMapper mapper) {
+        this.root = dir == null || dir.isBlank() ? null : Path.of(dir);
+        this.segmentRecords = Math.max(1, Math.min(segmentRecords, MAX_SEGMENT_RECORDS));
+        this.checkpointRecords = Math.max(1, checkpointRecords);
+        this.force = force;
+        this.mapper = mapper;
+    }
+
+    public boolean isEnabled() {
+        return root != null;
+    }
+
+    /**
+     * Records appended after which a ledger writes a new checkpoint.
+     */
+    public long getCheckpointRecords() {
+        return checkpointRecords;
+    }
+
+    /**
+     * Persist a new ledger's definition and open its empty log.
+     */
+    public LedgerLog create(String id, LedgerRequestDTO definition) throws IOException {
+        Path directory = directory(id);
+        Files.createDirectories(directory);
+        mapper.writeValue(directory.resolve(DEFINITION).toFile(), definition);
+        return LedgerLog.open(directory, segmentRecords, force);
+    }
+
+    /**
+     * @return the ledger's definition, or null if there is no such ledger.
+     */
+    public LedgerRequestDTO definition(String id) {
+        Path file = root == null || !ID.matcher(id).matches() ? null : directory(id).resolve(DEFINITION);
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return mapper.readValue(file.toFile(), LedgerRequestDTO.class);
+    }
+
+    public LedgerLog open(String id) throws IOException {
+        return LedgerLog.open(directory(id), segmentRecords, force);
+    }
+
+    /**
+     * Delete the ledger's files.
+     * @return true if the ledger existed.
+     */
+    public boolean delete(String id) throws IOException {
+        if (root == null || !ID.matcher(id).matches() || !Files.isDirectory(directory(id))) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(directory(id))) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        return true;
+    }
+
+    private Path directory(String id) {
+        if (!ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid ledger id");
+        }
+        return root.resolve(id);
+    }
+}
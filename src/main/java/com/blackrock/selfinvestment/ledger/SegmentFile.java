@@ -0,0 +1,150 @@
+package com.blackrock.selfinvestment.ledger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+
+/**
+ * One fixed-size, memory-mapped segment of a {@link LedgerLog}.
+ *
+ * Layout: a 64-byte header (magic, version, capacity in records, committed record count) followed
+ * by {@code capacity} records of 16 bytes, the epoch second and the amount. Records are written
+ * before the count that covers them, so after a crash the count never covers a torn record.
+ */
+final class SegmentFile implements AutoCloseable {
+
+    static final int RECORD_BYTES = Long.BYTES + Double.BYTES;
+    static final int HEADER_BYTES = 64;
+
+    private static final int MAGIC = 0x4C444752; // "LDGR"
+    private static final int VERSION = 1;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int count;
+
+    private SegmentFile(Path path, FileChannel channel, MappedByteBuffer buffer, int capacity, int count) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    /**
+     * Create and map an empty segment; the file is sized for its full capacity up front.
+     */
+    static SegmentFile create(Path path, int capacity) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) capacity * RECORD_BYTES);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putLong(COUNT_OFFSET, 0);
+            return new SegmentFile(path, channel, buffer, capacity, 0);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Map an existing segment.
+     * @throws TornHeaderException if the file is too short for a header, or the header is not a
+     *         segment's or promises more records than the file holds.
+     */
+    static SegmentFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new TornHeaderException("Truncated ledger segment " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+            int capacity = buffer.getInt(CAPACITY_OFFSET);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || capacity <= 0
+                    || length < HEADER_BYTES + (long) capacity * RECORD_BYTES) {
+                throw new TornHeaderException("Not a ledger segment: " + path);
+            }
+            long count = buffer.getLong(COUNT_OFFSET);
+            return new SegmentFile(path, channel, buffer, capacity, (int) Math.max(0, Math.min(count, capacity)));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write rows [from, to) of the batch, as many as fit, then commit them in the header.
+     * @param force whether to flush records and header to the device before returning.
+     * @return number of rows written.
+     */
+    int append(TransactionBatch batch, int from, int to, boolean force) {
+        int rows = Math.min(to - from, capacity - count);
+        int offset = HEADER_BYTES + count * RECORD_BYTES;
+        for (int row = from; row < from + rows; row++, offset += RECORD_BYTES) {
+            buffer.putLong(offset, batch.epochSecond(row));
+            buffer.putDouble(offset + Long.BYTES, batch.amount(row));
+        }
+        if (force) {
+            buffer.force(HEADER_BYTES + count * RECORD_BYTES, rows * RECORD_BYTES);
+        }
+        count += rows;
+        buffer.putLong(COUNT_OFFSET, count);
+        if (force) {
+            buffer.force(0, HEADER_BYTES);
+        }
+        return rows;
+    }
+
+    /**
+     * Copy records [from, to) into the batch, read straight from the mapping.
+     */
+    void read(int from, int to, TransactionBatch batch) {
+        for (int record = from, offset = HEADER_BYTES + from * RECORD_BYTES; record < to; record++, offset += RECORD_BYTES) {
+            batch.add(buffer.getLong(offset), buffer.getDouble(offset + Long.BYTES));
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The segment has no valid header, as left by a crash between creating the file and writing it.
+     */
+    static final class TornHeaderException extends IOException {
+
+        TornHeaderException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class AllocationRateDTO {
+    private double oneMinuteMBps;       // -1 if not available
+    private double fifteenMinutesMBps;  // -1 if not available
+}
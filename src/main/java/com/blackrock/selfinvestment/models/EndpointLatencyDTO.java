@@ -0,0 +1,11 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EndpointLatencyDTO {
+    private LatencyWindowDTO oneMinute;
+    private LatencyWindowDTO fifteenMinutes;
+}
@@ -0,0 +1,13 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class GcCollectorDTO {
+    private String name;
+    private long collections;
+    private long timeMillis;    // accumulated collection time since start
+    private boolean pause;      // false for concurrent cycles, which run beside the application
+}
@@ -0,0 +1,15 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ImportSummaryDTO {
+    private long rows;              // data rows read from the file
+    private long valid;
+    private long invalid;
+    private double totalTransactionAmount;  // sums over the valid rows
+    private double totalCeiling;
+    private double totalRemanent;
+}
@@ -0,0 +1,20 @@
+package com.blackrock.selfinvestment.models;
+
+import com.blackrock.selfinvestment.jobs.JobStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class JobDTO {
+    private String id;
+    private String type;            // filter, returns:nps or returns:index
+    private JobStatus status;
+    private long processed;         // units of work done out of total (rows, or one per request)
+    private long total;
+    private long elapsedMillis;     // since submission, up to the end of the job once it is final
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String error;
+}
@@ -0,0 +1,14 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LatencyWindowDTO {
+    private long count;     // requests in the window
+    private double p50;     // ms
+    private double p90;     // ms
+    private double p99;     // ms
+    private double max;     // ms
+}
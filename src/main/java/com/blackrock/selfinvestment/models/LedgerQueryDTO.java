@@ -0,0 +1,14 @@
+package com.blackrock.selfinvestment.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerQueryDTO {
+    private List<kGroupsDTO> k;
+}
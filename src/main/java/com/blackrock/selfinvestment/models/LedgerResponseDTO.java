@@ -0,0 +1,13 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LedgerResponseDTO {
+    private String id;
+    private long transactions;      // valid transactions held by the ledger
+    private double totalTransactionAmount;
+    private double totalCeiling;
+}
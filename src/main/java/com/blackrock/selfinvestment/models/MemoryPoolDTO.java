@@ -0,0 +1,13 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MemoryPoolDTO {
+    private String name;
+    private double usedMB;
+    private double committedMB;
+    private double maxMB;       // -1 if undefined
+}
@@ -1,5 +1,8 @@
 package com.blackrock.selfinvestment.models;
 
+import java.util.List;
+import java.util.Map;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -9,4 +12,10 @@ public class PerformanceResponseDTO {
     private String time;      // HH:mm:ss.SSS
     private String memory;    // "XXX.XX MB"
     private int threads;
-}
\ No newline at end of file
+    private Map<String, EndpointLatencyDTO> endpoints;  // keyed by path pattern
+    private long gcPauseMillis;
+    private List<GcCollectorDTO> gc;
+    private List<MemoryPoolDTO> heapPools;
+    private AllocationRateDTO allocationRate;
+    private ServerPoolDTO tomcat;     // null when not running on Tomcat
+}
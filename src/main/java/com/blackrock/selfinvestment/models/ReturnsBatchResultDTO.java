@@ -0,0 +1,19 @@
+package com.blackrock.selfinvestment.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Outcome of one item of a returns:batch request: the response of returns:nps or returns:index,
+ * or the error that item alone failed with.
+ */
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReturnsBatchResultDTO {
+    private int index;              // position of the item in the request array
+    private Object result;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ScenarioDTO {
+    private int age;
+    private double wage;
+    private double inflation;
+    /** "nps" or "index". */
+    private String product;
+}
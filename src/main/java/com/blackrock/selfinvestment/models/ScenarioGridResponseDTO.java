@@ -0,0 +1,13 @@
+package com.blackrock.selfinvestment.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ScenarioGridResponseDTO {
+    private List<kGroupsDTO> k;
+    private List<ScenarioResultDTO> scenarios;
+}
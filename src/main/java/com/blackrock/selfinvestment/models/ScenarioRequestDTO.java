@@ -0,0 +1,16 @@
+package com.blackrock.selfinvestment.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ScenarioRequestDTO {
+    private List<qMomentsDTO> q;
+    private List<pMomentsDTO> p;
+    private List<kGroupsDTO> k;
+    private List<transactionsDTO> transactions;
+    private List<ScenarioDTO> scenarios;
+}
@@ -0,0 +1,25 @@
+package com.blackrock.selfinvestment.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One row of the scenario grid: the scenario's totals and, per k window in request order, the
+ * saved amount, its value (NPS profit or index return) and, for NPS, the tax benefit.
+ */
+@Data
+@AllArgsConstructor
+public class ScenarioResultDTO {
+    private int age;
+    private double wage;
+    private double inflation;
+    private String product;
+    private double totalTransactionAmount;
+    private double totalCeiling;
+    private double[] amount;
+    private double[] value;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private double[] taxBenefit;
+}
@@ -0,0 +1,16 @@
+package com.blackrock.selfinvestment.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ServerPoolDTO {
+    private String executor;        // "platform" or "virtual"
+    private int busyThreads;        // -1 for virtual threads
+    private int maxThreads;         // -1 for virtual threads
+    private int queuedRequests;     // -1 for virtual threads
+    private long connections;
+    private int maxConnections;     // -1 if unlimited
+    private double saturation;      // highest of busy/max threads and connections/max connections
+}
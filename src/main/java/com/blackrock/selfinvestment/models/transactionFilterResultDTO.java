@@ -0,0 +1,13 @@
+package com.blackrock.selfinvestment.models;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class transactionFilterResultDTO {
+    private List<validTransactionFilterDTO> valid;
+    private List<invalidTransactionDTO> invalid;
+}
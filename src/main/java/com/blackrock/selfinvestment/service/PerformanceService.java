@@ -1,16 +1,55 @@
 package com.blackrock.selfinvestment.service;
 
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.lang.management.ThreadMXBean;
 import java.text.DecimalFormat;
 import java.time.Duration;
-
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.springframework.boot.tomcat.TomcatWebServer;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.boot.web.server.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.blackrock.selfinvestment.instrumentation.RollingMetrics;
+import com.blackrock.selfinvestment.models.AllocationRateDTO;
+import com.blackrock.selfinvestment.models.EndpointLatencyDTO;
+import com.blackrock.selfinvestment.models.GcCollectorDTO;
+import com.blackrock.selfinvestment.models.LatencyWindowDTO;
+import com.blackrock.selfinvestment.models.MemoryPoolDTO;
 import com.blackrock.selfinvestment.models.PerformanceResponseDTO;
+import com.blackrock.selfinvestment.models.ServerPoolDTO;
 
 @Service
 public class PerformanceService {
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final RollingMetrics rollingMetrics;
+    private volatile WebServer webServer;
+
+    public PerformanceService(RollingMetrics rollingMetrics) {
+        this.rollingMetrics = rollingMetrics;
+    }
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        this.webServer = event.getWebServer();
+    }
+
     public PerformanceResponseDTO generateReport(long startTime) {
 
         // -------- Response Time --------
@@ -48,10 +87,128 @@ public class PerformanceService {
 
         int threadCount = threadMXBean.getThreadCount();
 
+        // -------- Latency per endpoint --------
+        Map<String, AbstractHistogram> lastMinute = rollingMetrics.latency(RollingMetrics.ONE_MINUTE);
+        Map<String, AbstractHistogram> lastQuarter = rollingMetrics.latency(RollingMetrics.FIFTEEN_MINUTES);
+
+        Map<String, EndpointLatencyDTO> endpoints = new LinkedHashMap<>();
+        lastQuarter.forEach((endpoint, histogram) -> endpoints.put(endpoint, new EndpointLatencyDTO(
+                latencyWindow(lastMinute.get(endpoint)),
+                latencyWindow(histogram)
+        )));
+
+        // -------- Garbage collection --------
+        List<GcCollectorDTO> collectors = new ArrayList<>();
+        long gcPauseMillis = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            boolean pause = isPauseCollector(gc.getName());
+            long timeMillis = Math.max(gc.getCollectionTime(), 0);
+            collectors.add(new GcCollectorDTO(gc.getName(), Math.max(gc.getCollectionCount(), 0), timeMillis, pause));
+            if (pause) {
+                gcPauseMillis += timeMillis;
+            }
+        }
+
+        // -------- Heap pools --------
+        List<MemoryPoolDTO> heapPools = new ArrayList<>();
+
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getUsage();
+            if (pool.getType() != MemoryType.HEAP || usage == null) continue;
+            heapPools.add(new MemoryPoolDTO(
+                    pool.getName(),
+                    megabytes(usage.getUsed()),
+                    megabytes(usage.getCommitted()),
+                    usage.getMax() < 0 ? -1 : megabytes(usage.getMax())
+            ));
+        }
+
+        // -------- Allocation rate --------
+        AllocationRateDTO allocationRate = new AllocationRateDTO(
+                bytesToMegabytesPerSecond(rollingMetrics.allocationRate(RollingMetrics.ONE_MINUTE)),
+                bytesToMegabytesPerSecond(rollingMetrics.allocationRate(RollingMetrics.FIFTEEN_MINUTES))
+        );
+
         return new PerformanceResponseDTO(
                 formattedTime,
                 formattedMemory,
-                threadCount
+                threadCount,
+                endpoints,
+                gcPauseMillis,
+                collectors,
+                heapPools,
+                allocationRate,
+                tomcatPool()
         );
     }
+
+    /**
+     * Saturation of the Tomcat connector: its worker pool and open connections.
+     * With virtual threads there is no worker pool and only connections are reported.
+     * @return ServerPoolDTO or null when the server is not Tomcat or not started yet.
+     */
+    private ServerPoolDTO tomcatPool() {
+        if (!(webServer instanceof TomcatWebServer tomcat)) {
+            return null;
+        }
+        ProtocolHandler handler = tomcat.getTomcat().getConnector().getProtocolHandler();
+        if (!(handler instanceof AbstractProtocol<?> protocol)) {
+            return null;
+        }
+
+        long connections = Math.max(protocol.getConnectionCount(), 0);
+        int maxConnections = protocol.getMaxConnections();
+        double saturation = maxConnections > 0 ? (double) connections / maxConnections : 0;
+
+        Executor executor = protocol.getExecutor();
+        if (executor instanceof ThreadPoolExecutor pool) {
+            int busy = pool.getActiveCount();
+            int max = pool.getMaximumPoolSize();
+            saturation = Math.max(saturation, max > 0 ? (double) busy / max : 0);
+            return new ServerPoolDTO("platform", busy, max, pool.getQueue().size(),
+                    connections, maxConnections, round(saturation));
+        }
+        return new ServerPoolDTO("virtual", -1, -1, -1, connections, maxConnections, round(saturation));
+    }
+
+    /**
+     * Percentiles of a latency histogram recorded in microseconds, in milliseconds.
+     */
+    private static LatencyWindowDTO latencyWindow(AbstractHistogram histogram) {
+        if (histogram == null || histogram.getTotalCount() == 0) {
+            return new LatencyWindowDTO(0, 0, 0, 0, 0);
+        }
+        return new LatencyWindowDTO(
+                histogram.getTotalCount(),
+                microsToMillis(histogram.getValueAtPercentile(50)),
+                microsToMillis(histogram.getValueAtPercentile(90)),
+                microsToMillis(histogram.getValueAtPercentile(99)),
+                microsToMillis(histogram.getMaxValue())
+        );
+    }
+
+    /**
+     * Whether a collector's time is stop-the-world pause time. Concurrent cycles
+     * (G1 Concurrent GC, ZGC/Shenandoah Cycles) run beside the application and are not counted.
+     */
+    private static boolean isPauseCollector(String name) {
+        return !name.contains("Concurrent") && !name.contains("Cycles");
+    }
+
+    private static double microsToMillis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double megabytes(long bytes) {
+        return round(bytes / MB);
+    }
+
+    private static double bytesToMegabytesPerSecond(double bytesPerSecond) {
+        return bytesPerSecond < 0 ? -1 : round(bytesPerSecond / MB);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
 }
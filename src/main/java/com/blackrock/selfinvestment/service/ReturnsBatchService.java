@@ -0,0 +1,129 @@
+package com.blackrock.selfinvestment.service;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.models.ReturnsBatchResultDTO;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Evaluates many independent returns requests from one streamed array on a worker pool.
+ * Items are read one at a time and handed to the workers, with at most a few per worker in flight, so
+ * neither the request array nor the results are ever held. Results come back in completion order.
+ *
+ * Every item is converted and evaluated on its own: a bad date or a failing computation becomes that
+ * item's error and the others carry on. Only a body that is not a JSON array of objects ends the batch.
+ */
+@Service
+public class ReturnsBatchService implements AutoCloseable {
+
+    /** Items in flight per worker, so workers never wait for the reader. */
+    private static final int IN_FLIGHT_PER_WORKER = 4;
+
+    private final ReturnsService returnsService;
+    private final JsonMapper mapper;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+
+    public ReturnsBatchService(ReturnsService returnsService, JsonMapper mapper,
+            @Value("${app.returns-batch.workers:0}") int workers) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.returnsService = returnsService;
+        this.mapper = mapper;
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "returns-batch-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = threads * IN_FLIGHT_PER_WORKER;
+    }
+
+    /**
+     * Evaluate every ReturnsRequestDTO of the array the parser is positioned before.
+     * @param parser parser over the request body.
+     * @param product {@link ReturnsService#NPS} or {@link ReturnsService#INDEX}.
+     * @param sink receives one ReturnsBatchResultDTO per item, on the calling thread.
+     * @return number of items evaluated.
+     * @throws ResponseStatusException with 400 if the body is not an array of objects.
+     */
+    public int evaluate(JsonParser parser, String product, Consumer<ReturnsBatchResultDTO> sink) {
+        CompletionService<ReturnsBatchResultDTO> completion = new ExecutorCompletionService<>(workers);
+        int items = 0;
+        int inFlight = 0;
+        try {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected an array of returns requests");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Expected a returns request object at item " + items);
+                }
+                JsonNode item = parser.readValueAsTree();
+                int index = items++;
+                if (inFlight == maxInFlight) {
+                    sink.accept(take(completion));
+                    inFlight--;
+                }
+                completion.submit(() -> evaluate(index, item, product));
+                inFlight++;
+                for (var done = completion.poll(); done != null; done = completion.poll()) {
+                    sink.accept(done.get());
+                    inFlight--;
+                }
+            }
+            for (; inFlight > 0; inFlight--) {
+                sink.accept(take(completion));
+            }
+            return items;
+        } catch (JacksonException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed request body: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Returns batch interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Returns batch worker failed", e.getCause());
+        }
+    }
+
+    private ReturnsBatchResultDTO evaluate(int index, JsonNode item, String product) {
+        try {
+            ReturnsRequestDTO request = mapper.treeToValue(item, ReturnsRequestDTO.class);
+            Object result = ReturnsService.NPS.equals(product) ? returnsService.calculateNPS(request)
+                    : returnsService.calculateIndexReturns(request);
+            return new ReturnsBatchResultDTO(index, result, null);
+        } catch (RuntimeException e) {
+            String message = e instanceof JacksonException jackson ? jackson.getOriginalMessage()
+                    : e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return new ReturnsBatchResultDTO(index, null, message);
+        }
+    }
+
+    private static ReturnsBatchResultDTO take(CompletionService<ReturnsBatchResultDTO> completion)
+            throws InterruptedException, ExecutionException {
+        return completion.take().get();
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+}
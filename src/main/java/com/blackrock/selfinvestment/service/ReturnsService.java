@@ -2,186 +2,217 @@ package com.blackrock.selfinvestment.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
+import com.blackrock.selfinvestment.engine.GrowthTable;
+import com.blackrock.selfinvestment.engine.KGroupAggregator;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
 import com.blackrock.selfinvestment.helper.Helper;
 import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
 import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
 import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
 import com.blackrock.selfinvestment.models.SavingByDatesDTO;
 import com.blackrock.selfinvestment.models.SavingsByDatesIndexDTO;
+import com.blackrock.selfinvestment.models.ScenarioDTO;
+import com.blackrock.selfinvestment.models.ScenarioGridResponseDTO;
+import com.blackrock.selfinvestment.models.ScenarioRequestDTO;
+import com.blackrock.selfinvestment.models.ScenarioResultDTO;
 import com.blackrock.selfinvestment.models.kGroupResponseDTO;
 import com.blackrock.selfinvestment.models.kGroupsDTO;
-import com.blackrock.selfinvestment.models.pMomentsDTO;
-import com.blackrock.selfinvestment.models.qMomentsDTO;
-import com.blackrock.selfinvestment.models.transactionResponseDTO;
-import com.blackrock.selfinvestment.models.transactionsDTO;
 
 @Service
 public class ReturnsService {
 
+    public static final String NPS = "nps";
+    public static final String INDEX = "index";
+
+    private static final int RETIREMENT_AGE = 60;
+    /** Ages accepted in a scenario grid; they bound the growth tables built for the grid. */
+    public static final int MIN_SCENARIO_AGE = 0;
+    public static final int MAX_SCENARIO_AGE = 150;
+    private static final double NPS_RATE = 1.0711;
+    private static final double INDEX_RATE = 1.1449;
+
+    private final MomentTimelineCache timelineCache;
+    private final ParallelBatchExecutor executor;
+
+    public ReturnsService(MomentTimelineCache timelineCache, ParallelBatchExecutor executor) {
+        this.timelineCache = timelineCache;
+        this.executor = executor;
+    }
+
     public ReturnsResponseDTO calculateNPS(ReturnsRequestDTO request) {
-        double monthlySalary = request.getWage();
-        double yearlySalary = monthlySalary * 12;
+        KGroupAggregator aggregator = aggregator(request);
+        return npsReturns(request.getAge(), request.getWage(), request.getInflation(),
+                aggregator.getTotalAmount(), aggregator.getTotalCeiling(), aggregator.aggregate(request.getK()));
+    }
 
-        double totalCeiling = 0;
-        double totalAmount = 0;
-        List<transactionResponseDTO> transactions = new ArrayList<>();
-        for(transactionsDTO transaction : request.getTransactions()) {
-            LocalDateTime date = transaction.getDate();
-            double amount = transaction.getAmount();
-            if(amount < 0 || amount > monthlySalary) continue; // Skip invalid transactions
-            
-            double ceiling = Math.ceil(amount/100) * 100; // Round up to nearest 100
-            double remanent = ceiling - amount;
-            transactions.add(new transactionResponseDTO(date, amount, ceiling, remanent));
-            
-            totalCeiling += ceiling;
-            totalAmount += amount;
-        }
+    /**
+     * Sort and resolve the request's transactions once, for any number of k windows.
+     * @param request ReturnsRequestDTO with the transactions and q/p moments.
+     * @return KGroupAggregator over the valid transactions.
+     */
+    public KGroupAggregator aggregator(ReturnsRequestDTO request) {
+        return KGroupAggregator.build(request, timelineCache.get(request.getQ(), request.getP()), executor);
+    }
 
-        List<kGroupResponseDTO> kGroupResponses = new ArrayList<>();
-        for(kGroupsDTO group : request.getK()) {
-            LocalDateTime kStart = group.getStart();
-            LocalDateTime kEnd = group.getEnd();
-            double kAmount = 0;
-            // System.out.println("Processing k group: " + kStart + " to " + kEnd);
-
-            // 1. Need to check if any transaction falls within this k period
-            for(transactionResponseDTO transaction : transactions) {
-                LocalDateTime transactionDate = transaction.getDate();
-                if(Helper.isBetweenInclusive(transactionDate, kStart, kEnd)) {
-                    double remanent = transaction.getRemanent();
-                    // If any transaction falls with q
-                    // System.out.println("Transaction date: " + transactionDate);
-                    for(qMomentsDTO q : request.getQ()) {
-                        LocalDateTime qStart = q.getStart();
-                        LocalDateTime qEnd = q.getEnd();
-                        // System.out.println("Checking q moment: " + qStart + " to " + qEnd);
-                        if(Helper.isBetweenInclusive(transactionDate, qStart, qEnd)) {
-                            remanent = q.getFixed();
-                            // System.out.println("Found q moment for transaction date: " + transactionDate);
-                            break;
-                        }
-                    }
-
-                    // If any transaction falls with p
-                    for(pMomentsDTO p : request.getP()) {
-                        LocalDateTime pStart = p.getStart();
-                        LocalDateTime pEnd = p.getEnd();
-                        // System.out.println("Checking p moment: " + pStart + " to " + pEnd);
-                        if(Helper.isBetweenInclusive(transactionDate, pStart, pEnd)) {
-                            remanent += p.getExtra(); 
-                            // System.out.println("Found p moment for transaction date: " + transactionDate);
-                        }
-                    }
-                    // System.out.println("Adding remanent: " + remanent + " for transaction date: " + transactionDate);
-                    kAmount += remanent;
-                }
-            }
-            kGroupResponses.add(new kGroupResponseDTO(kAmount, kStart, kEnd));
-        }
+    /**
+     * NPS projection of already aggregated k groups.
+     * @param age current age; money grows until 60.
+     * @param monthlySalary wage, used for the tax benefit.
+     * @param inflationPercent yearly inflation in percent.
+     * @param totalAmount sum of the valid transaction amounts.
+     * @param totalCeiling sum of their ceilings.
+     * @param kGroupResponses summed remanent of each k window.
+     * @return ReturnsResponseDTO with one saving per k group.
+     */
+    public ReturnsResponseDTO npsReturns(int age, double monthlySalary, double inflationPercent,
+            double totalAmount, double totalCeiling, List<kGroupResponseDTO> kGroupResponses) {
+        double yearlySalary = monthlySalary * 12;
 
-        double inflation = request.getInflation()/100.0; 
-        int timePeriod = 60 - request.getAge(); // Assuming retirement age is 60
+        double inflation = inflationPercent/100.0; 
+        int timePeriod = RETIREMENT_AGE - age;
+        double growth = Math.pow(NPS_RATE, timePeriod);
+        double deflator = Math.pow(1 + inflation, timePeriod);
         List<SavingByDatesDTO> savingByDates = new ArrayList<>();
         for(kGroupResponseDTO kGroup : kGroupResponses) {
             double amount = kGroup.getAmount();
             LocalDateTime start = kGroup.getStart();
             LocalDateTime end = kGroup.getEnd();
-
-            double nps_dedcution = Math.min(Math.min(amount, 0.1 * yearlySalary), 200000);
-            double taxBenefit = Helper.taxPerSalary(yearlySalary) - Helper.taxPerSalary(yearlySalary - nps_dedcution);    
-        
-            double compoundInterest = amount * Math.pow(1.0711, timePeriod);
-            double npsRealValue = compoundInterest / Math.pow(1 + inflation, timePeriod);
-            double profit = npsRealValue - amount;
-            profit = Math.round(profit * 100.0) / 100.0;
-            savingByDates.add(new SavingByDatesDTO(start, end, amount, profit, taxBenefit));
+            savingByDates.add(new SavingByDatesDTO(start, end, amount, npsProfit(amount, growth, deflator),
+                    npsTaxBenefit(amount, yearlySalary)));
         }
 
         return new ReturnsResponseDTO(totalAmount, totalCeiling, savingByDates);
     }
 
     public ReturnsResponseIndexDTO calculateIndexReturns(ReturnsRequestDTO request) {
-        double monthlySalary = request.getWage();
-        double yearlySalary = monthlySalary * 12;
+        KGroupAggregator aggregator = aggregator(request);
+        return indexReturns(request.getAge(), request.getInflation(),
+                aggregator.getTotalAmount(), aggregator.getTotalCeiling(), aggregator.aggregate(request.getK()));
+    }
 
-        double totalCeiling = 0;
-        double totalAmount = 0;
-        List<transactionResponseDTO> transactions = new ArrayList<>();
-        for(transactionsDTO transaction : request.getTransactions()) {
-            LocalDateTime date = transaction.getDate();
-            double amount = transaction.getAmount();
-            if(amount < 0 || amount > monthlySalary) continue; // Skip invalid transactions
-            
-            double ceiling = Math.ceil(amount/100) * 100; // Round up to nearest 100
-            double remanent = ceiling - amount;
-            transactions.add(new transactionResponseDTO(date, amount, ceiling, remanent));
-            
-            totalCeiling += ceiling;
-            totalAmount += amount;
+    /**
+     * Index fund projection of already aggregated k groups.
+     * @param age current age; money grows until 60.
+     * @param inflationPercent yearly inflation in percent.
+     * @param totalAmount sum of the valid transaction amounts.
+     * @param totalCeiling sum of their ceilings.
+     * @param kGroupResponses summed remanent of each k window.
+     * @return ReturnsResponseIndexDTO with one saving per k group.
+     */
+    public ReturnsResponseIndexDTO indexReturns(int age, double inflationPercent,
+            double totalAmount, double totalCeiling, List<kGroupResponseDTO> kGroupResponses) {
+        double inflation = inflationPercent/100.0; 
+        int timePeriod = RETIREMENT_AGE - age;
+        double growth = Math.pow(INDEX_RATE, timePeriod);
+        double deflator = Math.pow(1 + inflation, timePeriod);
+        List<SavingsByDatesIndexDTO> savingByDates = new ArrayList<>();
+        for(kGroupResponseDTO kGroup : kGroupResponses) {
+            savingByDates.add(new SavingsByDatesIndexDTO(indexReturn(kGroup.getAmount(), growth, deflator),
+                    kGroup.getStart(), kGroup.getEnd()));
         }
 
-        List<kGroupResponseDTO> kGroupResponses = new ArrayList<>();
-        for(kGroupsDTO group : request.getK()) {
-            LocalDateTime kStart = group.getStart();
-            LocalDateTime kEnd = group.getEnd();
-            double kAmount = 0;
-            // System.out.println("Processing k group: " + kStart + " to " + kEnd);
-
-            // 1. Need to check if any transaction falls within this k period
-            for(transactionResponseDTO transaction : transactions) {
-                LocalDateTime transactionDate = transaction.getDate();
-                if(Helper.isBetweenInclusive(transactionDate, kStart, kEnd)) {
-                    double remanent = transaction.getRemanent();
-                    // If any transaction falls with q
-                    // System.out.println("Transaction date: " + transactionDate);
-                    for(qMomentsDTO q : request.getQ()) {
-                        LocalDateTime qStart = q.getStart();
-                        LocalDateTime qEnd = q.getEnd();
-                        // System.out.println("Checking q moment: " + qStart + " to " + qEnd);
-                        if(Helper.isBetweenInclusive(transactionDate, qStart, qEnd)) {
-                            remanent = q.getFixed();
-                            // System.out.println("Found q moment for transaction date: " + transactionDate);
-                            break;
-                        }
-                    }
-
-                    // If any transaction falls with p
-                    for(pMomentsDTO p : request.getP()) {
-                        LocalDateTime pStart = p.getStart();
-                        LocalDateTime pEnd = p.getEnd();
-                        // System.out.println("Checking p moment: " + pStart + " to " + pEnd);
-                        if(Helper.isBetweenInclusive(transactionDate, pStart, pEnd)) {
-                            remanent += p.getExtra(); 
-                            // System.out.println("Found p moment for transaction date: " + transactionDate);
-                        }
-                    }
-                    // System.out.println("Adding remanent: " + remanent + " for transaction date: " + transactionDate);
-                    kAmount += remanent;
+        return new ReturnsResponseIndexDTO(totalAmount, totalCeiling, savingByDates);
+    }
+
+    /**
+     * Evaluate a grid of what-if scenarios against one transaction set.
+     * The transactions are rounded once and aggregated over the k windows once per distinct wage
+     * (the wage decides which transactions are valid); each scenario is then a pass over the k sums
+     * with growth and inflation factors looked up from {@link GrowthTable}s built for the grid.
+     * Every value equals what returns:nps or returns:index gives for the same scenario.
+     * @param request ScenarioRequestDTO with the shared q, p, k and transactions and the scenarios.
+     * @return ScenarioGridResponseDTO with one row per scenario, in request order.
+     * @throws IllegalArgumentException if a scenario's product is neither nps nor index, or its age
+     * is outside [MIN_SCENARIO_AGE, MAX_SCENARIO_AGE].
+     */
+    public ScenarioGridResponseDTO scenarioGrid(ScenarioRequestDTO request) {
+        List<kGroupsDTO> kGroups = request.getK() == null ? List.of() : request.getK();
+        List<ScenarioDTO> scenarios = request.getScenarios() == null ? List.of() : request.getScenarios();
+        MomentTimeline timeline = timelineCache.get(request.getQ(), request.getP());
+        TransactionBatch batch = TransactionBatch.of(request.getTransactions());
+        executor.forEachRange(batch.size(), batch::roundUp);
+
+        for (ScenarioDTO scenario : scenarios) {
+            if (!isScenarioAge(scenario.getAge())) {
+                throw new IllegalArgumentException("Scenario age out of range: " + scenario.getAge());
+            }
+        }
+        int minPeriod = scenarios.stream().mapToInt(scenario -> RETIREMENT_AGE - scenario.getAge()).min().orElse(0);
+        int maxPeriod = scenarios.stream().mapToInt(scenario -> RETIREMENT_AGE - scenario.getAge()).max().orElse(0);
+        GrowthTable npsGrowth = GrowthTable.of(NPS_RATE, minPeriod, maxPeriod);
+        GrowthTable indexGrowth = GrowthTable.of(INDEX_RATE, minPeriod, maxPeriod);
+        Map<Double, GrowthTable> deflators = new HashMap<>();
+        Map<Double, KGroupAggregator> aggregators = new HashMap<>();
+        Map<Double, double[]> sums = new HashMap<>();
+
+        List<ScenarioResultDTO> rows = new ArrayList<>(scenarios.size());
+        for (ScenarioDTO scenario : scenarios) {
+            boolean nps = NPS.equals(scenario.getProduct());
+            if (!nps && !INDEX.equals(scenario.getProduct())) {
+                throw new IllegalArgumentException("Unknown product: " + scenario.getProduct());
+            }
+            KGroupAggregator aggregator = aggregators.computeIfAbsent(scenario.getWage(),
+                    wage -> KGroupAggregator.build(batch, wage, timeline, executor));
+            double[] amounts = sums.computeIfAbsent(scenario.getWage(), wage -> {
+                double[] windowSums = new double[kGroups.size()];
+                for (int i = 0; i < windowSums.length; i++) {
+                    windowSums[i] = aggregator.sum(kGroups.get(i).getStart(), kGroups.get(i).getEnd());
+                }
+                return windowSums;
+            });
+            int timePeriod = RETIREMENT_AGE - scenario.getAge();
+            double growth = (nps ? npsGrowth : indexGrowth).factor(timePeriod);
+            double deflator = deflators.computeIfAbsent(scenario.getInflation(),
+                    inflation -> GrowthTable.of(1 + inflation / 100.0, minPeriod, maxPeriod)).factor(timePeriod);
+
+            double[] values = new double[amounts.length];
+            double[] taxBenefits = nps ? new double[amounts.length] : null;
+            double yearlySalary = scenario.getWage() * 12;
+            for (int i = 0; i < amounts.length; i++) {
+                if (nps) {
+                    values[i] = npsProfit(amounts[i], growth, deflator);
+                    taxBenefits[i] = npsTaxBenefit(amounts[i], yearlySalary);
+                } else {
+                    values[i] = indexReturn(amounts[i], growth, deflator);
                 }
             }
-            kGroupResponses.add(new kGroupResponseDTO(kAmount, kStart, kEnd));
+            rows.add(new ScenarioResultDTO(scenario.getAge(), scenario.getWage(), scenario.getInflation(),
+                    scenario.getProduct(), aggregator.getTotalAmount(), aggregator.getTotalCeiling(),
+                    amounts, values, taxBenefits));
         }
+        return new ScenarioGridResponseDTO(kGroups, rows);
+    }
 
-        double inflation = request.getInflation()/100.0; 
-        int timePeriod = 60 - request.getAge(); // Assuming retirement age is 60
-        List<SavingsByDatesIndexDTO> savingByDates = new ArrayList<>();
-        for(kGroupResponseDTO kGroup : kGroupResponses) {
-            double amount = kGroup.getAmount();
-            LocalDateTime start = kGroup.getStart();
-            LocalDateTime end = kGroup.getEnd();
+    public static boolean isScenarioAge(int age) {
+        return age >= MIN_SCENARIO_AGE && age <= MAX_SCENARIO_AGE;
+    }
 
-            double compoundInterest = amount * Math.pow(1.1449, timePeriod);
-            double niftyRealValue = compoundInterest / Math.pow(1 + inflation, timePeriod);
-            niftyRealValue = Math.round(niftyRealValue * 100.0) / 100.0;
-            savingByDates.add(new SavingsByDatesIndexDTO(niftyRealValue, start, end));
-        }
+    /** Real NPS profit of the amount, rounded to cents. */
+    private static double npsProfit(double amount, double growth, double deflator) {
+        double compoundInterest = amount * growth;
+        double npsRealValue = compoundInterest / deflator;
+        double profit = npsRealValue - amount;
+        return Math.round(profit * 100.0) / 100.0;
+    }
 
-        return new ReturnsResponseIndexDTO(totalAmount, totalCeiling, savingByDates);
+    private static double npsTaxBenefit(double amount, double yearlySalary) {
+        double npsDeduction = Math.min(Math.min(amount, 0.1 * yearlySalary), 200000);
+        return Helper.taxPerSalary(yearlySalary) - Helper.taxPerSalary(yearlySalary - npsDeduction);
+    }
+
+    /** Real value of the amount invested in the index, rounded to cents. */
+    private static double indexReturn(double amount, double growth, double deflator) {
+        double compoundInterest = amount * growth;
+        double niftyRealValue = compoundInterest / deflator;
+        return Math.round(niftyRealValue * 100.0) / 100.0;
     }
-    
 }
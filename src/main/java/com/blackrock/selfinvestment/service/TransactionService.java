@@ -1,26 +1,28 @@
 package com.blackrock.selfinvestment.service;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
+import com.blackrock.selfinvestment.engine.BatchPartition;
+import com.blackrock.selfinvestment.engine.FilterPipeline;
+import com.blackrock.selfinvestment.engine.KWindowSet;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.engine.RowPipeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.engine.ValidationPipeline;
 import com.blackrock.selfinvestment.helper.Helper;
-import com.blackrock.selfinvestment.models.invalidTransactionDTO;
-import com.blackrock.selfinvestment.models.kGroupsDTO;
-import com.blackrock.selfinvestment.models.pMomentsDTO;
-import com.blackrock.selfinvestment.models.qMomentsDTO;
 import com.blackrock.selfinvestment.models.transactionFilterDTO;
 import com.blackrock.selfinvestment.models.transactionFilterResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
 import com.blackrock.selfinvestment.models.transactionFilterValidatorDTO;
 import com.blackrock.selfinvestment.models.transactionResponseDTO;
 import com.blackrock.selfinvestment.models.transactionValidatorDTO;
 import com.blackrock.selfinvestment.models.transactionsDTO;
-import com.blackrock.selfinvestment.models.validTransactionDTO;
-import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
 
 /**
  * Service class for handling transaction-related business logic.
@@ -28,21 +30,32 @@ import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
 @Service
 public class TransactionService {
 
+    private final MomentTimelineCache timelineCache;
+    private final ParallelBatchExecutor executor;
+
+    public TransactionService(MomentTimelineCache timelineCache, ParallelBatchExecutor executor) {
+        this.timelineCache = timelineCache;
+        this.executor = executor;
+    }
+
     /**
      * Parse the list of transactions and return the response.
      * @param transactions List of transactions to be parsed.
      * @return List of transactionResponseDTO containing the parsed transactions.
      */
     public List<transactionResponseDTO> parseTransactions(List<transactionsDTO> transactions) {
-        List<transactionResponseDTO> responseList = new ArrayList<>();
-        for (transactionsDTO transaction : transactions) {
-            double ammount = transaction.getAmount();
-            LocalDateTime date = transaction.getDate();
-            double ceiling = Math.ceil(ammount / 100) * 100;
-            double remanent = ceiling - ammount;
-            responseList.add(new transactionResponseDTO(date, ammount, ceiling, remanent));
-        }
-        return responseList;
+        return parse(TransactionBatch.of(transactions)).asResponseList();
+    }
+
+    /**
+     * Compute ceiling and remanent for every row of the batch, in place.
+     * Large batches are rounded in parallel chunks.
+     * @param batch TransactionBatch of raw transactions.
+     * @return the same batch.
+     */
+    public TransactionBatch parse(TransactionBatch batch) {
+        executor.forEachRange(batch.size(), batch::roundUp);
+        return batch;
     }
 
     /**
@@ -51,38 +64,9 @@ public class TransactionService {
      * @return Map containing the lists of valid and invalid transactions along with validation messages.
      */
     public Map<String, Object> validateTransactions(transactionValidatorDTO transactions) {
-        List<transactionResponseDTO> transactionList = transactions.getTransactions();
-
-        Map<String, Object> response = new HashMap<>();
-        List<validTransactionDTO> validatedTransactions = new ArrayList<>();
-        List<invalidTransactionDTO> invalidTransactions = new ArrayList<>();
-
-        for (transactionResponseDTO transaction : transactionList) {
-            LocalDateTime date = transaction.getDate();
-            double ammount = transaction.getAmount();
-            double ceiling = transaction.getCeiling();
-            double remanent = transaction.getRemanent();
-
-            if (ammount <= 0) {
-                invalidTransactions.add(new invalidTransactionDTO(date, ammount, ceiling, remanent,
-                        "Negative or zero amount is not allowed"));
-            } else if (ammount > transactions.getWage()) {
-                invalidTransactions
-                        .add(new invalidTransactionDTO(date, ammount, ceiling, remanent, "Amount exceeds wage"));
-            } // Duplicate transaction check
-            else if (validatedTransactions.stream()
-                    .anyMatch(t -> t.getDate().equals(date) && t.getAmount() == ammount)) {
-                invalidTransactions
-                        .add(new invalidTransactionDTO(date, ammount, ceiling, remanent, "Duplicate transaction"));
-            } else {
-                validatedTransactions.add(new validTransactionDTO(date, ammount, ceiling, remanent));
-            }
-        }
-
-        response.put("valid", validatedTransactions);
-        response.put("invalid", invalidTransactions);
-        return response;
-
+        BatchPartition partition = validate(TransactionBatch.ofParsed(transactions.getTransactions()),
+                transactions.getWage());
+        return toValidatorResponse(partition);
     }
 
     /**
@@ -92,124 +76,98 @@ public class TransactionService {
      */
     public Map<String, Object> validateTransactions(transactionFilterValidatorDTO transactions) {
         List<transactionFilterResponseDTO> transactionList = transactions.getTransactions();
-
-        Map<String, Object> response = new HashMap<>();
-        List<validTransactionFilterDTO> validatedTransactions = new ArrayList<>();
-        List<invalidTransactionDTO> invalidTransactions = new ArrayList<>();
-
+        TransactionBatch batch = new TransactionBatch(transactionList.size());
         for (transactionFilterResponseDTO transaction : transactionList) {
-            LocalDateTime date = transaction.getDate();
-            double ammount = transaction.getAmount();
-            double ceiling = transaction.getCeiling();
-            double remanent = transaction.getRemanent();
-
-            if (ammount <= 0) {
-                invalidTransactions.add(new invalidTransactionDTO(date, ammount, ceiling, remanent,
-                        "Negative or zero amount is not allowed"));
-            } else if (ammount > transactions.getWage()) {
-                invalidTransactions
-                        .add(new invalidTransactionDTO(date, ammount, ceiling, remanent, "Amount exceeds wage"));
-            } // Duplicate transaction check
-            else if (validatedTransactions.stream()
-                    .anyMatch(t -> t.getDate().equals(date) && t.getAmount() == ammount)) {
-                invalidTransactions
-                        .add(new invalidTransactionDTO(date, ammount, ceiling, remanent, "Duplicate transaction"));
-            } else {
-                validatedTransactions.add(new validTransactionFilterDTO(date, ammount, ceiling, remanent, transaction.isInKPeriod()));
-            }
+            batch.add(Helper.toEpochSecond(transaction.getDate()), transaction.getAmount(),
+                    transaction.getCeiling(), transaction.getRemanent());
+        }
+
+        BatchPartition partition = validate(batch, transactions.getWage());
+        for (int i = 0; i < transactionList.size(); i++) {
+            partition.setInKPeriod(i, transactionList.get(i).isInKPeriod());
         }
 
-        response.put("valid", validatedTransactions);
-        response.put("invalid", invalidTransactions);
+        Map<String, Object> response = new HashMap<>();
+        response.put("valid", partition.validFilterRows());
+        response.put("invalid", partition.invalidRows());
         return response;
+    }
 
+    /**
+     * Split a parsed batch into valid and invalid rows.
+     * Large batches are validated in parallel chunks.
+     * @param batch TransactionBatch with ceiling and remanent already set.
+     * @param wage monthly wage; larger amounts are rejected.
+     * @return BatchPartition of the rows in input order.
+     */
+    public BatchPartition validate(TransactionBatch batch, double wage) {
+        return executor.partition(batch, ValidationPipeline.rules(batch, wage));
+    }
+
+    /**
+     * Validation pipeline for rows appended to the batch one at a time.
+     * @param batch TransactionBatch that rows are appended to; ceiling and remanent must be set.
+     * @param wage monthly wage; larger amounts are rejected.
+     * @return ValidationPipeline collecting a BatchPartition.
+     */
+    public ValidationPipeline validationPipeline(TransactionBatch batch, double wage) {
+        return new ValidationPipeline(batch, wage);
+    }
+
+    /**
+     * Parse pipeline for rows appended to the batch one at a time.
+     * @param batch TransactionBatch that rows are appended to.
+     * @return RowPipeline computing ceiling and remanent of each row.
+     */
+    public RowPipeline parsePipeline(TransactionBatch batch) {
+        return batch::roundUp;
+    }
+
+    /**
+     * Response shape of transactions:validator.
+     * @param partition BatchPartition produced by validation.
+     * @return Map containing the lists of valid and invalid transactions along with validation messages.
+     */
+    public Map<String, Object> toValidatorResponse(BatchPartition partition) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("valid", partition.validRows());
+        response.put("invalid", partition.invalidRows());
+        return response;
     }
 
     /**
      * Filter and validate the list of transactions based on the provided criteria.
-     * @param transactions transactionFilterDTO containing the transactions to be filtered and validated along with filter criteria and wage information.
-     * @return Map containing the lists of valid and invalid transactions after filtering along with validation messages.
+     * The q/p/k rules, the validation and the duplicate check run in a single pass that writes
+     * straight into the valid and invalid result lists.
+     * @param filterDTO transactionFilterDTO containing the transactions to be filtered and validated along with filter criteria and wage information.
+     * @return transactionFilterResultDTO containing the lists of valid and invalid transactions after filtering along with validation messages.
      */
-    public Map<String, Object> filterAndValidate(transactionFilterDTO filterDTO) {
-        List<transactionFilterResponseDTO> calculatedList = new ArrayList<>();
-
-        for (transactionsDTO transaction : filterDTO.getTransactions()) {
-
-            LocalDateTime date = transaction.getDate();
-            double originalAmount = transaction.getAmount();
-
-            if (originalAmount <= 0) {
-                calculatedList.add(
-                    new transactionFilterResponseDTO(
-                        date,
-                        originalAmount,
-                        0,
-                        0,
-                        false
-                    )
-                );
-                continue;
-            }
-
-            double ceiling = Math.ceil(originalAmount / 100) * 100;
-            double remanent = ceiling - originalAmount;
-
-            boolean inKPeriod = false;
-
-            // ---------------- Q RULE ----------------
-            qMomentsDTO selectedQ = null;
-            if (filterDTO.getQ() != null) {
-                for (qMomentsDTO q : filterDTO.getQ()) {
-                    if (Helper.isBetweenInclusive(date, q.getStart(), q.getEnd())) {
-                        if (selectedQ == null ||
-                                q.getStart().isAfter(selectedQ.getStart())) {
-                            selectedQ = q;
-                        }
-                    }
-                }
-            }
-
-            if (selectedQ != null) {
-
-                if (selectedQ.getFixed() == 0) {
-                    continue;
-                }
-
-                remanent = selectedQ.getFixed();
-                ceiling = originalAmount + remanent;
-            }
-
-            // ---------------- P RULE ----------------
-            if (filterDTO.getP() != null) {
-                for (pMomentsDTO p : filterDTO.getP()) {
-                    if (Helper.isBetweenInclusive(date, p.getStart(), p.getEnd())) {
-                        remanent += p.getExtra();
-                    }
-                }
-            }
-
-            // ---------------- K RULE ----------------
-            if (filterDTO.getK() != null) {
-                for (kGroupsDTO k : filterDTO.getK()) {
-                    if (Helper.isBetweenInclusive(date, k.getStart(), k.getEnd())) {
-                        inKPeriod = true;
-                    }
-                }
-            }
-
-            calculatedList.add(
-                    new transactionFilterResponseDTO(
-                            date,
-                            originalAmount,
-                            ceiling,
-                            remanent,
-                            inKPeriod));
-        }
+    public transactionFilterResultDTO filterAndValidate(transactionFilterDTO filterDTO) {
+        BatchPartition partition = filterAndValidate(TransactionBatch.of(filterDTO.getTransactions()), filterDTO);
+        return new transactionFilterResultDTO(partition.validFilterRows(), partition.invalidRows());
+    }
 
-        // Validate using your existing function
-        transactionFilterValidatorDTO validatorDTO =
-                new transactionFilterValidatorDTO(calculatedList, filterDTO.getWage());
+    /**
+     * Fused filter pipeline over a batch of raw transactions.
+     * Large batches are filtered in parallel chunks.
+     * @param batch TransactionBatch of raw transactions.
+     * @param filterDTO transactionFilterDTO supplying q, p, k and wage; its transaction list is not read.
+     * @return BatchPartition of the rows in input order; rows dropped by a zero q are in neither list.
+     */
+    public BatchPartition filterAndValidate(TransactionBatch batch, transactionFilterDTO filterDTO) {
+        MomentTimeline timeline = timelineCache.get(filterDTO.getQ(), filterDTO.getP());
+        return executor.partition(batch,
+                FilterPipeline.rules(batch, timeline, KWindowSet.of(filterDTO.getK()), filterDTO.getWage()));
+    }
 
-        return validateTransactions(validatorDTO);
+    /**
+     * Filter pipeline for rows appended to the batch one at a time.
+     * @param batch TransactionBatch that raw rows are appended to.
+     * @param filterDTO transactionFilterDTO supplying q, p, k and wage; its transaction list is not read.
+     * @return FilterPipeline collecting a BatchPartition.
+     */
+    public FilterPipeline filterPipeline(TransactionBatch batch, transactionFilterDTO filterDTO) {
+        MomentTimeline timeline = timelineCache.get(filterDTO.getQ(), filterDTO.getP());
+        return new FilterPipeline(batch, timeline, KWindowSet.of(filterDTO.getK()), filterDTO.getWage());
     }
 }
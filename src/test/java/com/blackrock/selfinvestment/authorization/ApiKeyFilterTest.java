@@ -0,0 +1,162 @@
+package com.blackrock.selfinvestment.authorization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.blackrock.selfinvestment.bulkhead.LoadShedder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ApiKeyFilterTest {
+
+    private static final String PATH = "/blackrock/challenge/v1/transactions:parse";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void everyConfiguredKeyIsAcceptedAndOthersAreNot() throws Exception {
+        ApiKeyFilter filter = filter(shedder(0), "partner", "partner-key", 0, 0);
+
+        assertEquals(200, call(filter, "legacy-key").getStatus());
+        assertEquals(200, call(filter, "partner-key").getStatus());
+        assertEquals(401, call(filter, "other").getStatus());
+        assertEquals(401, call(filter, null).getStatus());
+        assertEquals(2, rejections("unknown", "unauthorized"));
+    }
+
+    @Test
+    void quotaIsPerKey() throws Exception {
+        ApiKeyFilter filter = filter(shedder(0), "limited", "limited-key", 0.5, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, call(filter, "limited-key").getStatus());
+        }
+        MockHttpServletResponse limited = call(filter, "limited-key");
+        assertEquals(429, limited.getStatus());
+        assertEquals("2", limited.getHeader("Retry-After"));
+        // The legacy key has no quota
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, call(filter, "legacy-key").getStatus());
+        }
+        assertEquals(1, rejections("limited", "rate-limited"));
+    }
+
+    @Test
+    void requestsBeyondTheInFlightLimitAreShed() throws Exception {
+        ApiKeyFilter filter = filter(shedder(1), null, null, 0, 0);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        MockHttpServletResponse performance = new MockHttpServletResponse();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        // While the first request is in flight, issue another, and read /performance
+        filter.doFilter(request("legacy-key"), first, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                filter.doFilter(request("legacy-key"), shed, new MockFilterChain());
+                MockHttpServletRequest monitoring = new MockHttpServletRequest("GET", "/blackrock/challenge/v1/performance");
+                monitoring.addHeader("X-API-KEY", "legacy-key");
+                filter.doFilter(monitoring, performance, new MockFilterChain());
+            }
+        });
+
+        assertEquals(200, first.getStatus());
+        assertEquals(200, performance.getStatus());
+        assertEquals(503, shed.getStatus());
+        assertEquals("1", shed.getHeader("Retry-After"));
+        assertEquals(200, call(filter, "legacy-key").getStatus());
+        assertEquals(1, rejections(ApiKeyFilter.DEFAULT_CLIENT, "overloaded"));
+    }
+
+    @Test
+    void concurrentTakersNeverExceedTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1e-3, 1000, 0);
+        AtomicInteger taken = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                await(start);
+                for (int i = 0; i < 500; i++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        taken.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, taken.get());
+        assertTrue(bucket.tryAcquire(0) > 0);
+    }
+
+    /**
+     * Filter with the key "legacy-key" of the default client and optionally one more client.
+     */
+    private ApiKeyFilter filter(LoadShedder shedder, String name, String key, double requestsPerSecond, int burst) {
+        ApiKeyProperties properties = new ApiKeyProperties();
+        properties.setApiKey("legacy-key");
+        if (name != null) {
+            ApiKeyProperties.Client client = new ApiKeyProperties.Client();
+            client.setKey(key);
+            client.setRequestsPerSecond(requestsPerSecond);
+            client.setBurst(burst);
+            properties.getApiKeys().put(name, client);
+        }
+        return new ApiKeyFilter(properties, shedder, registry);
+    }
+
+    private LoadShedder shedder(int maxInFlight) {
+        return new LoadShedder(maxInFlight, 1, Duration.ZERO, Duration.ofSeconds(1), Duration.ofSeconds(1), registry);
+    }
+
+    private double rejections(String client, String reason) {
+        return registry.get("app.security.rejections").tag("client", client).tag("reason", reason).counter().count();
+    }
+
+    private static MockHttpServletResponse call(ApiKeyFilter filter, String key) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(key), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", PATH);
+        if (key != null) {
+            request.addHeader("X-API-KEY", key);
+        }
+        return request;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class BulkheadFilterTest {
+
+    private static final String NPS = "/blackrock/challenge/v1/returns:nps";
+    private static final String PERFORMANCE = "/blackrock/challenge/v1/performance";
+
+    @Test
+    void endpointNamesFollowThePath() {
+        assertEquals("returns-nps", BulkheadFilter.endpointName(NPS));
+        assertEquals("filter", BulkheadFilter.endpointName("/blackrock/challenge/v1/:filter"));
+        assertEquals("performance", BulkheadFilter.endpointName(PERFORMANCE));
+        assertEquals("jobs-filter", BulkheadFilter.endpointName("/blackrock/challenge/v1/jobs/filter"));
+        assertEquals("jobs-returns-nps", BulkheadFilter.endpointName("/blackrock/challenge/v1/jobs/returns:nps"));
+        String id = "3f2b8c1e-9d4a-4e7b-a1c2-0d5e6f7a8b9c";
+        assertEquals("jobs-id-cancel", BulkheadFilter.endpointName("/blackrock/challenge/v1/jobs/" + id + ":cancel"));
+        assertEquals("ledgers-id-transactions",
+                BulkheadFilter.endpointName("/blackrock/challenge/v1/ledgers/" + id + "/transactions"));
+        assertEquals("ledgers-id-returns-nps",
+                BulkheadFilter.endpointName("/blackrock/challenge/v1/ledgers/" + id + "/returns:nps"));
+        assertNull(BulkheadFilter.endpointName("/error"));
+    }
+
+    @Test
+    void fullBulkheadRejectsOnlyItsOwnEndpoint() throws Exception {
+        BulkheadProperties.Limit limit = new BulkheadProperties.Limit();
+        limit.setMaxConcurrent(1);
+        limit.setQueueTimeout(Duration.ofMillis(20));
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.getEndpoints().put("returns-nps", limit);
+        BulkheadFilter filter = new BulkheadFilter(properties);
+
+        MockHttpServletResponse queued = new MockHttpServletResponse();
+        MockHttpServletResponse light = new MockHttpServletResponse();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        // While the first nps request holds the only slot, issue the others
+        filter.doFilter(new MockHttpServletRequest("POST", NPS), first, new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                filter.doFilter(new MockHttpServletRequest("POST", NPS), queued, new MockFilterChain());
+                filter.doFilter(new MockHttpServletRequest("GET", PERFORMANCE), light, new MockFilterChain());
+            }
+        });
+
+        assertEquals(200, first.getStatus());
+        assertEquals(503, queued.getStatus());
+        assertEquals("1", queued.getHeader("Retry-After"));
+        assertEquals(200, light.getStatus());
+
+        MockHttpServletResponse after = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", NPS), after, new MockFilterChain());
+        assertEquals(200, after.getStatus());
+    }
+}
@@ -0,0 +1,43 @@
+package com.blackrock.selfinvestment.bulkhead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoadShedderTest {
+
+    @Test
+    void limitShrinksWhileRequestsQueueAndRecoversAfterwards() throws InterruptedException {
+        LoadShedder shedder = new LoadShedder(64, 4, Duration.ofMillis(5), Duration.ofMillis(1), Duration.ofSeconds(1),
+                new SimpleMeterRegistry());
+        // Every request takes longer than the target: the limit drops to the minimum
+        for (int i = 0; i < 40; i++) {
+            assertTrue(shedder.tryAcquire());
+            Thread.sleep(2);
+            shedder.release(System.nanoTime() - Duration.ofMillis(20).toNanos());
+        }
+        assertEquals(4, shedder.limit());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(shedder.tryAcquire());
+        }
+        assertFalse(shedder.tryAcquire());
+        for (int i = 0; i < 4; i++) {
+            shedder.release(System.nanoTime());
+        }
+
+        // Fast requests again: the limit grows back to the maximum
+        for (int i = 0; i < 200 && shedder.limit() < 64; i++) {
+            assertTrue(shedder.tryAcquire());
+            Thread.sleep(2);
+            shedder.release(System.nanoTime());
+        }
+        assertEquals(64, shedder.limit());
+        assertEquals(0, shedder.inFlight());
+    }
+}
@@ -0,0 +1,118 @@
+package com.blackrock.selfinvestment.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.SavingByDatesDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReturnsResultCacheTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void keyDependsOnContentAndScheme() {
+        ReturnsCacheKey key = ReturnsCacheKey.of("nps", request(100));
+
+        assertEquals(key, ReturnsCacheKey.of("nps", request(100)));
+        assertEquals(key.etag(), ReturnsCacheKey.of("nps", request(100)).etag());
+        assertNotEquals(key, ReturnsCacheKey.of("index", request(100)));
+        assertNotEquals(key, ReturnsCacheKey.of("nps", request(101)));
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        ReturnsCacheKey key = ReturnsCacheKey.of("nps", request(100));
+        String etag = key.etag();
+
+        assertTrue(etag.startsWith("W/\""));
+        assertTrue(key.matches(etag));
+        assertTrue(key.matches("\"other\", " + etag.substring(2)));
+        assertTrue(key.matches("*"));
+        assertFalse(key.matches("\"other\""));
+        assertFalse(key.matches(null));
+    }
+
+    @Test
+    void hitsAreServedUntilTheyExpire() {
+        ReturnsResultCache cache = new ReturnsResultCache(DataSize.ofMegabytes(1), Duration.ofMinutes(10), registry, clock::get);
+        ReturnsCacheKey key = ReturnsCacheKey.of("nps", request(100));
+        AtomicInteger calculations = new AtomicInteger();
+
+        ReturnsResponseDTO first = cache.nps(key, () -> response(calculations, 2));
+        assertSame(first, cache.nps(key, () -> response(calculations, 2)));
+        assertEquals(1, calculations.get());
+
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        cache.nps(key, () -> response(calculations, 2));
+        assertEquals(2, calculations.get());
+
+        assertEquals(1, count("app.returns.cache.gets", "result", "hit"));
+        assertEquals(2, count("app.returns.cache.gets", "result", "miss"));
+        assertEquals(1, count("app.returns.cache.evictions", "cause", "expired"));
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvictedByWeight() {
+        // Room for two responses of 10 savings each (about 2.3 KB apiece), not three
+        ReturnsResultCache cache = new ReturnsResultCache(DataSize.ofBytes(5000), Duration.ofMinutes(10), registry, clock::get);
+        AtomicInteger calculations = new AtomicInteger();
+        ReturnsCacheKey a = ReturnsCacheKey.of("nps", request(1));
+        ReturnsCacheKey b = ReturnsCacheKey.of("nps", request(2));
+        ReturnsCacheKey c = ReturnsCacheKey.of("nps", request(3));
+
+        cache.nps(a, () -> response(calculations, 10));
+        cache.nps(b, () -> response(calculations, 10));
+        cache.nps(a, () -> response(calculations, 10));
+        cache.nps(c, () -> response(calculations, 10));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.weight() <= 5000);
+        assertEquals(1, count("app.returns.cache.evictions", "cause", "size"));
+
+        cache.nps(a, () -> response(calculations, 10));
+        assertEquals(3, calculations.get());
+        cache.nps(b, () -> response(calculations, 10));
+        assertEquals(4, calculations.get());
+    }
+
+    private double count(String name, String tag, String value) {
+        return registry.get(name).tag(tag, value).counter().count();
+    }
+
+    private static ReturnsResponseDTO response(AtomicInteger calculations, int savings) {
+        calculations.incrementAndGet();
+        List<SavingByDatesDTO> savingByDates = new ArrayList<>();
+        for (int i = 0; i < savings; i++) {
+            savingByDates.add(new SavingByDatesDTO(ORIGIN, ORIGIN.plusDays(i), i, i, 0));
+        }
+        return new ReturnsResponseDTO(100, 200, savingByDates);
+    }
+
+    private static ReturnsRequestDTO request(double amount) {
+        return new ReturnsRequestDTO(29, 50000, 5.5, List.of(), List.of(),
+                List.of(new kGroupsDTO(ORIGIN, ORIGIN.plusDays(365))),
+                List.of(new transactionsDTO(ORIGIN.plusDays(3), amount)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.blackrock.selfinvestment.codec;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.SavingByDatesDTO;
+import com.blackrock.selfinvestment.models.SavingsByDatesIndexDTO;
+import com.blackrock.selfinvestment.models.invalidTransactionDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
+import com.blackrock.selfinvestment.models.transactionResponseDTO;
+import com.blackrock.selfinvestment.models.validTransactionDTO;
+import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
+
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+class ResponseSerializersTest {
+
+    @Test
+    void rowsAreWrittenLikeTheBeanSerializer() {
+        List<Object> rows = rows(new Random(23), 3000);
+        assertSameBytes(JsonMapper.builder().build(),
+                JsonMapper.builder().addModule(ResponseSerializers.module()).build(), rows);
+        assertSameBytes(CBORMapper.builder().build(),
+                CBORMapper.builder().addModule(ResponseSerializers.module()).build(), rows);
+        assertSameBytes(SmileMapper.builder().build(),
+                SmileMapper.builder().addModule(ResponseSerializers.module()).build(), rows);
+    }
+
+    @Test
+    void responsesKeepTheirShape() {
+        JsonMapper plain = JsonMapper.builder().build();
+        JsonMapper fast = JsonMapper.builder().addModule(ResponseSerializers.module()).build();
+        LocalDateTime date = LocalDateTime.of(2023, 3, 20, 14, 45);
+        Object filter = new transactionFilterResultDTO(
+                List.of(new validTransactionFilterDTO(date, 3500, 4000, 500, true)),
+                List.of(new invalidTransactionDTO(date, -5, 0, 0, "Negative or zero amount is not allowed")));
+        Object returns = new ReturnsResponseDTO(1725, 1900,
+                List.of(new SavingByDatesDTO(date, date.plusMonths(9), 145, 86.88, 0)));
+        // A LocalDateTime without @JsonFormat is left to Jackson
+        Object untyped = Map.of("at", date);
+        for (Object value : List.of(filter, returns, untyped)) {
+            assertEquals(plain.writeValueAsString(value), fast.writeValueAsString(value));
+        }
+        assertEquals("{\"date\":\"2023-03-20 14:45:00\",\"amount\":3500.0,\"ceiling\":3500.0,\"remanent\":0.0}",
+                fast.writeValueAsString(new transactionResponseDTO(date, 3500, 3500, 0)));
+    }
+
+    private static void assertSameBytes(ObjectMapper plain, ObjectMapper fast, List<Object> rows) {
+        assertArrayEquals(plain.writeValueAsBytes(rows), fast.writeValueAsBytes(rows));
+        // Second pass with the timestamp cache warm
+        assertArrayEquals(plain.writeValueAsBytes(rows), fast.writeValueAsBytes(rows));
+    }
+
+    private static List<Object> rows(Random random, int count) {
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime date = random.nextInt(20) == 0 ? null
+                    : Helper.fromEpochSecond(random.nextLong(-70_000_000_000L, 300_000_000_000L));
+            LocalDateTime end = Helper.fromEpochSecond(random.nextLong(0, 2_000_000_000L)).withNano(random.nextInt(2));
+            double amount = random.nextInt(10) == 0 ? 0 : random.nextDouble(-1000, 100000);
+            double ceiling = Math.ceil(amount / 100) * 100;
+            String message = switch (random.nextInt(3)) {
+                case 0 -> null;
+                case 1 -> "";
+                default -> "Duplicate transaction";
+            };
+            rows.add(switch (i % 8) {
+                case 0 -> new transactionResponseDTO(date, amount, ceiling, ceiling - amount);
+                case 1 -> new validTransactionDTO(date, amount, ceiling, ceiling - amount);
+                case 2 -> new invalidTransactionDTO(date, amount, ceiling, ceiling - amount, message);
+                case 3 -> new validTransactionFilterDTO(date, amount, ceiling, ceiling - amount, random.nextBoolean());
+                case 4 -> new transactionFilterResponseDTO(date, amount, ceiling, ceiling - amount, random.nextBoolean());
+                case 5 -> new kGroupResponseDTO(amount, date, end);
+                case 6 -> new SavingByDatesDTO(date, end, amount, amount / 3, 0);
+                default -> new SavingsByDatesIndexDTO(amount, date, end);
+            });
+        }
+        return rows;
+    }
+}
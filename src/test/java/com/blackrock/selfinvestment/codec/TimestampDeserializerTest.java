@@ -0,0 +1,62 @@
+package com.blackrock.selfinvestment.codec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+class TimestampDeserializerTest {
+
+    private final JsonMapper plain = JsonMapper.builder().build();
+    private final JsonMapper fast = JsonMapper.builder().addModule(TimestampDeserializer.module()).build();
+
+    @Test
+    void decodesLikeTheFormatter() {
+        Random random = new Random(22);
+        for (int i = 0; i < 5000; i++) {
+            long second = random.nextLong(-2_000_000_000L, 4_000_000_000L);
+            String json = body(Helper.fromEpochSecond(second).toString().replace('T', ' ')
+                    + (second % 60 == 0 ? ":00" : ""));
+            assertEquals(plain.readValue(json, transactionsDTO.class).getDate(),
+                    fast.readValue(json, transactionsDTO.class).getDate());
+        }
+        // Outside the strict layout: Jackson's own resolution
+        for (String date : List.of("2023-02-30 00:00:00", "2023-02-29 12:00:00", "2023-12-31 24:00:00")) {
+            assertEquals(plain.readValue(body(date), transactionsDTO.class).getDate(),
+                    fast.readValue(body(date), transactionsDTO.class).getDate());
+        }
+    }
+
+    @Test
+    void repeatedDatesShareOneValue() {
+        String json = body("2023-10-12 20:15:30");
+        assertSame(fast.readValue(json, transactionsDTO.class).getDate(),
+                fast.readValue(json, transactionsDTO.class).getDate());
+    }
+
+    @Test
+    void invalidDatesFailWithTheSameMessage() {
+        for (String date : List.of("2023-13-01 00:00:00", "2023-01-32 00:00:00", "2023-01-01 25:00:00",
+                "not a date", "2023-1-01 00:00:00", "2023-01-01 00:00:0x", "0000-01-01 00:00:00")) {
+            JacksonException expected = assertThrows(JacksonException.class,
+                    () -> plain.readValue(body(date), transactionsDTO.class));
+            JacksonException actual = assertThrows(JacksonException.class,
+                    () -> fast.readValue(body(date), transactionsDTO.class));
+            assertEquals(expected.getOriginalMessage(), actual.getOriginalMessage());
+        }
+    }
+
+    private static String body(String date) {
+        return "{\"date\": \"" + date + "\", \"amount\": 250}";
+    }
+}
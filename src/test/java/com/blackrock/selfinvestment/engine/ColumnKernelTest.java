@@ -0,0 +1,49 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnKernelTest {
+
+    private static final double[] EDGES = {0, -0.0, 0.01, 99.99, 100, 100.01, -0.3, -0.7, -1, -99.5, -100, -250.25,
+            1e15 + 0.5, 0x1p52, 0x1p53 + 2, -0x1p52 - 2, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN,
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1500, 1500.000001};
+
+    @Test
+    void vectorKernelIsBitIdenticalToScalar() {
+        ColumnKernel vector = ColumnKernel.vector();
+        assumeTrue(vector != null, "jdk.incubator.vector not available");
+        Random random = new Random(17);
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(70);
+            double[] amount = new double[size];
+            for (int i = 0; i < size; i++) {
+                amount[i] = random.nextInt(4) == 0 ? EDGES[random.nextInt(EDGES.length)]
+                        : (random.nextInt(400000) - 20000) / 100.0;
+            }
+            int from = size == 0 ? 0 : random.nextInt(size);
+
+            double[] expectedCeiling = new double[size], expectedRemanent = new double[size];
+            double[] ceiling = new double[size], remanent = new double[size];
+            ColumnKernel.scalar().roundUp(amount, expectedCeiling, expectedRemanent, from, size);
+            vector.roundUp(amount, ceiling, remanent, from, size);
+            assertArrayEquals(bits(expectedCeiling), bits(ceiling), Arrays.toString(amount));
+            assertArrayEquals(bits(expectedRemanent), bits(remanent), Arrays.toString(amount));
+
+            int[] expectedRows = new int[size], rows = new int[size];
+            int expected = ColumnKernel.scalar().selectValid(amount, from, size, 1500, expectedRows);
+            assertEquals(expected, vector.selectValid(amount, from, size, 1500, rows));
+            assertArrayEquals(Arrays.copyOf(expectedRows, expected), Arrays.copyOf(rows, expected));
+        }
+    }
+
+    private static long[] bits(double[] values) {
+        return Arrays.stream(values).mapToLong(Double::doubleToRawLongBits).toArray();
+    }
+}
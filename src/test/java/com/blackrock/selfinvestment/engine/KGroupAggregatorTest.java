@@ -0,0 +1,124 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.kGroupResponseDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+class KGroupAggregatorTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+
+    @Test
+    void matchesNestedLoopsOnRandomRequests() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            ReturnsRequestDTO request = randomRequest(random);
+            KGroupAggregator aggregator = KGroupAggregator.build(request, MomentTimeline.compile(request.getQ(), request.getP()));
+            List<kGroupResponseDTO> actual = aggregator.aggregate(request.getK());
+
+            for (int i = 0; i < request.getK().size(); i++) {
+                kGroupsDTO k = request.getK().get(i);
+                assertEquals(nestedLoopSum(request, k), actual.get(i).getAmount(), "round " + round + " k " + i);
+            }
+        }
+    }
+
+    @Test
+    void windowBoundsAreInclusiveAndEmptyWindowsSumToZero() {
+        List<transactionsDTO> transactions = List.of(
+                new transactionsDTO(ORIGIN.plusDays(2), 250),
+                new transactionsDTO(ORIGIN, 375),
+                new transactionsDTO(ORIGIN.plusDays(1), 620));
+        ReturnsRequestDTO request = new ReturnsRequestDTO(29, 50000, 5.5, List.of(), List.of(), List.of(), transactions);
+        KGroupAggregator aggregator = KGroupAggregator.build(request, MomentTimeline.compile(request.getQ(), request.getP()));
+
+        assertEquals(25 + 80, aggregator.sum(ORIGIN, ORIGIN.plusDays(1)));
+        assertEquals(50, aggregator.sum(ORIGIN.plusDays(2), ORIGIN.plusDays(2)));
+        assertEquals(0, aggregator.sum(ORIGIN.plusDays(2), ORIGIN));
+        assertEquals(0, aggregator.sum(ORIGIN.minusDays(5), ORIGIN.minusDays(1)));
+        assertEquals(1245, aggregator.getTotalAmount());
+    }
+
+    @Test
+    void windowSumDoesNotCarryTheRoundingOfEarlierRows() {
+        List<transactionsDTO> transactions = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            transactions.add(new transactionsDTO(ORIGIN.plusSeconds(i), 34.56));
+        }
+        transactions.add(new transactionsDTO(ORIGIN.plusDays(1), 61.13));
+        transactions.add(new transactionsDTO(ORIGIN.plusDays(1), 61.13));
+        kGroupsDTO k = new kGroupsDTO(ORIGIN.plusDays(1), ORIGIN.plusDays(1));
+        ReturnsRequestDTO request = new ReturnsRequestDTO(29, 50000, 5.5, List.of(), List.of(), List.of(k), transactions);
+        KGroupAggregator aggregator = KGroupAggregator.build(request, MomentTimeline.compile(request.getQ(), request.getP()));
+
+        assertEquals(nestedLoopSum(request, k), aggregator.sum(k.getStart(), k.getEnd()));
+    }
+
+    /** The nested loop of the original endpoint, with the window added exactly and rounded once. */
+    private static double nestedLoopSum(ReturnsRequestDTO request, kGroupsDTO k) {
+        BigDecimal kAmount = BigDecimal.ZERO;
+        for (transactionsDTO transaction : request.getTransactions()) {
+            double amount = transaction.getAmount();
+            if (amount < 0 || amount > request.getWage()) continue;
+            LocalDateTime date = transaction.getDate();
+            if (!Helper.isBetweenInclusive(date, k.getStart(), k.getEnd())) continue;
+
+            double remanent = Math.ceil(amount / 100) * 100 - amount;
+            for (qMomentsDTO q : request.getQ()) {
+                if (Helper.isBetweenInclusive(date, q.getStart(), q.getEnd())) {
+                    remanent = q.getFixed();
+                    break;
+                }
+            }
+            for (pMomentsDTO p : request.getP()) {
+                if (Helper.isBetweenInclusive(date, p.getStart(), p.getEnd())) {
+                    remanent += p.getExtra();
+                }
+            }
+            kAmount = kAmount.add(new BigDecimal(remanent));
+        }
+        return kAmount.doubleValue();
+    }
+
+    private static ReturnsRequestDTO randomRequest(Random random) {
+        List<transactionsDTO> transactions = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(200); i < n; i++) {
+            transactions.add(new transactionsDTO(randomDate(random), random.nextInt(2000) - 100 + random.nextInt(100) / 100.0));
+        }
+        List<qMomentsDTO> q = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            q.add(new qMomentsDTO(random.nextInt(4) * 10, start, start.plusDays(random.nextInt(60))));
+        }
+        List<pMomentsDTO> p = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            p.add(new pMomentsDTO(random.nextInt(50), start, start.plusDays(random.nextInt(60))));
+        }
+        List<kGroupsDTO> k = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(10); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            k.add(new kGroupsDTO(start, start.plusDays(random.nextInt(120) - 5)));
+        }
+        return new ReturnsRequestDTO(30, 1500, 5.5, q, p, k, transactions);
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        // Coarse grid so that equal timestamps and exact window bounds occur often
+        return ORIGIN.plusHours(random.nextInt(365) * 24L);
+    }
+}
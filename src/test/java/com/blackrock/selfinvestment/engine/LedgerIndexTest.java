@@ -0,0 +1,84 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+class LedgerIndexTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+    private static final double WAGE = 1500;
+
+    @Test
+    void appendedBatchesMatchAggregatorOverWholeHistory() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            List<qMomentsDTO> q = List.of(new qMomentsDTO(0, ORIGIN.plusDays(40), ORIGIN.plusDays(70)),
+                    new qMomentsDTO(35, ORIGIN.plusDays(200), ORIGIN.plusDays(260)));
+            List<pMomentsDTO> p = List.of(new pMomentsDTO(25, ORIGIN.plusDays(10), ORIGIN.plusDays(300)));
+            MomentTimeline timeline = MomentTimeline.compile(q, p);
+            LedgerIndex index = new LedgerIndex(WAGE, timeline);
+            TransactionBatch history = new TransactionBatch(16);
+
+            int day = 0;
+            for (int append = 0; append < 8; append++) {
+                TransactionBatch batch = new TransactionBatch(16);
+                for (int i = 0, n = random.nextInt(200); i < n; i++) {
+                    // Mostly in statement order, with some late and repeated times
+                    int offset = random.nextInt(10) == 0 ? -random.nextInt(day + 1) : random.nextInt(3);
+                    day = Math.max(0, Math.min(364, day + offset));
+                    long time = Helper.toEpochSecond(ORIGIN.plusDays(day));
+                    double amount = random.nextInt(2000) - 100 + random.nextInt(100) / 100.0;
+                    batch.add(time, amount);
+                    history.add(time, amount);
+                }
+                batch.roundUp();
+                index.append(batch);
+
+                TransactionBatch all = copy(history);
+                all.roundUp();
+                KGroupAggregator expected = KGroupAggregator.build(all, WAGE, timeline);
+                assertEquals(expected.getTotalAmount(), index.getTotalAmount(), 1e-6);
+                assertEquals(expected.getTotalCeiling(), index.getTotalCeiling(), 1e-6);
+                for (kGroupsDTO k : randomK(random)) {
+                    assertEquals(expected.sum(k.getStart(), k.getEnd()), index.sum(k.getStart(), k.getEnd()),
+                            "round " + round + " append " + append);
+                }
+            }
+        }
+    }
+
+    @Test
+    void emptyLedgerSumsToZero() {
+        LedgerIndex index = new LedgerIndex(WAGE, MomentTimeline.compile(List.of(), List.of()));
+        assertEquals(0, index.sum(ORIGIN, ORIGIN.plusDays(30)));
+        assertEquals(0, index.getCount());
+    }
+
+    private static TransactionBatch copy(TransactionBatch batch) {
+        TransactionBatch copy = new TransactionBatch(batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            copy.add(batch.epochSecond(row), batch.amount(row));
+        }
+        return copy;
+    }
+
+    private static List<kGroupsDTO> randomK(Random random) {
+        List<kGroupsDTO> k = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime start = ORIGIN.plusDays(random.nextInt(365)).plusSeconds(random.nextInt(3) - 1);
+            k.add(new kGroupsDTO(start, start.plusDays(random.nextInt(120) - 5)));
+        }
+        return k;
+    }
+}
@@ -0,0 +1,94 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+class MomentTimelineTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+
+    @Test
+    void segmentsMatchLinearScanOfMoments() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            List<qMomentsDTO> q = new ArrayList<>();
+            for (int i = 0, n = random.nextInt(8); i < n; i++) {
+                LocalDateTime start = randomDate(random);
+                q.add(new qMomentsDTO(random.nextInt(5) * 10, start, start.plusDays(random.nextInt(40) - 2)));
+            }
+            List<pMomentsDTO> p = new ArrayList<>();
+            for (int i = 0, n = random.nextInt(8); i < n; i++) {
+                LocalDateTime start = randomDate(random);
+                p.add(new pMomentsDTO(random.nextInt(50), start, start.plusDays(random.nextInt(40))));
+            }
+            MomentTimeline timeline = MomentTimeline.compile(q, p);
+            MomentTimeline.Cursor cursor = timeline.cursor();
+
+            for (int t = 0; t < 500; t++) {
+                LocalDateTime date = randomDate(random).plusSeconds(random.nextInt(3) - 1);
+                int segment = random.nextBoolean() ? timeline.segment(Helper.toEpochSecond(date))
+                        : cursor.seek(Helper.toEpochSecond(date));
+
+                assertEquals(firstQ(q, date), timeline.firstQ(segment));
+                assertEquals(latestQ(q, date), timeline.latestQ(segment));
+                assertEquals(extra(p, date), timeline.extra(segment));
+            }
+        }
+    }
+
+    @Test
+    void cacheReusesTimelineForEqualRuleSets() {
+        MomentTimelineCache cache = new MomentTimelineCache(1);
+        List<qMomentsDTO> q = List.of(new qMomentsDTO(0, ORIGIN, ORIGIN.plusDays(30)));
+        List<pMomentsDTO> p = List.of(new pMomentsDTO(25, ORIGIN.plusDays(10), ORIGIN.plusDays(90)));
+
+        MomentTimeline first = cache.get(q, p);
+        assertSame(first, cache.get(List.of(new qMomentsDTO(0, ORIGIN, ORIGIN.plusDays(30))), p));
+
+        cache.get(q, List.of());
+        assertEquals(1, cache.size());
+        assertNotSame(first, cache.get(q, p));
+    }
+
+    private static int firstQ(List<qMomentsDTO> q, LocalDateTime date) {
+        for (int i = 0; i < q.size(); i++) {
+            if (Helper.isBetweenInclusive(date, q.get(i).getStart(), q.get(i).getEnd())) return i;
+        }
+        return MomentTimeline.NO_Q;
+    }
+
+    private static int latestQ(List<qMomentsDTO> q, LocalDateTime date) {
+        int selected = MomentTimeline.NO_Q;
+        for (int i = 0; i < q.size(); i++) {
+            if (Helper.isBetweenInclusive(date, q.get(i).getStart(), q.get(i).getEnd())
+                    && (selected == MomentTimeline.NO_Q || q.get(i).getStart().isAfter(q.get(selected).getStart()))) {
+                selected = i;
+            }
+        }
+        return selected;
+    }
+
+    private static double extra(List<pMomentsDTO> p, LocalDateTime date) {
+        double extra = 0;
+        for (pMomentsDTO moment : p) {
+            if (Helper.isBetweenInclusive(date, moment.getStart(), moment.getEnd())) extra += moment.getExtra();
+        }
+        return extra;
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        return ORIGIN.plusDays(random.nextInt(120));
+    }
+}
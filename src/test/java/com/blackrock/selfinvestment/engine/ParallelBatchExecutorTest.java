@@ -0,0 +1,132 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+class ParallelBatchExecutorTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+    private static final int ROWS = 60_000; // several chunks of at least 4096 rows
+
+    private static final ParallelBatchExecutor parallel = new ParallelBatchExecutor(4, 1);
+
+    @AfterAll
+    static void shutdown() {
+        parallel.close();
+    }
+
+    @Test
+    void parallelFilterMatchesSequentialPipeline() {
+        Random random = new Random(3);
+        for (int round = 0; round < 5; round++) {
+            MomentTimeline timeline = MomentTimeline.compile(randomQ(random), randomP(random));
+            KWindowSet kWindows = KWindowSet.of(randomK(random));
+            TransactionBatch sequentialBatch = randomBatch(random);
+            TransactionBatch parallelBatch = copy(sequentialBatch);
+
+            FilterPipeline pipeline = new FilterPipeline(sequentialBatch, timeline, kWindows, 1500);
+            for (int row = 0; row < sequentialBatch.size(); row++) {
+                pipeline.accept(row);
+            }
+            BatchPartition actual = parallel.partition(parallelBatch,
+                    FilterPipeline.rules(parallelBatch, timeline, kWindows, 1500));
+
+            assertEquals(pipeline.getPartition().validFilterRows(), actual.validFilterRows(), "round " + round);
+            assertEquals(pipeline.getPartition().invalidRows(), actual.invalidRows(), "round " + round);
+        }
+    }
+
+    @Test
+    void parallelValidationKeepsFirstOccurrenceAcrossChunks() {
+        TransactionBatch batch = randomBatch(new Random(5));
+        batch.roundUp();
+        ValidationPipeline pipeline = new ValidationPipeline(batch, 1500);
+        for (int row = 0; row < batch.size(); row++) {
+            pipeline.accept(row);
+        }
+        BatchPartition actual = parallel.partition(batch, ValidationPipeline.rules(batch, 1500));
+
+        assertEquals(pipeline.getPartition().validRows(), actual.validRows());
+        assertEquals(pipeline.getPartition().invalidRows(), actual.invalidRows());
+    }
+
+    @Test
+    void parallelAggregatorSumsAreIdentical() {
+        Random random = new Random(9);
+        MomentTimeline timeline = MomentTimeline.compile(randomQ(random), randomP(random));
+        TransactionBatch sequentialBatch = randomBatch(random);
+        TransactionBatch parallelBatch = copy(sequentialBatch);
+        sequentialBatch.roundUp();
+        parallel.forEachRange(parallelBatch.size(), parallelBatch::roundUp);
+
+        assertArrayEquals(sequentialBatch.remanentColumn(), parallelBatch.remanentColumn());
+
+        KGroupAggregator expected = KGroupAggregator.build(sequentialBatch, 1500, timeline);
+        KGroupAggregator actual = KGroupAggregator.build(parallelBatch, 1500, timeline, parallel);
+        for (kGroupsDTO k : randomK(random)) {
+            assertEquals(expected.sum(k.getStart(), k.getEnd()), actual.sum(k.getStart(), k.getEnd()));
+        }
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount());
+    }
+
+    private static TransactionBatch randomBatch(Random random) {
+        TransactionBatch batch = new TransactionBatch(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            // Narrow key space so duplicates span chunk boundaries
+            batch.add(Helper.toEpochSecond(randomDate(random)), random.nextInt(400) * 5 - 100);
+        }
+        return batch;
+    }
+
+    private static TransactionBatch copy(TransactionBatch batch) {
+        TransactionBatch copy = new TransactionBatch(batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            copy.add(batch.epochSecond(row), batch.amount(row));
+        }
+        return copy;
+    }
+
+    private static List<qMomentsDTO> randomQ(Random random) {
+        List<qMomentsDTO> q = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            q.add(new qMomentsDTO(random.nextInt(4) * 10, start, start.plusDays(random.nextInt(60))));
+        }
+        return q;
+    }
+
+    private static List<pMomentsDTO> randomP(Random random) {
+        List<pMomentsDTO> p = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            p.add(new pMomentsDTO(random.nextInt(50), start, start.plusDays(random.nextInt(60))));
+        }
+        return p;
+    }
+
+    private static List<kGroupsDTO> randomK(Random random) {
+        List<kGroupsDTO> k = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(10); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            k.add(new kGroupsDTO(start, start.plusDays(random.nextInt(120))));
+        }
+        return k;
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        return ORIGIN.plusHours(random.nextInt(365) * 24L);
+    }
+}
@@ -0,0 +1,36 @@
+package com.blackrock.selfinvestment.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionKeySetTest {
+
+    @Test
+    void agreesWithHashSetAcrossRehashes() {
+        Random random = new Random(3);
+        TransactionKeySet set = new TransactionKeySet(4);
+        Set<String> reference = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            long second = 1_672_531_200L + random.nextInt(5_000);
+            double amount = random.nextInt(50) * 12.5;
+            assertEquals(reference.add(second + "/" + amount), set.add(second, amount));
+        }
+        assertEquals(reference.size(), set.size());
+    }
+
+    @Test
+    void amountsCompareLikeDoubleEquality() {
+        TransactionKeySet set = new TransactionKeySet(0);
+        assertTrue(set.add(10, 0.0));
+        assertFalse(set.add(10, -0.0));
+        assertTrue(set.add(10, Double.NaN));
+        assertTrue(set.add(10, Double.NaN));
+    }
+}
@@ -0,0 +1,87 @@
+package com.blackrock.selfinvestment.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.helper.Helper;
+
+class CsvTransactionReaderTest {
+
+    @Test
+    void readsHeaderQuotesAndLineEndings() {
+        String csv = "﻿id,\"Amount\",Date,Ceiling,Remanent\r\n"
+                + "1,3500,2023-03-20 14:45:00,3600,100\r\n"
+                + "\r\n"
+                + "2,\"-12.5\",\"2024-02-29 23:59:59\",0,0\n"
+                + "3, 1e3 ,2023-02-30 00:00:00,1000,0";
+        CsvTransactionReader reader = reader(csv);
+        TransactionBatch batch = new TransactionBatch(4);
+
+        assertEquals(3, reader.read(batch, 10));
+        assertTrue(reader.hasCeiling());
+        assertEquals(LocalDateTime.of(2023, 3, 20, 14, 45), batch.date(0));
+        assertEquals(3500, batch.amount(0));
+        assertEquals(100, batch.remanent(0));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 23, 59, 59), batch.date(1));
+        assertEquals(-12.5, batch.amount(1));
+        // Same resolution as the JSON endpoints for the forms outside the fast path
+        assertEquals(Helper.parseDateTime("2023-02-30 00:00:00"), batch.date(2));
+        assertEquals(1000, batch.amount(2));
+        assertEquals(0, reader.read(batch, 10));
+    }
+
+    @Test
+    void matchesJdkParsingAcrossChunks() {
+        Random random = new Random(19);
+        StringBuilder csv = new StringBuilder();
+        long[] seconds = new long[5000];
+        double[] amounts = new double[seconds.length];
+        for (int i = 0; i < seconds.length; i++) {
+            seconds[i] = random.nextLong(-2_000_000_000L, 4_000_000_000L);
+            String amount = switch (random.nextInt(3)) {
+                case 0 -> Long.toString(random.nextLong(-100000, 100000));
+                case 1 -> random.nextInt(100000) + "." + random.nextInt(100);
+                default -> "0." + Long.toString(random.nextLong(1L << 40, 1L << 62));
+            };
+            amounts[i] = Double.parseDouble(amount);
+            csv.append(Helper.fromEpochSecond(seconds[i]).toString().replace('T', ' '))
+                    .append(seconds[i] % 60 == 0 ? ":00" : "").append(',').append(amount).append('\n');
+        }
+        CsvTransactionReader reader = reader(csv.toString());
+        TransactionBatch batch = new TransactionBatch(16);
+        int row = 0;
+        int count;
+        while ((count = reader.read(batch, 777)) > 0) {
+            for (int i = 0; i < count; i++, row++) {
+                assertEquals(seconds[row], batch.epochSecond(i));
+                assertEquals(Double.doubleToRawLongBits(amounts[row]), Double.doubleToRawLongBits(batch.amount(i)));
+            }
+            batch.clear();
+        }
+        assertEquals(seconds.length, row);
+    }
+
+    @Test
+    void malformedLineNamesItsNumber() {
+        CsvTransactionReader reader = reader("date,amount\n2023-01-01 00:00:00,10\n2023-01-01 00:00:00,ten\n");
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> reader.read(new TransactionBatch(4), 10));
+        assertEquals("CSV line 3: invalid amount 'ten'", e.getReason());
+
+        assertThrows(ResponseStatusException.class, () -> reader("when,value\n").read(new TransactionBatch(4), 10));
+    }
+
+    private static CsvTransactionReader reader(String csv) {
+        return new CsvTransactionReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,104 @@
+package com.blackrock.selfinvestment.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.codec.BodyFormat;
+import com.blackrock.selfinvestment.engine.BatchPartition;
+import com.blackrock.selfinvestment.engine.FilterPipeline;
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+import com.blackrock.selfinvestment.models.validTransactionFilterDTO;
+import com.blackrock.selfinvestment.service.TransactionService;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+class TransactionStreamReaderTest {
+
+    private static final String RULES = """
+            "q": [{"fixed": 500, "start": "2023-01-01 00:00:00", "end": "2023-06-30 23:59:59"}],
+            "p": [{"extra": 25, "start": "2023-03-01 00:00:00", "end": "2023-12-31 23:59:59"}],
+            "k": [{"start": "2023-03-01 00:00:00", "end": "2023-03-31 23:59:59"}],
+            "wage": 50000""";
+
+    private static final String ROWS = """
+            "transactions": [
+              {"date": "2023-03-20 14:45:00", "amount": 3500, "ignored": {"nested": [1, 2]}},
+              {"date": "2023-03-20 14:45:00", "amount": "3500"},
+              {"date": "2023-08-10 09:15:00", "amount": 1520},
+              {"date": "2023-09-01 10:00:00", "amount": -5}
+            ]""";
+
+    private final TransactionService service = new TransactionService(new MomentTimelineCache(16),
+            ParallelBatchExecutor.sequential());
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final CBORMapper cborMapper = CBORMapper.builder().build();
+    private final SmileMapper smileMapper = SmileMapper.builder().build();
+    private final TransactionStreamReader reader = new TransactionStreamReader(jsonMapper, cborMapper, smileMapper);
+
+    @Test
+    void rowsBeforeOrAfterRulesGiveTheSameResult() {
+        BatchPartition rulesFirst = filter("{" + RULES + "," + ROWS + "}");
+        BatchPartition rowsFirst = filter("{" + ROWS + "," + RULES + "}");
+
+        assertEquals(rulesFirst.validFilterRows(), rowsFirst.validFilterRows());
+        assertEquals(rulesFirst.invalidRows(), rowsFirst.invalidRows());
+
+        List<validTransactionFilterDTO> valid = rulesFirst.validFilterRows();
+        assertEquals(2, valid.size());
+        assertEquals(525.0, valid.get(0).getRemanent());
+        assertEquals(true, valid.get(0).isInKPeriod());
+        assertEquals(105.0, valid.get(1).getRemanent());
+        assertEquals("Duplicate transaction", rulesFirst.invalidRows().get(0).getMessage());
+        assertEquals(2, rulesFirst.invalidCount());
+    }
+
+    @Test
+    void malformedBodiesAreBadRequests() {
+        assertThrows(ResponseStatusException.class, () -> filter("{\"transactions\": [{\"amount\": 1}]}"));
+        assertThrows(ResponseStatusException.class,
+                () -> filter("{\"transactions\": [{\"date\": \"2023-13-01 00:00:00\", \"amount\": 1}]}"));
+        assertThrows(ResponseStatusException.class, () -> filter("{\"transactions\": [{\"date\": \"2023"));
+    }
+
+    @Test
+    void binaryBodiesAndEpochSecondDatesGiveTheSameResult() {
+        BatchPartition json = filter("{" + RULES + "," + ROWS + "}");
+        JsonNode tree = jsonMapper.readTree("{" + RULES + "," + ROWS + "}");
+        for (JsonNode row : tree.get("transactions")) {
+            ((ObjectNode) row).put("date", Helper.toEpochSecond(Helper.parseDateTime(row.get("date").asString())));
+        }
+
+        for (BatchPartition binary : List.of(filter(cborMapper.writeValueAsBytes(tree), BodyFormat.CBOR),
+                filter(smileMapper.writeValueAsBytes(tree), BodyFormat.SMILE))) {
+            assertEquals(json.validFilterRows(), binary.validFilterRows());
+            assertEquals(json.invalidRows(), binary.invalidRows());
+        }
+    }
+
+    private BatchPartition filter(String json) {
+        return filter(json.getBytes(StandardCharsets.UTF_8), BodyFormat.JSON);
+    }
+
+    private BatchPartition filter(byte[] body, BodyFormat format) {
+        TransactionBatch batch = new TransactionBatch(4);
+        FilterPipeline pipeline = reader.read(new ByteArrayInputStream(body), format,
+                RequestLayout.FILTER, batch, (transactionFilterDTO header, TransactionBatch rows) ->
+                        service.filterPipeline(rows, header));
+        return pipeline.getPartition();
+    }
+}
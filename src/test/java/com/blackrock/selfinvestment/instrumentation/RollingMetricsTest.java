@@ -0,0 +1,92 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.AbstractHistogram;
+import org.junit.jupiter.api.Test;
+
+class RollingMetricsTest {
+
+    private static final long MILLI = 1_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(Duration.ofHours(1).toNanos());
+    private final AtomicLong allocated = new AtomicLong();
+
+    @Test
+    void percentilesCoverTheWindow() {
+        try (RollingMetrics metrics = new RollingMetrics(clock::get, allocated::get)) {
+            for (int i = 1; i <= 100; i++) {
+                metrics.record("/returns:nps", i * MILLI);
+            }
+            AbstractHistogram minute = metrics.latency(RollingMetrics.ONE_MINUTE).get("/returns:nps");
+
+            assertEquals(100, minute.getTotalCount());
+            assertEquals(50_000, minute.getValueAtPercentile(50), 500);
+            assertEquals(99_000, minute.getValueAtPercentile(99), 1_000);
+            assertEquals(100_000, minute.getMaxValue(), 1_000);
+        }
+    }
+
+    @Test
+    void oldIntervalsLeaveTheShortWindowFirst() {
+        try (RollingMetrics metrics = new RollingMetrics(clock::get, allocated::get)) {
+            metrics.record("/filter", 5 * MILLI);
+            metrics.tick();
+
+            advance(Duration.ofMinutes(2));
+            metrics.record("/filter", 7 * MILLI);
+            metrics.tick();
+
+            Map<String, AbstractHistogram> minute = metrics.latency(RollingMetrics.ONE_MINUTE);
+            Map<String, AbstractHistogram> quarter = metrics.latency(RollingMetrics.FIFTEEN_MINUTES);
+            assertEquals(1, minute.get("/filter").getTotalCount());
+            assertEquals(2, quarter.get("/filter").getTotalCount());
+
+            advance(Duration.ofMinutes(16));
+            metrics.tick();
+            assertEquals(0, metrics.latency(RollingMetrics.FIFTEEN_MINUTES).get("/filter").getTotalCount());
+        }
+    }
+
+    @Test
+    void allocationRateIsMeasuredOverTheWindow() {
+        try (RollingMetrics metrics = new RollingMetrics(clock::get, allocated::get)) {
+            for (int tick = 0; tick < 24; tick++) {
+                advance(RollingMetrics.TICK);
+                allocated.addAndGet(tick < 12 ? 5_000_000 : 10_000_000);
+                metrics.tick();
+            }
+            assertEquals(2_000_000, metrics.allocationRate(RollingMetrics.ONE_MINUTE), 1);
+            assertEquals(1_500_000, metrics.allocationRate(RollingMetrics.FIFTEEN_MINUTES), 1);
+        }
+    }
+
+    @Test
+    void allocationRateIsUnavailableWithoutCounter() {
+        try (RollingMetrics metrics = new RollingMetrics(clock::get, () -> -1)) {
+            advance(RollingMetrics.TICK);
+            metrics.tick();
+            assertEquals(-1, metrics.allocationRate(RollingMetrics.ONE_MINUTE));
+        }
+    }
+
+    @Test
+    void longLatenciesAreClamped() {
+        try (RollingMetrics metrics = new RollingMetrics(clock::get, allocated::get)) {
+            metrics.record("/slow", Duration.ofHours(2).toNanos());
+            AbstractHistogram minute = metrics.latency(RollingMetrics.ONE_MINUTE).get("/slow");
+            assertTrue(minute.getMaxValue() >= Duration.ofMinutes(1).toNanos() / 1_000 * 99 / 100);
+            assertFalse(metrics.latency(RollingMetrics.ONE_MINUTE).containsKey("/filter"));
+        }
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,66 @@
+package com.blackrock.selfinvestment.instrumentation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class StageTimerTest {
+
+    @Test
+    void virtualThreadRecordsWallTimeOnly() throws InterruptedException {
+        AtomicReference<StageTimer> result = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            StageTimer timer = StageTimer.start(Stage.COMPUTE);
+            allocate();
+            timer.stop();
+            result.set(timer);
+        }).join();
+
+        assertEquals(-1, result.get().cpuNanos(Stage.COMPUTE));
+        assertEquals(-1, result.get().allocatedBytes(Stage.COMPUTE));
+        assertTrue(result.get().wallNanos(Stage.COMPUTE) > 0);
+    }
+
+    @Test
+    void countersFollowTheTimerToAPlatformThread() throws InterruptedException {
+        AtomicReference<StageTimer> result = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            StageTimer timer = StageTimer.start(Stage.DESERIALIZE);
+            timer.detach();
+            Thread platform = Thread.ofPlatform().start(() -> {
+                timer.attach();
+                assertSame(timer, StageTimer.current());
+                StageTimer.mark(Stage.COMPUTE);
+                allocate();
+                timer.detach();
+            });
+            try {
+                platform.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            timer.attach();
+            timer.stop();
+            result.set(timer);
+        }).join();
+
+        StageTimer timer = result.get();
+        assertTrue(timer.entered(Stage.DESERIALIZE));
+        assertTrue(timer.allocatedBytes(Stage.COMPUTE) >= 1 << 20, "allocated " + timer.allocatedBytes(Stage.COMPUTE));
+        assertTrue(timer.cpuNanos(Stage.COMPUTE) >= 0);
+        assertTrue(timer.serverTiming().contains("compute;dur="));
+        assertTrue(timer.serverTiming().contains("alloc="));
+    }
+
+    private static void allocate() {
+        byte[][] blocks = new byte[16][];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new byte[1 << 16];
+        }
+        assertEquals(16, blocks.length);
+    }
+}
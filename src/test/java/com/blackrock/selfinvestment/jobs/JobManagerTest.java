@@ -0,0 +1,98 @@
+package com.blackrock.selfinvestment.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JobManagerTest {
+
+    @Test
+    void fullQueueRefusesAndCancelFreesSlots() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try (JobManager manager = manager(1, 1, DataSize.ofMegabytes(1))) {
+            Job running = manager.submit("blocking", 3, job -> {
+                job.advance(1);
+                started.countDown();
+                await(release);
+                job.advance(1);
+                return new JobResult("never", 0);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            Job queued = manager.submit("queued", 1, job -> new JobResult("queued", 0));
+            assertNotNull(queued);
+            assertNull(manager.submit("refused", 1, job -> new JobResult("refused", 0)));
+
+            assertEquals(JobStatus.CANCELLED, manager.cancel(queued.getId()).getStatus());
+            assertNotNull(manager.submit("after-cancel", 1, job -> new JobResult("ok", 0)));
+
+            assertEquals(1, running.summary().getProcessed());
+            manager.cancel(running.getId());
+            release.countDown();
+            assertEquals(JobStatus.CANCELLED, running.getStatus());
+            assertNull(running.value());
+        }
+    }
+
+    @Test
+    void oldestResultsAreEvictedBeyondTheRetentionSize() throws InterruptedException {
+        try (JobManager manager = manager(1, 8, DataSize.ofBytes(250))) {
+            Job[] submitted = new Job[3];
+            for (int i = 0; i < submitted.length; i++) {
+                int value = i;
+                submitted[i] = manager.submit("sized", 1, job -> new JobResult(value, 100));
+            }
+            for (Job job : submitted) {
+                awaitFinal(job);
+            }
+            assertNull(manager.get(submitted[0].getId()));
+            assertEquals(1, manager.get(submitted[1].getId()).value());
+            assertEquals(2, manager.get(submitted[2].getId()).value());
+            assertEquals(200, manager.weight());
+
+            manager.remove(submitted[1].getId());
+            assertEquals(100, manager.weight());
+        }
+    }
+
+    @Test
+    void failureIsReportedOnTheJob() throws InterruptedException {
+        try (JobManager manager = manager(1, 1, DataSize.ofMegabytes(1))) {
+            Job job = manager.submit("failing", 1, j -> {
+                throw new IllegalArgumentException("bad input");
+            });
+            awaitFinal(job);
+            assertEquals(JobStatus.FAILED, job.getStatus());
+            assertEquals("bad input", job.summary().getError());
+        }
+    }
+
+    private static JobManager manager(int workers, int queue, DataSize retention) {
+        return new JobManager(workers, queue, retention, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    private static void awaitFinal(Job job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.getStatus().isFinal(); i++) {
+            Thread.sleep(10);
+        }
+        // Retention happens right after the status changes
+        Thread.sleep(20);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
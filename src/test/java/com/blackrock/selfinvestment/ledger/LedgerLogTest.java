@@ -0,0 +1,181 @@
+package com.blackrock.selfinvestment.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.blackrock.selfinvestment.engine.LedgerIndex;
+import com.blackrock.selfinvestment.engine.MomentTimeline;
+import com.blackrock.selfinvestment.engine.TransactionBatch;
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+
+class LedgerLogTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+    private static final double WAGE = 1500;
+    private static final MomentTimeline TIMELINE = MomentTimeline.compile(
+            List.of(new qMomentsDTO(0, ORIGIN.plusDays(40), ORIGIN.plusDays(70))),
+            List.of(new pMomentsDTO(25, ORIGIN.plusDays(10), ORIGIN.plusDays(300))));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoveredIndexMatchesAppendedOneAcrossSegments() throws IOException {
+        Random random = new Random(5);
+        LedgerIndex expected = new LedgerIndex(WAGE, TIMELINE);
+        try (LedgerLog log = LedgerLog.open(directory, 100, false)) {
+            for (int i = 0; i < 7; i++) {
+                TransactionBatch batch = randomBatch(random, 90);
+                log.append(batch);
+                expected.append(batch);
+            }
+            assertEquals(630, log.records());
+        }
+        try (LedgerLog log = LedgerLog.open(directory, 100, false)) {
+            assertEquals(630, log.records());
+            assertSame(expected, log.recover(WAGE, TIMELINE));
+        }
+    }
+
+    @Test
+    void checkpointIsUsedAndTailReplayed() throws IOException {
+        Random random = new Random(6);
+        LedgerIndex expected = new LedgerIndex(WAGE, TIMELINE);
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            TransactionBatch first = randomBatch(random, 150);
+            log.append(first);
+            expected.append(first);
+            log.checkpoint(expected);
+            assertEquals(0, log.uncheckpointed());
+            TransactionBatch second = randomBatch(random, 50);
+            log.append(second);
+            expected.append(second);
+        }
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            LedgerIndex recovered = log.recover(WAGE, TIMELINE);
+            assertEquals(50, log.uncheckpointed());
+            assertSame(expected, recovered);
+        }
+    }
+
+    @Test
+    void corruptCheckpointFallsBackToFullReplay() throws IOException {
+        LedgerIndex expected = new LedgerIndex(WAGE, TIMELINE);
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            TransactionBatch batch = randomBatch(new Random(7), 100);
+            log.append(batch);
+            expected.append(batch);
+            log.checkpoint(expected);
+        }
+        Files.write(directory.resolve("checkpoint.dat"), new byte[] {1, 2, 3});
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            assertSame(expected, log.recover(WAGE, TIMELINE));
+            assertEquals(100, log.uncheckpointed());
+        }
+    }
+
+    @Test
+    void segmentsAfterPartialOneAreIgnored() throws IOException {
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            log.append(randomBatch(new Random(8), 10));
+        }
+        // A segment that could only exist after a crash mid-roll
+        SegmentFile.create(directory.resolve("00000001.seg"), 64).close();
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            assertEquals(10, log.records());
+        }
+        assertEquals(false, Files.exists(directory.resolve("00000001.seg")));
+    }
+
+    @Test
+    void newestSegmentWithTornHeaderIsRemoved() throws IOException {
+        LedgerIndex expected = new LedgerIndex(WAGE, TIMELINE);
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            TransactionBatch batch = randomBatch(new Random(9), 64);
+            log.append(batch);
+            expected.append(batch);
+        }
+        // Crash mid-roll: the next segment was created but its header never written
+        for (byte[] torn : List.of(new byte[0], new byte[SegmentFile.HEADER_BYTES + 64 * SegmentFile.RECORD_BYTES])) {
+            Files.write(directory.resolve("00000001.seg"), torn);
+            try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+                assertEquals(64, log.records());
+                assertEquals(false, Files.exists(directory.resolve("00000001.seg")));
+                assertSame(expected, log.recover(WAGE, TIMELINE));
+            }
+        }
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            TransactionBatch batch = randomBatch(new Random(10), 10);
+            log.append(batch);
+            expected.append(batch);
+        }
+        try (LedgerLog log = LedgerLog.open(directory, 64, false)) {
+            assertEquals(74, log.records());
+            assertSame(expected, log.recover(WAGE, TIMELINE));
+        }
+    }
+
+    @Test
+    void checkpointAheadOfLogIsDeleted() throws IOException {
+        Path ahead = directory.resolve("ahead");
+        Path ledger = directory.resolve("ledger");
+        Random random = new Random(11);
+        TransactionBatch first = randomBatch(random, 50);
+        TransactionBatch lost = randomBatch(random, 50);
+        try (LedgerLog log = LedgerLog.open(ahead, 64, false)) {
+            LedgerIndex index = new LedgerIndex(WAGE, TIMELINE);
+            log.append(first);
+            log.append(lost);
+            index.append(first);
+            index.append(lost);
+            log.checkpoint(index);
+        }
+        LedgerIndex expected = new LedgerIndex(WAGE, TIMELINE);
+        try (LedgerLog log = LedgerLog.open(ledger, 64, false)) {
+            log.append(first);
+            expected.append(first);
+        }
+        // The checkpoint reached the device but the last 50 records did not
+        Files.copy(ahead.resolve("checkpoint.dat"), ledger.resolve("checkpoint.dat"));
+        try (LedgerLog log = LedgerLog.open(ledger, 64, false)) {
+            assertSame(expected, log.recover(WAGE, TIMELINE));
+            assertEquals(false, Files.exists(ledger.resolve("checkpoint.dat")));
+            TransactionBatch next = randomBatch(random, 60);
+            log.append(next);
+            expected.append(next);
+        }
+        try (LedgerLog log = LedgerLog.open(ledger, 64, false)) {
+            assertSame(expected, log.recover(WAGE, TIMELINE));
+        }
+    }
+
+    private static void assertSame(LedgerIndex expected, LedgerIndex actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getTotalAmount(), actual.getTotalAmount(), 1e-6);
+        assertEquals(expected.getTotalCeiling(), actual.getTotalCeiling(), 1e-6);
+        for (int day = 0; day < 365; day += 17) {
+            LocalDateTime start = ORIGIN.plusDays(day);
+            assertEquals(expected.sum(start, start.plusDays(45)), actual.sum(start, start.plusDays(45)), 1e-6);
+        }
+    }
+
+    private static TransactionBatch randomBatch(Random random, int rows) {
+        TransactionBatch batch = new TransactionBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(Helper.toEpochSecond(ORIGIN.plusDays(random.nextInt(365))), random.nextInt(2000) - 100);
+        }
+        batch.roundUp();
+        return batch;
+    }
+}
@@ -0,0 +1,72 @@
+package com.blackrock.selfinvestment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.models.ReturnsBatchResultDTO;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.json.JsonMapper;
+
+class ReturnsBatchServiceTest {
+
+    private static final String ITEM = """
+            {"age": %d, "wage": 50000, "inflation": 5.5, "q": [], "p": [],
+             "k": [{"start": "2023-01-01 00:00:00", "end": "2023-12-31 23:59:59"}],
+             "transactions": [{"date": "2023-03-20 14:45:00", "amount": %d}, {"date": "%s", "amount": 250}]}""";
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private final ReturnsService returnsService = new ReturnsService(new MomentTimelineCache(16),
+            ParallelBatchExecutor.sequential());
+
+    @Test
+    void everyItemIsEvaluatedAndFailuresStayIsolated() {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String date = i % 37 == 5 ? "not a date" : "2023-07-01 10:00:00";
+            items.add(ITEM.formatted(20 + i % 40, 1000 + i, date));
+        }
+        List<ReturnsBatchResultDTO> results = new ArrayList<>();
+        try (ReturnsBatchService service = new ReturnsBatchService(returnsService, mapper, 3);
+                JsonParser parser = mapper.createParser("[" + String.join(",", items) + "]")) {
+            assertEquals(200, service.evaluate(parser, ReturnsService.NPS, results::add));
+        }
+
+        results.sort(Comparator.comparingInt(ReturnsBatchResultDTO::getIndex));
+        assertEquals(200, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ReturnsBatchResultDTO result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i % 37 == 5) {
+                assertNull(result.getResult());
+                assertNotNull(result.getError());
+            } else {
+                ReturnsResponseDTO expected = returnsService.calculateNPS(
+                        mapper.readValue(items.get(i), ReturnsRequestDTO.class));
+                assertEquals(expected, result.getResult());
+                assertNull(result.getError());
+            }
+        }
+    }
+
+    @Test
+    void bodyThatIsNotAnArrayIsRejected() {
+        try (ReturnsBatchService service = new ReturnsBatchService(returnsService, mapper, 1);
+                JsonParser parser = mapper.createParser("{\"age\": 30}")) {
+            assertThrows(ResponseStatusException.class, () -> service.evaluate(parser, ReturnsService.NPS, r -> { }));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.blackrock.selfinvestment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.models.ReturnsRequestDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseDTO;
+import com.blackrock.selfinvestment.models.ReturnsResponseIndexDTO;
+import com.blackrock.selfinvestment.models.ScenarioDTO;
+import com.blackrock.selfinvestment.models.ScenarioGridResponseDTO;
+import com.blackrock.selfinvestment.models.ScenarioRequestDTO;
+import com.blackrock.selfinvestment.models.ScenarioResultDTO;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+class ReturnsServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+
+    private final ReturnsService service = new ReturnsService(new MomentTimelineCache(16),
+            ParallelBatchExecutor.sequential());
+
+    @Test
+    void scenarioGridMatchesSingleRequests() {
+        Random random = new Random(16);
+        List<qMomentsDTO> q = List.of(new qMomentsDTO(0, ORIGIN.plusDays(40), ORIGIN.plusDays(70)));
+        List<pMomentsDTO> p = List.of(new pMomentsDTO(25, ORIGIN.plusDays(10), ORIGIN.plusDays(300)));
+        List<kGroupsDTO> k = List.of(new kGroupsDTO(ORIGIN, ORIGIN.plusDays(364)),
+                new kGroupsDTO(ORIGIN.plusDays(59), ORIGIN.plusDays(333)));
+        List<transactionsDTO> transactions = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            transactions.add(new transactionsDTO(ORIGIN.plusSeconds(random.nextInt(365 * 86400)),
+                    random.nextInt(60000) / 10.0 - 50));
+        }
+        List<ScenarioDTO> scenarios = new ArrayList<>();
+        for (int age : new int[] {22, 29, 45, 60, 65}) {
+            for (double wage : new double[] {1500, 4000, 50000}) {
+                for (double inflation : new double[] {0, 5.5, 7}) {
+                    scenarios.add(new ScenarioDTO(age, wage, inflation, ReturnsService.NPS));
+                    scenarios.add(new ScenarioDTO(age, wage, inflation, ReturnsService.INDEX));
+                }
+            }
+        }
+
+        ScenarioGridResponseDTO grid = service.scenarioGrid(new ScenarioRequestDTO(q, p, k, transactions, scenarios));
+
+        assertEquals(scenarios.size(), grid.getScenarios().size());
+        for (ScenarioResultDTO row : grid.getScenarios()) {
+            ReturnsRequestDTO single = new ReturnsRequestDTO(row.getAge(), row.getWage(), row.getInflation(), q, p, k,
+                    transactions);
+            if (ReturnsService.NPS.equals(row.getProduct())) {
+                ReturnsResponseDTO expected = service.calculateNPS(single);
+                assertEquals(expected.getTotalTransactionAmount(), row.getTotalTransactionAmount());
+                assertEquals(expected.getTotalCeiling(), row.getTotalCeiling());
+                for (int i = 0; i < k.size(); i++) {
+                    assertEquals(expected.getSavingByDates().get(i).getAmount(), row.getAmount()[i]);
+                    assertEquals(expected.getSavingByDates().get(i).getProfit(), row.getValue()[i]);
+                    assertEquals(expected.getSavingByDates().get(i).getTaxBenefit(), row.getTaxBenefit()[i]);
+                }
+            } else {
+                ReturnsResponseIndexDTO expected = service.calculateIndexReturns(single);
+                assertEquals(expected.getTotalTransactionAmount(), row.getTotalTransactionAmount());
+                for (int i = 0; i < k.size(); i++) {
+                    assertEquals(expected.getSavingByDates().get(i).getReturnValue(), row.getValue()[i]);
+                }
+                assertNull(row.getTaxBenefit());
+            }
+        }
+    }
+
+    @Test
+    void scenarioAgesAreBounded() {
+        List<kGroupsDTO> k = List.of(new kGroupsDTO(ORIGIN, ORIGIN.plusDays(364)));
+        List<transactionsDTO> transactions = List.of(new transactionsDTO(ORIGIN.plusDays(3), 1234.5));
+        for (int age : new int[] {-1_000_000_000, Integer.MIN_VALUE, -1, 151, Integer.MAX_VALUE}) {
+            List<ScenarioDTO> scenarios = List.of(new ScenarioDTO(60, 50000, 5.5, ReturnsService.NPS),
+                    new ScenarioDTO(age, 50000, 5.5, ReturnsService.INDEX));
+            assertThrows(IllegalArgumentException.class, () -> service.scenarioGrid(
+                    new ScenarioRequestDTO(List.of(), List.of(), k, transactions, scenarios)));
+        }
+        List<ScenarioDTO> edges = List.of(new ScenarioDTO(ReturnsService.MIN_SCENARIO_AGE, 50000, 5.5, ReturnsService.NPS),
+                new ScenarioDTO(ReturnsService.MAX_SCENARIO_AGE, 50000, 5.5, ReturnsService.INDEX));
+        assertEquals(2, service.scenarioGrid(new ScenarioRequestDTO(List.of(), List.of(), k, transactions, edges))
+                .getScenarios().size());
+    }
+}
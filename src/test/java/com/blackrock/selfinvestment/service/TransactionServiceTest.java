@@ -0,0 +1,114 @@
+package com.blackrock.selfinvestment.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.blackrock.selfinvestment.engine.MomentTimelineCache;
+import com.blackrock.selfinvestment.engine.ParallelBatchExecutor;
+import com.blackrock.selfinvestment.helper.Helper;
+import com.blackrock.selfinvestment.models.kGroupsDTO;
+import com.blackrock.selfinvestment.models.pMomentsDTO;
+import com.blackrock.selfinvestment.models.qMomentsDTO;
+import com.blackrock.selfinvestment.models.transactionFilterDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResponseDTO;
+import com.blackrock.selfinvestment.models.transactionFilterResultDTO;
+import com.blackrock.selfinvestment.models.transactionFilterValidatorDTO;
+import com.blackrock.selfinvestment.models.transactionsDTO;
+
+class TransactionServiceTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+
+    private final TransactionService service = new TransactionService(new MomentTimelineCache(16),
+            ParallelBatchExecutor.sequential());
+
+    @Test
+    void fusedFilterMatchesTwoPassFilterThenValidate() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            transactionFilterDTO request = randomRequest(random);
+
+            transactionFilterResultDTO actual = service.filterAndValidate(request);
+            Map<String, Object> expected = service.validateTransactions(
+                    new transactionFilterValidatorDTO(twoPassFilter(request), request.getWage()));
+
+            assertEquals(expected.get("valid"), actual.getValid(), "round " + round);
+            assertEquals(expected.get("invalid"), actual.getInvalid(), "round " + round);
+        }
+    }
+
+    /** The per-row q/p/k rules as they were applied before validation was fused in. */
+    private static List<transactionFilterResponseDTO> twoPassFilter(transactionFilterDTO filterDTO) {
+        List<transactionFilterResponseDTO> calculatedList = new ArrayList<>();
+        for (transactionsDTO transaction : filterDTO.getTransactions()) {
+            LocalDateTime date = transaction.getDate();
+            double amount = transaction.getAmount();
+            if (amount <= 0) {
+                calculatedList.add(new transactionFilterResponseDTO(date, amount, 0, 0, false));
+                continue;
+            }
+            double ceiling = Math.ceil(amount / 100) * 100;
+            double remanent = ceiling - amount;
+
+            qMomentsDTO selectedQ = null;
+            for (qMomentsDTO q : filterDTO.getQ()) {
+                if (Helper.isBetweenInclusive(date, q.getStart(), q.getEnd())
+                        && (selectedQ == null || q.getStart().isAfter(selectedQ.getStart()))) {
+                    selectedQ = q;
+                }
+            }
+            if (selectedQ != null) {
+                if (selectedQ.getFixed() == 0) continue;
+                remanent = selectedQ.getFixed();
+                ceiling = amount + remanent;
+            }
+            for (pMomentsDTO p : filterDTO.getP()) {
+                if (Helper.isBetweenInclusive(date, p.getStart(), p.getEnd())) remanent += p.getExtra();
+            }
+            boolean inKPeriod = false;
+            for (kGroupsDTO k : filterDTO.getK()) {
+                if (Helper.isBetweenInclusive(date, k.getStart(), k.getEnd())) inKPeriod = true;
+            }
+            calculatedList.add(new transactionFilterResponseDTO(date, amount, ceiling, remanent, inKPeriod));
+        }
+        return calculatedList;
+    }
+
+    private static transactionFilterDTO randomRequest(Random random) {
+        List<transactionsDTO> transactions = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(300); i < n; i++) {
+            if (i > 0 && random.nextInt(8) == 0) {
+                transactions.add(transactions.get(random.nextInt(i)));
+            } else {
+                transactions.add(new transactionsDTO(randomDate(random), random.nextInt(2200) - 100));
+            }
+        }
+        List<qMomentsDTO> q = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            q.add(new qMomentsDTO(random.nextInt(4) * 10, start, start.plusDays(random.nextInt(60))));
+        }
+        List<pMomentsDTO> p = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(5); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            p.add(new pMomentsDTO(random.nextInt(50), start, start.plusDays(random.nextInt(60))));
+        }
+        List<kGroupsDTO> k = new ArrayList<>();
+        for (int i = 0, n = random.nextInt(6); i < n; i++) {
+            LocalDateTime start = randomDate(random);
+            k.add(new kGroupsDTO(start, start.plusDays(random.nextInt(90) - 5)));
+        }
+        return new transactionFilterDTO(q, p, k, 2000, transactions);
+    }
+
+    private static LocalDateTime randomDate(Random random) {
+        return ORIGIN.plusDays(random.nextInt(365));
+    }
+}